@@ -48,6 +48,23 @@ public class DataInitializer {
         plugin.getLogger().info("Datos RPG inicializados para: " + worldSlug);
     }
     
+    /**
+     * Inicializa solo los archivos locales de un mundo. Mundos distintos se pueden inicializar
+     * a la vez porque cada uno escribe en su propio directorio.
+     * 
+     * @param worldSlug Slug del mundo
+     * @return false si algún archivo no se pudo crear
+     */
+    public boolean initializeLocalData(String worldSlug) {
+        plugin.getLogger().info("Inicializando datos RPG para mundo: " + worldSlug);
+        if (!initializeWorldDataFiles(worldSlug)) {
+            plugin.getLogger().warning("Datos RPG incompletos para: " + worldSlug);
+            return false;
+        }
+        plugin.getLogger().info("Datos RPG inicializados para: " + worldSlug);
+        return true;
+    }
+    
     /**
      * Inicializa datos universales (se crea una sola vez)
      * Estos archivos se comparten entre todos los mundos
@@ -65,22 +82,26 @@ public class DataInitializer {
      * Inicializa archivos de datos locales de un mundo
      * 
      * @param worldSlug Slug del mundo
+     * @return false si algún archivo no se pudo crear
      */
-    private void initializeWorldDataFiles(String worldSlug) {
+    private boolean initializeWorldDataFiles(String worldSlug) {
+        boolean ok = true;
+        
         // Datos híbridos (local)
-        initializeDataFile("npcs", "local", worldSlug);
-        initializeDataFile("quests", "local", worldSlug);
-        initializeDataFile("mobs", "local", worldSlug);
-        initializeDataFile("pets", "local", worldSlug);
-        initializeDataFile("enchantments", "local", worldSlug);
+        ok &= initializeDataFile("npcs", "local", worldSlug);
+        ok &= initializeDataFile("quests", "local", worldSlug);
+        ok &= initializeDataFile("mobs", "local", worldSlug);
+        ok &= initializeDataFile("pets", "local", worldSlug);
+        ok &= initializeDataFile("enchantments", "local", worldSlug);
         
         // Datos exclusive-local
-        initializeDataFile("players", "exclusive-local", worldSlug);
-        initializeDataFile("status", "exclusive-local", worldSlug);
-        initializeDataFile("invasions", "exclusive-local", worldSlug);
-        initializeDataFile("kills", "exclusive-local", worldSlug);
-        initializeDataFile("respawn", "exclusive-local", worldSlug);
-        initializeDataFile("squads", "exclusive-local", worldSlug);
+        ok &= initializeDataFile("players", "exclusive-local", worldSlug);
+        ok &= initializeDataFile("status", "exclusive-local", worldSlug);
+        ok &= initializeDataFile("invasions", "exclusive-local", worldSlug);
+        ok &= initializeDataFile("kills", "exclusive-local", worldSlug);
+        ok &= initializeDataFile("respawn", "exclusive-local", worldSlug);
+        ok &= initializeDataFile("squads", "exclusive-local", worldSlug);
+        return ok;
     }
     
     /**
@@ -90,24 +111,27 @@ public class DataInitializer {
      * @param dataType Tipo de dato (npcs, quests, etc.)
      * @param scope Alcance (universal, local, exclusive-local)
      * @param worldSlug Slug del mundo (requerido para local/exclusive-local)
+     * @return true si el archivo existe al terminar
      */
-    private void initializeDataFile(String dataType, String scope, String worldSlug) {
+    private boolean initializeDataFile(String dataType, String scope, String worldSlug) {
         File targetPath = pathResolver.resolvePath(worldSlug, dataType, scope);
         
         if (targetPath.exists()) {
-            return; // Ya existe, no hacer nada
+            return true; // Ya existe, no hacer nada
         }
         
         // Intentar copiar desde archivo .example
         if (copyFromExample(dataType, targetPath)) {
             plugin.getLogger().info("✓ Copiado " + dataType + " desde .example");
-            return;
+            return true;
         }
         
         // Generar archivo por defecto
         if (generateDefaultFile(dataType, scope, targetPath)) {
             plugin.getLogger().info("✓ Generado archivo por defecto para " + dataType);
+            return true;
         }
+        return false;
     }
     
     /**
@@ -3,30 +3,68 @@ package com.nightslayer.mmorpg;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
+import com.nightslayer.mmorpg.api.ChangeFeed;
 import com.nightslayer.mmorpg.classes.PlayerClass;
 import com.nightslayer.mmorpg.npcs.CustomNPC;
 import com.nightslayer.mmorpg.quests.Quest;
+import com.nightslayer.mmorpg.spawns.SpawnPoint;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 // import com.nightslayer.mmorpg.quests.PlayerQuestProgress;
 import org.bukkit.entity.Player;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.logging.Level;
 
 public class DataManager {
     
     private final MMORPGPlugin plugin;
     private final Gson gson;
-    private final Map<String, JsonObject> worldDataCache;
+    private final Map<String, String> lastHashes;
+    private final AtomicBoolean exporting;
+    private final long snapshotBudgetNanos;
+    private final int fullSnapshotEvery;
+    private volatile ExportSnapshot lastSnapshot;
+    // Copias JSON por id, solo se usan en el hilo principal
+    private final Map<String, JsonObject> questJson;
+    private final Map<String, JsonObject> npcJson;
+    private final Map<String, JsonObject> spawnJson;
+    private Map<String, PlayerRow> playerRows;
+    private long capturedVersion;
+    private long baseVersion;
+    private int exportsSinceFull;
+    private long lastChangesVersion = -1L;
     
     public DataManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
-        this.gson = plugin.getGson();
-        this.worldDataCache = new HashMap<>();
+        this.gson = GsonRegistry.compact();
+        this.lastHashes = new ConcurrentHashMap<>();
+        this.exporting = new AtomicBoolean(false);
+        this.snapshotBudgetNanos = TimeUnit.MILLISECONDS.toNanos(
+            Math.max(1L, plugin.getConfig().getLong("web-panel.snapshot-budget-ms", 5)));
+        this.fullSnapshotEvery = Math.max(1, plugin.getConfig().getInt("web-panel.full-snapshot-every", 20));
+        this.questJson = new LinkedHashMap<>();
+        this.npcJson = new LinkedHashMap<>();
+        this.spawnJson = new LinkedHashMap<>();
+        this.playerRows = new LinkedHashMap<>();
     }
     
     /**
@@ -58,13 +96,11 @@ public class DataManager {
      * Guarda un objeto JSON en un archivo
      */
     private void saveJsonToFile(JsonObject data, String worldSlug, String filename) {
-        File worldDataDir = new File(plugin.getDataFolder(), "data/" + worldSlug);
-        worldDataDir.mkdirs();
+        byte[] body = gson.toJson(data).getBytes(StandardCharsets.UTF_8);
+        publish(worldSlug, filename, body);
         
-        File file = new File(worldDataDir, filename);
-        
-        try (FileWriter writer = new FileWriter(file)) {
-            gson.toJson(data, writer);
+        try {
+            writeAtomically(worldSlug, filename, body);
         } catch (IOException e) {
             plugin.getLogger().log(Level.WARNING, 
                 "Error al guardar archivo " + filename + " para mundo " + worldSlug, e);
@@ -72,140 +108,485 @@ public class DataManager {
     }
     
     /**
-     * Actualiza el estado del mundo en status.json
+     * Exporta datos para el panel web.
+     * Debe llamarse desde el hilo principal: aquí solo se toma la instantánea y la
+     * serialización y escritura se hacen en un hilo asíncrono. Si la exportación
+     * anterior aún no ha terminado, esta se omite.
      */
-    public void updateWorldStatus(String worldSlug) {
-        JsonObject status = new JsonObject();
-        status.addProperty("world", worldSlug);
-        status.addProperty("rpg_enabled", true);
+    public void exportDataForWebPanel() {
+        if (!exporting.compareAndSet(false, true)) {
+            return;
+        }
         
-        // Contar jugadores en el mundo
-        int playersOnline = 0;
-        org.bukkit.World world = plugin.getServer().getWorld(worldSlug);
-        if (world != null) {
-            playersOnline = world.getPlayers().size();
+        ExportSnapshot snapshot;
+        try {
+            snapshot = captureSnapshot();
+        } catch (RuntimeException e) {
+            exporting.set(false);
+            throw e;
         }
-        status.addProperty("players_online", playersOnline);
         
-        // Estadísticas de clases activas
-        int classesActive = 0;
-        for (Player player : plugin.getServer().getOnlinePlayers()) {
-            if (world != null && player.getWorld().equals(world)) {
-                PlayerClass playerClass = plugin.getClassManager().getPlayerClass(player);
-                if (playerClass != null && playerClass.getClassType() != com.nightslayer.mmorpg.classes.ClassType.NONE) {
-                    classesActive++;
+        plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+            try {
+                writeSnapshot(snapshot);
+                if (plugin.getAdminAPI() != null) {
+                    plugin.getAdminAPI().exportStatus(snapshot.quests().size(), snapshot.npcs().size());
                 }
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Error al sincronizar con panel web", e);
+            } finally {
+                exporting.set(false);
             }
-        }
-        status.addProperty("classes_active", classesActive);
+        });
+    }
+    
+    /**
+     * Toma en el hilo principal una copia inmutable de lo que se exporta, una sola vez para todos
+     * los mundos. Solo se vuelven a convertir a JSON las quests, NPCs y spawns que aparecen en el
+     * registro de cambios; cada cierto número de exportaciones (o si el registro se desbordó) se
+     * reconstruye todo. Si se agota el presupuesto de tiempo, los cambios restantes quedan para
+     * la siguiente exportación.
+     */
+    private ExportSnapshot captureSnapshot() {
+        long deadline = System.nanoTime() + snapshotBudgetNanos;
+        ChangeFeed feed = plugin.getChangeFeed();
         
-        // Estadísticas de quests activas
-        int questsActive = 0;
+        // Jugadores: pocos y baratos, se comparan con la exportación anterior para anotar cambios
+        Map<String, PlayerRow> rows = new LinkedHashMap<>();
         for (Player player : plugin.getServer().getOnlinePlayers()) {
-            if (world != null && player.getWorld().equals(world)) {
-                questsActive += plugin.getQuestManager().getActiveQuests(player).size();
+            PlayerClass playerClass = plugin.getClassManager().getPlayerClass(player);
+            PlayerRow row = new PlayerRow(
+                player.getUniqueId().toString(),
+                player.getName(),
+                player.getWorld().getName(),
+                playerClass.getLevel(),
+                playerClass.getClassType().getDisplayName(),
+                playerClass.getClassType() != com.nightslayer.mmorpg.classes.ClassType.NONE,
+                plugin.getQuestManager().getActiveQuests(player).size()
+            );
+            rows.put(row.uuid(), row);
+            if (!row.equals(playerRows.get(row.uuid()))) {
+                feed.record(ChangeFeed.Kind.PLAYER, row.uuid(), false);
+            }
+        }
+        for (String uuid : playerRows.keySet()) {
+            if (!rows.containsKey(uuid)) {
+                feed.record(ChangeFeed.Kind.PLAYER, uuid, true);
             }
         }
-        status.addProperty("quests_active", questsActive);
+        playerRows = rows;
+        
+        ExportSnapshot previous = lastSnapshot;
+        long until = feed.getVersion();
+        List<ChangeFeed.Change> changes = null;
+        boolean full = previous == null || exportsSinceFull >= fullSnapshotEvery;
+        if (!full) {
+            changes = feed.between(capturedVersion, until);
+            full = changes == null || feed.between(baseVersion, until) == null;
+        }
         
-        // NPCs spawneados
-        int npcsSpawned = (int) plugin.getNPCManager().getAllNPCs().stream()
-            .filter(CustomNPC::isSpawned)
-            .count();
-        status.addProperty("npcs_spawned", npcsSpawned);
+        boolean questsChanged = full;
+        boolean npcsChanged = full;
+        if (full) {
+            rebuildCaches();
+            baseVersion = until;
+            capturedVersion = until;
+            exportsSinceFull = 0;
+        } else {
+            for (ChangeFeed.Change change : changes) {
+                if (System.nanoTime() > deadline) {
+                    break;
+                }
+                applyChange(change);
+                questsChanged |= change.kind() == ChangeFeed.Kind.QUEST;
+                npcsChanged |= change.kind() == ChangeFeed.Kind.NPC;
+                capturedVersion = change.version();
+            }
+            exportsSinceFull++;
+        }
         
-        status.addProperty("last_updated", System.currentTimeMillis());
+        List<JsonObject> quests = questsChanged ? List.copyOf(questJson.values()) : previous.quests();
+        List<JsonObject> npcs = npcsChanged ? List.copyOf(npcJson.values()) : previous.npcs();
+        int npcsSpawned = npcsChanged ? countSpawned(npcs) : previous.npcsSpawned();
         
-        saveJsonToFile(status, worldSlug, "status.json");
+        ExportSnapshot snapshot = new ExportSnapshot(
+            System.currentTimeMillis(),
+            List.copyOf(plugin.getWorldRPGManager().getAllRPGWorlds().keySet()),
+            List.copyOf(rows.values()),
+            quests,
+            npcs,
+            npcsSpawned,
+            capturedVersion,
+            baseVersion,
+            full,
+            questsChanged,
+            npcsChanged,
+            full ? List.of() : buildDelta(feed.between(baseVersion, capturedVersion))
+        );
+        lastSnapshot = snapshot;
+        return snapshot;
     }
     
     /**
-     * Exporta datos para el panel web
+     * Vuelve a convertir a JSON todas las quests, NPCs y spawns
      */
-    public void exportDataForWebPanel() {
-        for (String worldSlug : plugin.getWorldRPGManager().getAllRPGWorlds().keySet()) {
-            updateWorldStatus(worldSlug);
-            updatePlayersData(worldSlug);
-            updateClassesData(worldSlug);
-            updateQuestsData(worldSlug);
-            updateNPCsData(worldSlug);
+    private void rebuildCaches() {
+        questJson.clear();
+        for (Quest quest : plugin.getQuestManager().getAllQuests()) {
+            questJson.put(quest.getId(), quest.toJson());
+        }
+        npcJson.clear();
+        for (CustomNPC npc : plugin.getNPCManager().getAllNPCs()) {
+            npcJson.put(npc.getId(), npc.toJson());
+        }
+        spawnJson.clear();
+        for (SpawnPoint spawn : plugin.getSpawnManager().getSpawnPoints().values()) {
+            spawnJson.put(spawn.getId(), spawn.toJson());
         }
     }
     
     /**
-     * Actualiza datos de jugadores
+     * Actualiza la copia JSON del elemento que cambió
      */
-    private void updatePlayersData(String worldSlug) {
-        JsonObject playersData = new JsonObject();
-        org.bukkit.World world = plugin.getServer().getWorld(worldSlug);
-        
-        if (world != null) {
-            for (Player player : world.getPlayers()) {
-                JsonObject playerInfo = new JsonObject();
-                PlayerClass playerClass = plugin.getClassManager().getPlayerClass(player);
-                
-                playerInfo.addProperty("name", player.getName());
-                playerInfo.addProperty("uuid", player.getUniqueId().toString());
-                playerInfo.addProperty("level", playerClass.getLevel());
-                playerInfo.addProperty("class", playerClass.getClassType().getDisplayName());
-                playerInfo.addProperty("lastSeen", System.currentTimeMillis());
-                
-                playersData.add(player.getUniqueId().toString(), playerInfo);
+    private void applyChange(ChangeFeed.Change change) {
+        switch (change.kind()) {
+            case QUEST -> {
+                Quest quest = change.removed() ? null : plugin.getQuestManager().getQuest(change.id());
+                if (quest != null) {
+                    questJson.put(change.id(), quest.toJson());
+                } else {
+                    questJson.remove(change.id());
+                }
+            }
+            case NPC -> {
+                CustomNPC npc = change.removed() ? null : plugin.getNPCManager().getNPC(change.id());
+                if (npc != null) {
+                    npcJson.put(change.id(), npc.toJson());
+                } else {
+                    npcJson.remove(change.id());
+                }
+            }
+            case SPAWN -> {
+                SpawnPoint spawn = change.removed() ? null : plugin.getSpawnManager().getSpawnPoint(change.id());
+                if (spawn != null) {
+                    spawnJson.put(change.id(), spawn.toJson());
+                } else {
+                    spawnJson.remove(change.id());
+                }
             }
+            case PLAYER -> {
+                // Las filas de jugadores se recalculan en cada exportación
+            }
+        }
+    }
+    
+    /**
+     * Cambios desde la última exportación completa, uno por elemento (el más reciente) y con sus datos actuales
+     */
+    private List<DeltaEntry> buildDelta(List<ChangeFeed.Change> changes) {
+        if (changes == null || changes.isEmpty()) {
+            return List.of();
+        }
+        
+        Map<String, ChangeFeed.Change> latest = new LinkedHashMap<>();
+        for (ChangeFeed.Change change : changes) {
+            String key = change.kind() + ":" + change.id();
+            latest.remove(key);
+            latest.put(key, change);
         }
         
-        saveJsonToFile(playersData, worldSlug, "players.json");
+        List<DeltaEntry> delta = new ArrayList<>(latest.size());
+        for (ChangeFeed.Change change : latest.values()) {
+            JsonObject data = switch (change.kind()) {
+                case QUEST -> questJson.get(change.id());
+                case NPC -> npcJson.get(change.id());
+                case SPAWN -> spawnJson.get(change.id());
+                case PLAYER -> {
+                    PlayerRow row = playerRows.get(change.id());
+                    yield row != null ? row.toJson() : null;
+                }
+            };
+            delta.add(new DeltaEntry(change.version(), change.kind(), change.id(), data == null, data));
+        }
+        return List.copyOf(delta);
+    }
+    
+    private static int countSpawned(List<JsonObject> npcs) {
+        int spawned = 0;
+        for (JsonObject npc : npcs) {
+            if (npc.get("spawned").getAsBoolean()) {
+                spawned++;
+            }
+        }
+        return spawned;
     }
     
     /**
-     * Actualiza datos de clases
+     * Serializa y escribe la instantánea para cada mundo RPG (fuera del hilo principal).
+     * Quests y NPCs solo se serializan si cambiaron; el resto de cambios va en data/changes.json.
      */
-    private void updateClassesData(String worldSlug) {
-        JsonArray classesData = new JsonArray();
+    private synchronized void writeSnapshot(ExportSnapshot snapshot) throws IOException {
+        // Iguales para todos los mundos: se serializan una sola vez
+        byte[] classesBody = serialize(this::writeClasses);
+        byte[] questsBody = snapshot.questsChanged()
+            ? serialize(writer -> writeArray(writer, "quests", snapshot.quests())) : null;
+        byte[] npcsBody = snapshot.npcsChanged()
+            ? serialize(writer -> writeArray(writer, "npcs", snapshot.npcs())) : null;
         
-        for (com.nightslayer.mmorpg.classes.ClassType classType : com.nightslayer.mmorpg.classes.ClassType.values()) {
-            if (classType == com.nightslayer.mmorpg.classes.ClassType.NONE) continue;
+        for (String worldSlug : snapshot.worlds()) {
+            List<PlayerRow> worldPlayers = new ArrayList<>();
+            for (PlayerRow row : snapshot.players()) {
+                if (row.world().equals(worldSlug)) {
+                    worldPlayers.add(row);
+                }
+            }
             
-            JsonObject classInfo = new JsonObject();
-            classInfo.addProperty("name", classType.getDisplayName());
-            classInfo.addProperty("icon", classType.getIcon());
-            classInfo.addProperty("description", classType.getDescription());
-            classesData.add(classInfo);
+            exportDocument(worldSlug, "status.json",
+                includeTimestamps -> statusDocument(includeTimestamps, worldSlug, worldPlayers, snapshot));
+            exportDocument(worldSlug, "players.json",
+                includeTimestamps -> playersDocument(includeTimestamps, worldPlayers, snapshot.capturedAt()));
+            exportBody(worldSlug, "classes.json", classesBody);
+            if (questsBody != null) {
+                exportBody(worldSlug, "quests.json", questsBody);
+            }
+            if (npcsBody != null) {
+                exportBody(worldSlug, "npcs.json", npcsBody);
+            }
         }
         
-        JsonObject wrapper = new JsonObject();
-        wrapper.add("classes", classesData);
-        saveJsonToFile(wrapper, worldSlug, "classes.json");
+        writeChanges(snapshot);
     }
     
     /**
-     * Actualiza datos de quests
+     * Escribe data/changes.json: los cambios desde la última exportación completa.
+     * Aplicados sobre los archivos completos, dan el estado actual.
      */
-    private void updateQuestsData(String worldSlug) {
-        JsonArray questsData = new JsonArray();
+    private void writeChanges(ExportSnapshot snapshot) throws IOException {
+        if (snapshot.version() == lastChangesVersion && !snapshot.full()) {
+            return;
+        }
         
-        for (Quest quest : plugin.getQuestManager().getAllQuests()) {
-            questsData.add(quest.toJson());
+        byte[] body = serialize(writer -> {
+            writer.beginObject();
+            writer.name("baseVersion").value(snapshot.baseVersion());
+            writer.name("version").value(snapshot.version());
+            writer.name("full").value(snapshot.full());
+            writer.name("changes").beginArray();
+            for (DeltaEntry entry : snapshot.delta()) {
+                writer.beginObject();
+                writer.name("version").value(entry.version());
+                writer.name("kind").value(entry.kind().name().toLowerCase());
+                writer.name("id").value(entry.id());
+                writer.name("removed").value(entry.removed());
+                if (entry.data() != null) {
+                    writer.name("data");
+                    gson.toJson(entry.data(), writer);
+                }
+                writer.endObject();
+            }
+            writer.endArray();
+            writer.endObject();
+        });
+        
+        File dataDir = new File(plugin.getDataFolder(), "data");
+        writeAtomically(dataDir, "changes.json", body);
+        if (plugin.getAdminAPI() != null) {
+            plugin.getAdminAPI().getSnapshots().publish("changes", body);
+        }
+        lastChangesVersion = snapshot.version();
+    }
+    
+    /**
+     * Escribe un documento con marcas de tiempo solo si cambió algo más que las marcas de tiempo
+     */
+    private void exportDocument(String worldSlug, String filename, TimestampedDocument document) throws IOException {
+        String key = worldSlug + "/" + filename;
+        String contentHash = hash(serialize(document.withTimestamps(false)));
+        if (contentHash.equals(lastHashes.get(key))) {
+            return;
         }
         
-        JsonObject wrapper = new JsonObject();
-        wrapper.add("quests", questsData);
-        saveJsonToFile(wrapper, worldSlug, "quests.json");
+        byte[] body = serialize(document.withTimestamps(true));
+        writeAtomically(worldSlug, filename, body);
+        publish(worldSlug, filename, body);
+        lastHashes.put(key, contentHash);
     }
     
     /**
-     * Actualiza datos de NPCs
+     * Escribe un documento ya serializado si su contenido cambió
      */
-    private void updateNPCsData(String worldSlug) {
-        JsonArray npcsData = new JsonArray();
+    private void exportBody(String worldSlug, String filename, byte[] body) throws IOException {
+        String key = worldSlug + "/" + filename;
+        String contentHash = hash(body);
+        if (contentHash.equals(lastHashes.get(key))) {
+            return;
+        }
         
-        for (CustomNPC npc : plugin.getNPCManager().getAllNPCs()) {
-            npcsData.add(npc.toJson());
+        writeAtomically(worldSlug, filename, body);
+        publish(worldSlug, filename, body);
+        lastHashes.put(key, contentHash);
+    }
+    
+    private ExportDocument statusDocument(boolean includeTimestamps, String worldSlug, List<PlayerRow> worldPlayers, ExportSnapshot snapshot) {
+        return writer -> {
+            int classesActive = 0;
+            int questsActive = 0;
+            for (PlayerRow row : worldPlayers) {
+                if (row.hasClass()) {
+                    classesActive++;
+                }
+                questsActive += row.activeQuests();
+            }
+            
+            writer.beginObject();
+            writer.name("world").value(worldSlug);
+            writer.name("rpg_enabled").value(true);
+            writer.name("players_online").value(worldPlayers.size());
+            writer.name("classes_active").value(classesActive);
+            writer.name("quests_active").value(questsActive);
+            writer.name("npcs_spawned").value(snapshot.npcsSpawned());
+            if (includeTimestamps) {
+                writer.name("last_updated").value(snapshot.capturedAt());
+            }
+            writer.endObject();
+        };
+    }
+    
+    private ExportDocument playersDocument(boolean includeTimestamps, List<PlayerRow> worldPlayers, long capturedAt) {
+        return writer -> {
+            writer.beginObject();
+            for (PlayerRow row : worldPlayers) {
+                writer.name(row.uuid()).beginObject();
+                writer.name("name").value(row.name());
+                writer.name("uuid").value(row.uuid());
+                writer.name("level").value(row.level());
+                writer.name("class").value(row.className());
+                if (includeTimestamps) {
+                    writer.name("lastSeen").value(capturedAt);
+                }
+                writer.endObject();
+            }
+            writer.endObject();
+        };
+    }
+    
+    private void writeClasses(JsonWriter writer) throws IOException {
+        writer.beginObject();
+        writer.name("classes").beginArray();
+        for (com.nightslayer.mmorpg.classes.ClassType classType : com.nightslayer.mmorpg.classes.ClassType.values()) {
+            if (classType == com.nightslayer.mmorpg.classes.ClassType.NONE) continue;
+            
+            writer.beginObject();
+            writer.name("name").value(classType.getDisplayName());
+            writer.name("icon").value(classType.getIcon());
+            writer.name("description").value(classType.getDescription());
+            writer.endObject();
+        }
+        writer.endArray();
+        writer.endObject();
+    }
+    
+    private void writeArray(JsonWriter writer, String name, List<JsonObject> elements) throws IOException {
+        writer.beginObject();
+        writer.name(name).beginArray();
+        for (JsonObject element : elements) {
+            gson.toJson(element, writer);
         }
+        writer.endArray();
+        writer.endObject();
+    }
+    
+    /**
+     * Serializa un documento con un JsonWriter en streaming, sin sangría (solo lo lee el panel)
+     */
+    private byte[] serialize(ExportDocument document) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        try (JsonWriter writer = new JsonWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8))) {
+            document.write(writer);
+        }
+        return out.toByteArray();
+    }
+    
+    /**
+     * Escribe en un archivo temporal y lo renombra, para que el panel nunca lea un archivo a medias
+     */
+    private void writeAtomically(String worldSlug, String filename, byte[] body) throws IOException {
+        writeAtomically(new File(plugin.getDataFolder(), "data/" + worldSlug), filename, body);
+    }
+    
+    private void writeAtomically(File dir, String filename, byte[] body) throws IOException {
+        dir.mkdirs();
         
-        JsonObject wrapper = new JsonObject();
-        wrapper.add("npcs", npcsData);
-        saveJsonToFile(wrapper, worldSlug, "npcs.json");
+        Path target = new File(dir, filename).toPath();
+        Path temp = new File(dir, filename + ".tmp").toPath();
+        Files.write(temp, body);
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+    
+    /**
+     * Publica el documento para la API HTTP local del panel (clave "{mundo}/{archivo sin .json}")
+     */
+    private void publish(String worldSlug, String filename, byte[] body) {
+        if (plugin.getAdminAPI() != null) {
+            plugin.getAdminAPI().getSnapshots().publish(
+                worldSlug + "/" + filename.substring(0, filename.length() - ".json".length()), body);
+        }
+    }
+    
+    private static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+    
+    /**
+     * Documento que se escribe con un JsonWriter
+     */
+    @FunctionalInterface
+    private interface ExportDocument {
+        void write(JsonWriter writer) throws IOException;
+    }
+    
+    /**
+     * Documento con marcas de tiempo que no cuentan para detectar cambios
+     */
+    @FunctionalInterface
+    private interface TimestampedDocument {
+        ExportDocument withTimestamps(boolean includeTimestamps);
+    }
+    
+    /**
+     * Datos de un jugador conectado copiados en el hilo principal
+     */
+    private record PlayerRow(String uuid, String name, String world, int level, String className,
+                             boolean hasClass, int activeQuests) {
+        JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("name", name);
+            json.addProperty("uuid", uuid);
+            json.addProperty("world", world);
+            json.addProperty("level", level);
+            json.addProperty("class", className);
+            json.addProperty("activeQuests", activeQuests);
+            return json;
+        }
+    }
+    
+    /**
+     * Cambio incluido en data/changes.json, con los datos actuales del elemento (null si se eliminó)
+     */
+    private record DeltaEntry(long version, ChangeFeed.Kind kind, String id, boolean removed, JsonObject data) {
+    }
+    
+    /**
+     * Instantánea inmutable compartida por todos los mundos
+     */
+    private record ExportSnapshot(long capturedAt, List<String> worlds, List<PlayerRow> players,
+                                  List<JsonObject> quests, List<JsonObject> npcs, int npcsSpawned,
+                                  long version, long baseVersion, boolean full,
+                                  boolean questsChanged, boolean npcsChanged, List<DeltaEntry> delta) {
     }
     
     /**
@@ -213,7 +594,12 @@ public class DataManager {
      */
     public void saveAllData() {
         plugin.getLogger().info("Guardando datos de mundos RPG...");
-        exportDataForWebPanel();
+        // Al cerrar no hay tareas asíncronas: instantánea y escritura en este hilo
+        try {
+            writeSnapshot(captureSnapshot());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "Error al guardar datos de mundos RPG", e);
+        }
     }
     
     /**
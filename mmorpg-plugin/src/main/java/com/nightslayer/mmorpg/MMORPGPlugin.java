@@ -1,10 +1,12 @@
 package com.nightslayer.mmorpg;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.api.ChangeFeed;
 import com.nightslayer.mmorpg.api.RPGAdminAPI;
 import com.nightslayer.mmorpg.database.DatabaseManager;
 import com.nightslayer.mmorpg.bestiary.BestiaryManager;
+import com.nightslayer.mmorpg.cache.PlayerCacheRegistry;
 import com.nightslayer.mmorpg.achievements.AchievementManager;
 import com.nightslayer.mmorpg.classes.ClassManager;
 import com.nightslayer.mmorpg.commands.ClassCommand;
@@ -13,14 +15,18 @@ import com.nightslayer.mmorpg.crafting.CraftingManager;
 import com.nightslayer.mmorpg.enchanting.EnchantmentManager;
 import com.nightslayer.mmorpg.pets.PetManager;
 import com.nightslayer.mmorpg.economy.EconomyManager;
+import com.nightslayer.mmorpg.economy.RewardService;
 import com.nightslayer.mmorpg.economy.ShopManager;
 import com.nightslayer.mmorpg.events.EventManager;
 import com.nightslayer.mmorpg.dungeons.DungeonManager;
 import com.nightslayer.mmorpg.i18n.LanguageManager;
 import com.nightslayer.mmorpg.invasions.InvasionManager;
+import com.nightslayer.mmorpg.items.EquippedStatsCache;
 import com.nightslayer.mmorpg.items.ItemManager;
 import com.nightslayer.mmorpg.listeners.MobDeathListener;
+import com.nightslayer.mmorpg.listeners.ShopListener;
 import com.nightslayer.mmorpg.listeners.SpawnListener;
+import com.nightslayer.mmorpg.managers.ConfigReloader;
 import com.nightslayer.mmorpg.mobs.MobManager;
 import com.nightslayer.mmorpg.ranks.RankManager;
 import com.nightslayer.mmorpg.respawn.RespawnManager;
@@ -29,10 +35,18 @@ import com.nightslayer.mmorpg.npcs.NPCManager;
 import com.nightslayer.mmorpg.quests.QuestManager;
 import com.nightslayer.mmorpg.squads.SquadManager;
 import com.nightslayer.mmorpg.database.WorldDatabaseManager;
+import com.nightslayer.mmorpg.serialization.ConfigSnapshotCache;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
+import com.nightslayer.mmorpg.StartupGraph.Lane;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.World;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 
 public class MMORPGPlugin extends JavaPlugin {
@@ -43,10 +57,12 @@ public class MMORPGPlugin extends JavaPlugin {
     private DataManager dataManager;
     private PathResolver pathResolver;
     private DataInitializer dataInitializer;
+    private final Map<String, Long> worldFingerprints = new ConcurrentHashMap<>(); // mundo -> huella de metadata y spawns
     private ClassManager classManager;
     private NPCManager npcManager;
     private MobManager mobManager;
     private ItemManager itemManager;
+    private EquippedStatsCache equippedStats;
     private QuestManager questManager;
     private BestiaryManager bestiaryManager;
     private AchievementManager achievementManager;
@@ -61,9 +77,14 @@ public class MMORPGPlugin extends JavaPlugin {
     private RespawnManager respawnManager;
     private SpawnManager spawnManager;
     private EconomyManager economyManager;
+    private RewardService rewardService;
     private ShopManager shopManager;
     private RPGAdminAPI adminAPI;
     private LanguageManager languageManager;
+    private PlayerCacheRegistry playerCaches;
+    private ChangeFeed changeFeed;
+    private ConfigSnapshotCache configCache;
+    private ConfigReloader configReloader;
     private DatabaseManager databaseManager;
     private WorldDatabaseManager worldDatabaseManager;
     
@@ -72,19 +93,24 @@ public class MMORPGPlugin extends JavaPlugin {
         instance = this;
         
         // Inicializar Gson
-        gson = new GsonBuilder()
-                .setPrettyPrinting()
-                .create();
+        gson = GsonRegistry.pretty();
         
         // Guardar configuración por defecto si no existe
         saveDefaultConfig();
         
+        // Copias binarias de los JSON de configuración ya analizados
+        configCache = new ConfigSnapshotCache(new File(getDataFolder(), "cache/config"), getLogger(),
+            getConfig().getBoolean("config-cache.enabled", true));
+        
         // Crear directorios de datos
         File dataDir = new File(getDataFolder(), "data");
         if (!dataDir.exists()) {
             dataDir.mkdirs();
         }
         
+        // Registro de cambios para el panel web (antes que los gestores que lo alimentan)
+        changeFeed = new ChangeFeed(getConfig().getInt("web-panel.changelog-size", 4096));
+        
         // Inicializar gestores
         languageManager = new LanguageManager(this);
         databaseManager = new DatabaseManager(this);
@@ -100,35 +126,71 @@ public class MMORPGPlugin extends JavaPlugin {
         
         // Inicializar resolvedores de rutas
         pathResolver = new PathResolver(this);
+        pathResolver.startWatching();
         dataInitializer = new DataInitializer(this, pathResolver);
         
         // Inicializar datos universales (items, mobs globales, etc.)
         getLogger().info("Inicializando archivos de configuración RPG globales...");
         dataInitializer.initializeWorldData("_universal_");
         
-        economyManager = new EconomyManager(this);
-        classManager = new ClassManager(this);
-        shopManager = new ShopManager(this, economyManager);
-        npcManager = new NPCManager(this);
-        mobManager = new MobManager(this);
-        itemManager = new ItemManager(this);
-        bestiaryManager = new BestiaryManager(this);
-        achievementManager = new AchievementManager(this);
-        rankManager = new RankManager(this, achievementManager);
-        invasionManager = new InvasionManager(this);
-        eventManager = new EventManager(this, mobManager, economyManager);
-        dungeonManager = new DungeonManager(this, mobManager, economyManager);
-        squadManager = new SquadManager(this);
-        craftingManager = new CraftingManager(this);
-        enchantmentManager = new EnchantmentManager(this);
-        petManager = new PetManager(this);
-        questManager = new QuestManager(this, classManager);
-        respawnManager = new RespawnManager(this, mobManager);
-        spawnManager = new SpawnManager(this);
+        // Gestores: los pasos independientes se inicializan a la vez (ver StartupGraph)
+        StartupGraph startup = new StartupGraph(getLogger(), getConfig().getInt("startup.io-threads", 4));
+        startup.add("economía", Lane.DATABASE, () -> economyManager = new EconomyManager(this, databaseManager));
+        startup.add("recompensas", Lane.MAIN, () -> rewardService = new RewardService(this, economyManager), "economía");
+        startup.add("clases", Lane.IO, () -> classManager = new ClassManager(this));
+        startup.add("tiendas", Lane.MAIN, () -> shopManager = new ShopManager(this, economyManager), "economía");
+        startup.add("npcs", Lane.DATABASE, () -> npcManager = new NPCManager(this));
+        startup.add("mobs", Lane.DATABASE, () -> mobManager = new MobManager(this));
+        startup.add("items", Lane.IO, () -> itemManager = new ItemManager(this));
+        startup.add("bestiario", Lane.DATABASE, () -> bestiaryManager = new BestiaryManager(this));
+        startup.add("logros", Lane.DATABASE, () -> achievementManager = new AchievementManager(this));
+        startup.add("rangos", Lane.DATABASE, () -> rankManager = new RankManager(this, achievementManager), "logros");
+        startup.add("invasiones", Lane.DATABASE, () -> invasionManager = new InvasionManager(this));
+        startup.add("eventos", Lane.DATABASE, () -> eventManager = new EventManager(this, mobManager, economyManager), "mobs", "economía");
+        startup.add("mazmorras", Lane.DATABASE, () -> dungeonManager = new DungeonManager(this, mobManager, economyManager), "mobs", "economía");
+        startup.add("escuadras", Lane.DATABASE, () -> squadManager = new SquadManager(this), "economía");
+        startup.add("crafteo", Lane.DATABASE, () -> craftingManager = new CraftingManager(this));
+        startup.add("encantamientos", Lane.DATABASE, () -> enchantmentManager = new EnchantmentManager(this));
+        startup.add("mascotas", Lane.IO, () -> petManager = new PetManager(this));
+        startup.add("quests", Lane.IO, () -> questManager = new QuestManager(this, classManager), "clases");
+        startup.add("respawn", Lane.IO, () -> respawnManager = new RespawnManager(this, mobManager), "mobs");
+        startup.add("spawns", Lane.IO, () -> spawnManager = new SpawnManager(this));
+        // Detectar mundos RPG: lectura en paralelo fuera del hilo principal y registro en el principal
+        AtomicReference<List<DetectedWorld>> detectedWorlds = new AtomicReference<>(List.of());
+        startup.add("mundos-escaneo", Lane.IO, () -> detectedWorlds.set(scanRPGWorlds()), "spawns");
+        startup.add("mundos", Lane.MAIN, () -> applyRPGWorlds(detectedWorlds.get()), "mundos-escaneo");
+        startup.run();
+        startup.report().forEach(getLogger()::info);
+        getLogger().info("Caché de configuración: " + configCache.getHits() + " aciertos, " + configCache.getMisses() + " fallos");
+        
         adminAPI = new RPGAdminAPI(this);
         
-        // Detectar mundos RPG
-        detectRPGWorlds();
+        // Recarga en caliente de las configuraciones JSON
+        configReloader = new ConfigReloader(this);
+        configReloader.register(itemManager);
+        configReloader.register(respawnManager);
+        configReloader.register(eventManager);
+        configReloader.register(dungeonManager);
+        configReloader.register(achievementManager);
+        if (getConfig().getBoolean("config-reload.watch", true)) {
+            configReloader.start();
+        }
+        
+        // Cachés por jugador: se guardan y descartan al desconectarse
+        playerCaches = new PlayerCacheRegistry(this);
+        playerCaches.register(classManager.getPlayerCache());
+        playerCaches.register(questManager.getPlayerCache());
+        playerCaches.register(achievementManager.getPlayerCache());
+        playerCaches.register(bestiaryManager.getPlayerCache());
+        playerCaches.register(petManager.getPlayerCache());
+        playerCaches.register(rankManager.getPlayerCache());
+        playerCaches.register(eventManager.getPlayerCache());
+        playerCaches.register(languageManager.getPlayerCache());
+        
+        // Atributos del equipo de cada jugador, recalculados al cambiar su inventario
+        equippedStats = new EquippedStatsCache(this, itemManager);
+        playerCaches.register(equippedStats.getPlayerCache());
+        getServer().getPluginManager().registerEvents(equippedStats, this);
         
         // Registrar comandos
         getCommand("rpg").setExecutor(new RPGCommand(this));
@@ -144,11 +206,17 @@ public class MMORPGPlugin extends JavaPlugin {
         // Registrar listener de spawns
         getServer().getPluginManager().registerEvents(new SpawnListener(this, spawnManager), this);
         
+        // Registrar listener de las tiendas
+        getServer().getPluginManager().registerEvents(new ShopListener(shopManager), this);
+        
+        // Registrar expulsión de cachés al desconectarse
+        getServer().getPluginManager().registerEvents(playerCaches, this);
+        
         // Iniciar sincronización con panel web
         startWebPanelSync();
         
-        // Spawnear NPCs
-        npcManager.spawnAll();
+        // Spawnear NPCs de los chunks ya cargados; el resto aparece al cargarse su chunk
+        npcManager.spawnLoaded();
         
         getLogger().info("MMORPGPlugin habilitado correctamente!");
         if (getConfig().getBoolean("plugin.debug", false)) {
@@ -158,14 +226,29 @@ public class MMORPGPlugin extends JavaPlugin {
     
     @Override
     public void onDisable() {
-        // Cerrar base de datos universal
-        if (databaseManager != null) {
-            databaseManager.close();
+        if (configReloader != null) {
+            configReloader.shutdown();
         }
         
-        // Cerrar base de datos del mundo
-        if (worldDatabaseManager != null) {
-            worldDatabaseManager.closeAll();
+        if (pathResolver != null) {
+            pathResolver.shutdown();
+        }
+        
+        if (adminAPI != null) {
+            adminAPI.shutdown();
+        }
+        
+        if (playerCaches != null) {
+            playerCaches.shutdown();
+        }
+        
+        // Pagar recompensas pendientes y confirmar el diario de economía antes de cerrar la BD
+        if (rewardService != null) {
+            rewardService.shutdown();
+        }
+        
+        if (economyManager != null) {
+            economyManager.shutdown();
         }
         
         // Guardar datos antes de desactivar
@@ -233,51 +316,119 @@ public class MMORPGPlugin extends JavaPlugin {
             enchantmentManager.shutdown();
         }
         
+        // Cerrar las bases de datos al final: los saveAll/shutdown anteriores aún escriben en ellas
+        if (databaseManager != null) {
+            databaseManager.close();
+        }
+        
+        if (worldDatabaseManager != null) {
+            worldDatabaseManager.closeAll();
+        }
+        
         getLogger().info("MMORPGPlugin deshabilitado correctamente!");
     }
     
     /**
-     * Detecta qué mundos tienen el modo RPG activado
+     * Detecta qué mundos tienen el modo RPG activado.
+     * Recorre el directorio de mundos en paralelo: lee la metadata, inicializa los archivos de datos
+     * y lee los spawns de cada mundo RPG. Los mundos cuya metadata y spawns no cambiaron desde la
+     * última detección se omiten. No toca entidades, así que se puede llamar fuera del hilo principal.
      */
-    private void detectRPGWorlds() {
+    private List<DetectedWorld> scanRPGWorlds() {
         String worldsBasePath = getConfig().getString("worlds.base-path", "/server/worlds");
         File worldsDir = new File(worldsBasePath);
         
         if (!worldsDir.exists()) {
             getLogger().warning("Directorio de mundos no encontrado: " + worldsBasePath);
-            return;
+            return List.of();
         }
         
-        int rpgWorldsCount = 0;
-        
         // Iterar sobre los subdirectorios (mundos)
         File[] worldFolders = worldsDir.listFiles(File::isDirectory);
-        if (worldFolders != null) {
-            for (File worldFolder : worldFolders) {
-                File metadataFile = new File(worldFolder, "metadata.json");
-                
-                if (metadataFile.exists()) {
-                    WorldMetadata metadata = worldRPGManager.loadWorldMetadata(worldFolder.getName());
-                    
-                    if (metadata != null && metadata.isRPG()) {
-                        worldRPGManager.registerRPGWorld(worldFolder.getName(), metadata);
-                        rpgWorldsCount++;
-                        
-                        // Inicializar archivos de datos del mundo RPG
-                        dataInitializer.initializeWorldData(worldFolder.getName());
-                        
-                        // Cargar spawns del mundo
-                        spawnManager.loadWorldSpawns(worldFolder.getName());
-                        
-                        if (getConfig().getBoolean("plugin.debug", false)) {
-                            getLogger().info("Mundo RPG detectado: " + worldFolder.getName());
-                        }
-                    }
-                }
+        if (worldFolders == null) {
+            return List.of();
+        }
+        
+        // Resolver de antemano las rutas de datos de todos los mundos
+        List<String> worldNames = new ArrayList<>(worldFolders.length);
+        for (File worldFolder : worldFolders) {
+            worldNames.add(worldFolder.getName());
+        }
+        pathResolver.prewarm(worldNames);
+        
+        List<DetectedWorld> detected = new ArrayList<>();
+        for (DetectedWorld world : worldNames.parallelStream().map(this::scanRPGWorld).toList()) {
+            if (world != null) {
+                detected.add(world);
+            }
+        }
+        return detected;
+    }
+    
+    /**
+     * La huella del mundo solo se guarda si se procesó entero; si algo falla (p. ej. la metadata
+     * está a medio escribir) se vuelve a intentar en la siguiente detección.
+     * @return el mundo si es RPG y cambió desde la última detección, o null
+     */
+    private DetectedWorld scanRPGWorld(String worldName) {
+        File metadataFile = new File(getConfig().getString("worlds.base-path", "/server/worlds"), worldName + "/metadata.json");
+        File spawnsFile = worldRPGManager.getPathResolver().getLocalFile(worldName, "spawns.json");
+        long fingerprint = fingerprint(metadataFile) * 31L + fingerprint(spawnsFile);
+        
+        Long previous = worldFingerprints.get(worldName);
+        if (previous != null && previous == fingerprint) {
+            return null;
+        }
+        if (!metadataFile.exists()) {
+            worldFingerprints.put(worldName, fingerprint);
+            return null;
+        }
+        
+        try {
+            WorldMetadata metadata = worldRPGManager.loadWorldMetadata(worldName);
+            if (metadata == null) {
+                return null; // No se pudo leer; ya se registró el error
+            }
+            if (!metadata.isRPG()) {
+                worldFingerprints.put(worldName, fingerprint);
+                return null;
+            }
+            
+            // Inicializar archivos de datos del mundo RPG
+            if (!dataInitializer.initializeLocalData(worldName)) {
+                return null;
+            }
+            
+            JsonObject spawns = spawnManager.readWorldSpawns(worldName);
+            if (spawns == null && spawnsFile.exists()) {
+                return null; // Spawns ilegibles; ya se registró el error
+            }
+            
+            worldFingerprints.put(worldName, fingerprint);
+            return new DetectedWorld(worldName, metadata, spawns);
+        } catch (RuntimeException e) {
+            getLogger().log(Level.WARNING, "Error detectando mundo " + worldName + ", se reintentará en la próxima recarga", e);
+            return null;
+        }
+    }
+    
+    /**
+     * Registra los mundos detectados y pone en cola sus spawns (hilo principal)
+     */
+    private void applyRPGWorlds(List<DetectedWorld> detected) {
+        for (DetectedWorld world : detected) {
+            worldRPGManager.registerRPGWorld(world.name(), world.metadata());
+            
+            // Cargar spawns del mundo
+            spawnManager.loadWorldSpawns(world.name(), world.spawns());
+            
+            if (getConfig().getBoolean("plugin.debug", false)) {
+                getLogger().info("Mundo RPG detectado: " + world.name());
             }
         }
         
-        getLogger().info("Detectados " + rpgWorldsCount + " mundos con modo RPG activado");
+        int rpgWorldsCount = worldRPGManager.getAllRPGWorlds().size();
+        getLogger().info("Detectados " + rpgWorldsCount + " mundos con modo RPG activado (" + detected.size() + " actualizados)");
         
         // Iniciar tarea de respawn de spawns
         if (rpgWorldsCount > 0) {
@@ -285,13 +436,31 @@ public class MMORPGPlugin extends JavaPlugin {
         }
     }
     
+    private static long fingerprint(File file) {
+        return file.exists() ? file.lastModified() * 31L + file.length() : -1L;
+    }
+    
     /**
-     * Recarga la detección de mundos RPG (para uso desde el panel web)
+     * Recarga la detección de mundos RPG (para uso desde el panel web).
+     * La lectura se hace en segundo plano y solo se reinicializan los mundos que cambiaron.
      */
     public void reloadRPGWorlds() {
         getLogger().info("Recargando mundos RPG...");
-        detectRPGWorlds();
-        getLogger().info("Mundos RPG recargados correctamente.");
+        getServer().getScheduler().runTaskAsynchronously(this, () -> {
+            // Al arrancar ya se crean en onEnable; aquí se recrean si se borraron
+            dataInitializer.initializeWorldData("_universal_");
+            List<DetectedWorld> detected = scanRPGWorlds();
+            getServer().getScheduler().runTask(this, () -> {
+                applyRPGWorlds(detected);
+                getLogger().info("Mundos RPG recargados correctamente.");
+            });
+        });
+    }
+    
+    /**
+     * Mundo RPG leído fuera del hilo principal, pendiente de registrar
+     */
+    private record DetectedWorld(String name, WorldMetadata metadata, JsonObject spawns) {
     }
     
     /**
@@ -304,23 +473,17 @@ public class MMORPGPlugin extends JavaPlugin {
         
         int syncInterval = getConfig().getInt("web-panel.sync-interval", 30) * 20; // Convertir a ticks
         
-        getServer().getScheduler().runTaskTimerAsynchronously(this, () -> {
+        // Instantánea en el hilo principal; la serialización y escritura van en segundo plano
+        getServer().getScheduler().runTaskTimer(this, () -> {
             try {
                 dataManager.exportDataForWebPanel();
-                adminAPI.exportStatus();
             } catch (Exception e) {
                 getLogger().log(Level.WARNING, "Error al sincronizar con panel web", e);
             }
         }, syncInterval, syncInterval);
         
-        // Procesar comandos API cada 5 segundos
-        getServer().getScheduler().runTaskTimer(this, () -> {
-            try {
-                adminAPI.processCommands();
-            } catch (Exception e) {
-                getLogger().log(Level.WARNING, "Error procesando comandos API", e);
-            }
-        }, 100L, 100L);
+        // Comandos del panel web: bandeja vigilada en segundo plano
+        adminAPI.start();
     }
     
     /**
@@ -374,6 +537,10 @@ public class MMORPGPlugin extends JavaPlugin {
         return itemManager;
     }
     
+    public EquippedStatsCache getEquippedStats() {
+        return equippedStats;
+    }
+    
     public QuestManager getQuestManager() {
         return questManager;
     }
@@ -382,6 +549,10 @@ public class MMORPGPlugin extends JavaPlugin {
         return economyManager;
     }
     
+    public RewardService getRewardService() {
+        return rewardService;
+    }
+    
     public ShopManager getShopManager() {
         return shopManager;
     }
@@ -390,6 +561,18 @@ public class MMORPGPlugin extends JavaPlugin {
         return adminAPI;
     }
     
+    public ChangeFeed getChangeFeed() {
+        return changeFeed;
+    }
+    
+    public ConfigSnapshotCache getConfigCache() {
+        return configCache;
+    }
+    
+    public ConfigReloader getConfigReloader() {
+        return configReloader;
+    }
+    
     public LanguageManager getLanguageManager() {
         return languageManager;
     }
@@ -442,6 +625,10 @@ public class MMORPGPlugin extends JavaPlugin {
         return spawnManager;
     }
 
+    public PlayerCacheRegistry getPlayerCaches() {
+        return playerCaches;
+    }
+
     public DatabaseManager getDatabase() {
         return databaseManager;
     }
@@ -1,14 +1,21 @@
 package com.nightslayer.mmorpg;
 
 import org.bukkit.World;
-import org.bukkit.configuration.file.FileConfiguration;
-import org.bukkit.configuration.file.YamlConfiguration;
 
 import java.io.File;
-// import java.io.IOException;
-// import java.nio.file.Files;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
 // import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -23,12 +30,20 @@ import java.util.logging.Level;
  * 
  * - EXCLUSIVE-LOCAL: players, status, invasions, kills, respawn, squads
  *   Ubicación: plugins/MMORPGPlugin/data/{level-name}/ (solo local)
+ * 
+ * Las rutas resueltas se guardan en caché por (mundo, tipo, alcance). Un hilo vigila el
+ * directorio de datos y los de cada mundo y vacía la caché cuando se crea o borra un archivo,
+ * ya que eso cambia la elección entre ruta local y universal.
  */
 public class PathResolver {
     
     private final MMORPGPlugin plugin;
     private final File pluginDataDir;
     private final Map<String, String> levelNameCache; // Cache de level-name por mundo
+    private final Map<ResolutionKey, File> resolvedPaths; // Cache de rutas ya resueltas
+    private final Set<Path> watchedDirs;
+    private volatile WatchService watchService;
+    private Thread watcher;
     
     // Conjuntos de clasificación
     private static final Set<String> UNIVERSAL_DATA = Set.of(
@@ -47,10 +62,104 @@ public class PathResolver {
     public PathResolver(MMORPGPlugin plugin) {
         this.plugin = plugin;
         this.pluginDataDir = new File(plugin.getDataFolder(), "data");
-        this.levelNameCache = new HashMap<>();
+        this.levelNameCache = new ConcurrentHashMap<>();
+        this.resolvedPaths = new ConcurrentHashMap<>();
+        this.watchedDirs = ConcurrentHashMap.newKeySet();
         ensureDataDirExists();
     }
     
+    /**
+     * Inicia la vigilancia de los directorios de datos para invalidar la caché de rutas
+     */
+    public void startWatching() {
+        if (watcher != null) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "No se pueden vigilar los directorios de datos; la caché de rutas queda desactivada", e);
+            return;
+        }
+        watch(pluginDataDir);
+        for (String levelName : levelNameCache.values()) {
+            watch(new File(pluginDataDir, levelName));
+        }
+        
+        watcher = new Thread(this::watchLoop, "MMORPG-PathWatch");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+    
+    public void shutdown() {
+        WatchService service = watchService;
+        watchService = null;
+        if (service != null) {
+            try {
+                service.close();
+            } catch (IOException ignored) {
+                // Se está cerrando de todos modos
+            }
+        }
+        if (watcher != null) {
+            watcher.interrupt();
+            watcher = null;
+        }
+        resolvedPaths.clear();
+    }
+    
+    private void watch(File dir) {
+        WatchService service = watchService;
+        if (service == null || !dir.isDirectory() || !watchedDirs.add(dir.toPath())) {
+            return;
+        }
+        try {
+            dir.toPath().register(service, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_DELETE, StandardWatchEventKinds.OVERFLOW);
+        } catch (IOException | ClosedWatchServiceException e) {
+            watchedDirs.remove(dir.toPath());
+        }
+        // Lo que se resolvió antes de vigilar el directorio puede estar desactualizado
+        resolvedPaths.clear();
+    }
+    
+    private void watchLoop() {
+        while (true) {
+            WatchService service = watchService;
+            if (service == null) {
+                return;
+            }
+            try {
+                WatchKey key = service.take();
+                key.pollEvents();
+                if (!key.reset()) {
+                    watchedDirs.remove((Path) key.watchable());
+                }
+                resolvedPaths.clear();
+                // Directorios de mundo creados después de resolver su level-name
+                for (String levelName : levelNameCache.values()) {
+                    watch(new File(pluginDataDir, levelName));
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Resuelve por adelantado, en paralelo, las rutas de datos de varios mundos
+     */
+    public void prewarm(Collection<String> worldSlugs) {
+        worldSlugs.parallelStream().forEach(worldSlug -> {
+            for (String dataType : HYBRID_DATA) {
+                resolvePath(worldSlug, dataType, "local");
+            }
+            for (String dataType : EXCLUSIVE_LOCAL_DATA) {
+                resolvePath(worldSlug, dataType, "exclusive-local");
+            }
+        });
+    }
+    
     /**
      * Asegura que el directorio de datos existe
      */
@@ -66,14 +175,23 @@ public class PathResolver {
      * Usa caché para evitar lecturas repetidas
      */
     private String getLevelNameForWorld(String worldSlug) {
-        // Buscar en caché primero
-        if (levelNameCache.containsKey(worldSlug)) {
-            return levelNameCache.get(worldSlug);
+        String levelName = levelNameCache.get(worldSlug);
+        if (levelName != null) {
+            return levelName;
         }
         
+        levelName = readLevelName(worldSlug);
+        String previous = levelNameCache.putIfAbsent(worldSlug, levelName);
+        if (previous != null) {
+            return previous;
+        }
+        watch(new File(pluginDataDir, levelName));
+        return levelName;
+    }
+    
+    private String readLevelName(String worldSlug) {
         World world = plugin.getServer().getWorld(worldSlug);
         if (world == null) {
-            levelNameCache.put(worldSlug, worldSlug);
             return worldSlug;
         }
         
@@ -82,14 +200,13 @@ public class PathResolver {
         File serverPropsFile = new File(worldDir, "server.properties");
         
         if (serverPropsFile.exists()) {
-            try {
-                FileConfiguration props = YamlConfiguration.loadConfiguration(serverPropsFile);
-                String levelName = props.getString("level-name");
+            try (Reader reader = Files.newBufferedReader(serverPropsFile.toPath(), StandardCharsets.ISO_8859_1)) {
+                Properties props = new Properties();
+                props.load(reader);
+                String levelName = props.getProperty("level-name");
                 if (levelName != null && !levelName.isEmpty()) {
                     // Limpiar ruta (p.ej. "worlds/world" -> "world")
-                    levelName = new File(levelName).getName();
-                    levelNameCache.put(worldSlug, levelName);
-                    return levelName;
+                    return new File(levelName).getName();
                 }
             } catch (Exception e) {
                 plugin.getLogger().log(Level.WARNING, 
@@ -98,7 +215,6 @@ public class PathResolver {
         }
         
         // Fallback al slug del mundo
-        levelNameCache.put(worldSlug, worldSlug);
         return worldSlug;
     }
     
@@ -117,6 +233,17 @@ public class PathResolver {
             scope = "local";
         }
         
+        // Sin vigilancia no se puede saber cuándo cambia la existencia de los archivos
+        if (watchService == null) {
+            return computePath(worldSlug, dataType, scope);
+        }
+        getLevelNameForWorld(worldSlug); // Fuera del cálculo: puede empezar a vigilar un directorio
+        String validScope = scope;
+        return resolvedPaths.computeIfAbsent(new ResolutionKey(worldSlug, dataType, scope),
+            key -> computePath(worldSlug, dataType, validScope));
+    }
+    
+    private File computePath(String worldSlug, String dataType, String scope) {
         String filename = dataType.endsWith(".json") ? dataType : dataType + ".json";
         
         // UNIVERSAL: siempre en raíz
@@ -216,10 +343,11 @@ public class PathResolver {
     }
     
     /**
-     * Limpia la caché de level-names (útil después de recargar plugin)
+     * Limpia la caché de level-names y de rutas (útil después de recargar plugin)
      */
     public void clearCache() {
         levelNameCache.clear();
+        resolvedPaths.clear();
     }
     
     /**
@@ -249,4 +377,7 @@ public class PathResolver {
         
         return sb.toString();
     }
+    
+    private record ResolutionKey(String worldSlug, String dataType, String scope) {
+    }
 }
@@ -1,5 +1,6 @@
 package com.nightslayer.mmorpg;
 
+import com.nightslayer.mmorpg.cache.PlayerCache;
 import com.nightslayer.mmorpg.commands.MobCommand;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -53,13 +54,39 @@ public class RPGCommand implements CommandExecutor {
             case "info":
                 showWorldInfo(player, worldName);
                 break;
+            case "shop":
+                // /rpg shop [tienda]
+                plugin.getShopManager().openShop(player, args.length > 1 ? args[1].toLowerCase() : "general");
+                break;
+            case "sell":
+                // /rpg sell <tienda>: vende todo lo que la tienda compra
+                if (args.length < 2) {
+                    player.sendMessage("§cUso: /rpg sell <tienda>");
+                    return true;
+                }
+                plugin.getShopManager().sellAll(player, args[1].toLowerCase());
+                break;
             case "reload":
                 if (!player.hasPermission("rpg.admin.reload")) {
                     player.sendMessage("§cNo tienes permiso para usar este comando.");
                     return true;
                 }
                 plugin.reloadRPGWorlds();
+                plugin.getConfigReloader().reloadAll();
+                plugin.getLanguageManager().reload();
                 player.sendMessage("§a✓ Mundos RPG recargados correctamente.");
+                player.sendMessage("§7Las configuraciones se recargan en segundo plano; revisa la consola si alguna no es válida.");
+                break;
+            case "debug":
+                if (!player.hasPermission("rpg.admin.debug")) {
+                    player.sendMessage("§cNo tienes permiso para usar este comando.");
+                    return true;
+                }
+                if (args.length > 1 && args[1].equalsIgnoreCase("memory")) {
+                    showMemoryReport(player);
+                } else {
+                    player.sendMessage("§cUso: /rpg debug memory");
+                }
                 break;
             default:
                 player.sendMessage("§cComando desconocido. Usa /rpg help");
@@ -73,7 +100,10 @@ public class RPGCommand implements CommandExecutor {
         player.sendMessage("§e/rpg help §7- Muestra esta ayuda");
         player.sendMessage("§e/rpg status §7- Muestra tu estado RPG");
         player.sendMessage("§e/rpg info §7- Información del mundo RPG actual");
+        player.sendMessage("§e/rpg shop [tienda] §7- Abre una tienda (general, weapons, armor, potions)");
+        player.sendMessage("§e/rpg sell <tienda> §7- Vende todo lo que compra una tienda");
         player.sendMessage("§e/rpg reload §7- Recargar mundos RPG §c(Admin)");
+        player.sendMessage("§e/rpg debug memory §7- Uso de memoria de cachés por jugador §c(Admin)");
         player.sendMessage("§7Más comandos disponibles próximamente...");
     }
     
@@ -85,6 +115,35 @@ public class RPGCommand implements CommandExecutor {
         player.sendMessage("§eQuests activas: §f0 §7(Sistema de quests próximamente)");
     }
     
+    private void showMemoryReport(Player player) {
+        if (plugin.getPlayerCaches() == null) {
+            player.sendMessage("§cLas cachés de jugadores no están inicializadas.");
+            return;
+        }
+        
+        player.sendMessage("§6§l=== Memoria de Cachés por Jugador ===");
+        int totalEntries = 0;
+        long totalBytes = 0L;
+        for (PlayerCache<?> cache : plugin.getPlayerCaches().getCaches()) {
+            int entries = cache.size();
+            long bytes = cache.estimatedBytes();
+            totalEntries += entries;
+            totalBytes += bytes;
+            player.sendMessage("§e" + cache.getName() + ": §f" + entries + " entradas §7(~" + formatBytes(bytes) + ")");
+        }
+        player.sendMessage("§eTotal: §f" + totalEntries + " entradas §7(~" + formatBytes(totalBytes) + ")");
+    }
+    
+    private String formatBytes(long bytes) {
+        if (bytes < 1024) {
+            return bytes + " B";
+        }
+        if (bytes < 1024 * 1024) {
+            return String.format("%.1f KB", bytes / 1024.0);
+        }
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+    
     private void showWorldInfo(Player player, String worldName) {
         WorldMetadata metadata = plugin.getWorldRPGManager().getWorldMetadata(worldName);
         
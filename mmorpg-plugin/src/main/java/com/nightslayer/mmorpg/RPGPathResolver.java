@@ -2,6 +2,8 @@ package com.nightslayer.mmorpg;
 
 import org.bukkit.World;
 import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Resuelve rutas para archivos RPG según su scope (local o universal)
@@ -21,17 +23,26 @@ import java.io.File;
  *         ├── dungeons.json
  *         ├── players.json
  *         └── status.json
+ * 
+ * Las rutas solo dependen del nombre de archivo (los mundos locales siempre apuntan a worlds/active),
+ * así que se construyen una vez y se reutilizan.
  */
 public class RPGPathResolver {
     
     private final MMORPGPlugin plugin;
     private final File universalDataDir;
     private final String worldsBasePath;
+    private final File activeWorldDataDir;
+    private final Map<String, File> localFiles; // nombre de archivo -> ruta en worlds/active/data
+    private final Map<String, File> universalFiles; // nombre de archivo -> ruta en data/
     
     public RPGPathResolver(MMORPGPlugin plugin) {
         this.plugin = plugin;
         this.universalDataDir = new File(plugin.getDataFolder(), "data");
         this.worldsBasePath = plugin.getConfig().getString("worlds.base-path", "/server/worlds");
+        this.activeWorldDataDir = new File(worldsBasePath + "/active/data");
+        this.localFiles = new ConcurrentHashMap<>();
+        this.universalFiles = new ConcurrentHashMap<>();
         
         // Crear directorio de datos universales si no existe
         if (!universalDataDir.exists()) {
@@ -47,7 +58,7 @@ public class RPGPathResolver {
      * @return File apuntando a worlds/active/data/
      */
     public File getWorldDataDir(String worldName) {
-        return new File(worldsBasePath + "/active/data");
+        return activeWorldDataDir;
     }
     
     /**
@@ -74,8 +85,7 @@ public class RPGPathResolver {
      * @return File apuntando a worlds/{worldName}/data/{filename}
      */
     public File getLocalFile(String worldName, String filename) {
-        File worldDataDir = getWorldDataDir(worldName);
-        return new File(worldDataDir, filename);
+        return localFiles.computeIfAbsent(filename, name -> new File(activeWorldDataDir, name));
     }
     
     /**
@@ -84,7 +94,7 @@ public class RPGPathResolver {
      * @return File apuntando a plugins/MMORPGPlugin/data/{filename}
      */
     public File getUniversalFile(String filename) {
-        return new File(universalDataDir, filename);
+        return universalFiles.computeIfAbsent(filename, name -> new File(universalDataDir, name));
     }
     
     /**
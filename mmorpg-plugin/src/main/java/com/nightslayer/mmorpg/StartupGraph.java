@@ -0,0 +1,272 @@
+package com.nightslayer.mmorpg;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Logger;
+
+/**
+ * Grafo de inicialización de gestores.
+ * Cada paso declara de qué pasos depende y en qué carril se ejecuta; los pasos independientes
+ * avanzan a la vez y al terminar se registra la duración de cada uno y la ruta crítica.
+ *
+ * <ul>
+ *   <li>{@link Lane#MAIN}: hilo principal del servidor, para pasos que usan la API de Bukkit</li>
+ *   <li>{@link Lane#DATABASE}: un único hilo en orden, porque los gestores comparten la conexión SQLite</li>
+ *   <li>{@link Lane#IO}: hilos en paralelo para pasos que solo leen o escriben archivos</li>
+ * </ul>
+ * Programar tareas con el BukkitScheduler es seguro desde cualquier hilo, así que un paso que
+ * solo arranca tareas periódicas no necesita el carril principal.
+ */
+public class StartupGraph {
+    /**
+     * Dónde se ejecuta un paso
+     */
+    public enum Lane {
+        MAIN, DATABASE, IO
+    }
+
+    private final Logger logger;
+    private final int ioThreads;
+    private final Map<String, Step> steps;
+    private long startedAt;
+    private long finishedAt;
+
+    /**
+     * @param ioThreads hilos para el carril IO; con 0 todos los pasos se ejecutan en el hilo principal
+     */
+    public StartupGraph(Logger logger, int ioThreads) {
+        this.logger = logger;
+        this.ioThreads = ioThreads;
+        this.steps = new LinkedHashMap<>();
+    }
+
+    /**
+     * Añade un paso. Las dependencias deben haberse añadido antes.
+     */
+    public void add(String name, Lane lane, Runnable action, String... dependencies) {
+        if (steps.containsKey(name)) {
+            throw new IllegalArgumentException("Paso de arranque duplicado: " + name);
+        }
+        Step step = new Step(name, ioThreads > 0 ? lane : Lane.MAIN, action);
+        for (String dependency : dependencies) {
+            Step required = steps.get(dependency);
+            if (required == null) {
+                throw new IllegalArgumentException("El paso " + name + " depende de un paso desconocido: " + dependency);
+            }
+            step.dependencies.add(required);
+            required.dependents.add(step);
+        }
+        steps.put(name, step);
+    }
+
+    /**
+     * Ejecuta todos los pasos. Debe llamarse desde el hilo principal, que ejecuta los pasos
+     * de {@link Lane#MAIN} y espera al resto.
+     * @throws IllegalStateException si algún paso falla (tras esperar a los que ya estaban en marcha)
+     */
+    public void run() {
+        startedAt = System.nanoTime();
+        BlockingQueue<Step> completed = new LinkedBlockingQueue<>();
+        Deque<Step> mainReady = new ArrayDeque<>();
+        ExecutorService databaseLane = null;
+        ExecutorService ioLane = null;
+        if (ioThreads > 0) {
+            databaseLane = Executors.newSingleThreadExecutor(threadFactory("MMORPG-Init-DB"));
+            ioLane = Executors.newFixedThreadPool(ioThreads, threadFactory("MMORPG-Init-IO"));
+        }
+
+        Step failed = null;
+        int running = 0;
+        int finished = 0;
+        try {
+            for (Step step : steps.values()) {
+                step.pending = step.dependencies.size();
+            }
+            for (Step step : steps.values()) {
+                if (step.pending == 0) {
+                    running += dispatch(step, mainReady, completed, databaseLane, ioLane);
+                }
+            }
+
+            while (finished < steps.size() && (running > 0 || !mainReady.isEmpty())) {
+                Step done;
+                if (!mainReady.isEmpty() && failed == null) {
+                    done = mainReady.poll();
+                    execute(done);
+                } else if (running > 0) {
+                    done = completed.take();
+                    running--;
+                } else {
+                    break;
+                }
+                finished++;
+
+                if (done.error != null) {
+                    if (failed == null) {
+                        failed = done;
+                    }
+                    continue;
+                }
+                if (failed != null) {
+                    continue;
+                }
+                for (Step dependent : done.dependents) {
+                    if (--dependent.pending == 0) {
+                        running += dispatch(dependent, mainReady, completed, databaseLane, ioLane);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Arranque interrumpido", e);
+        } finally {
+            shutdown(databaseLane);
+            shutdown(ioLane);
+            finishedAt = System.nanoTime();
+        }
+
+        if (failed != null) {
+            throw new IllegalStateException("Error inicializando " + failed.name, failed.error);
+        }
+        if (finished < steps.size()) {
+            throw new IllegalStateException("Dependencias circulares en el arranque");
+        }
+    }
+
+    /**
+     * Resumen para el log: duración total, ruta crítica y duración de cada paso
+     */
+    public List<String> report() {
+        List<String> lines = new ArrayList<>();
+        lines.add("Arranque de gestores: " + millis(finishedAt - startedAt) + " ms (ruta crítica: "
+            + String.join(" -> ", criticalPath()) + ")");
+
+        StringBuilder durations = new StringBuilder("Duración por gestor (ms):");
+        for (Step step : steps.values()) {
+            durations.append(' ').append(step.name).append('=').append(millis(step.finishedAt - step.startedAt))
+                .append('[').append(step.lane.name().toLowerCase()).append(']');
+        }
+        lines.add(durations.toString());
+        return lines;
+    }
+
+    /**
+     * Desde el paso que terminó el último, retrocede siempre por la dependencia que terminó más tarde
+     */
+    private List<String> criticalPath() {
+        Step last = null;
+        for (Step step : steps.values()) {
+            if (last == null || step.finishedAt > last.finishedAt) {
+                last = step;
+            }
+        }
+
+        Deque<String> path = new ArrayDeque<>();
+        while (last != null) {
+            path.addFirst(last.name + "(" + millis(last.finishedAt - last.startedAt) + ")");
+            Step previous = null;
+            for (Step dependency : last.dependencies) {
+                if (previous == null || dependency.finishedAt > previous.finishedAt) {
+                    previous = dependency;
+                }
+            }
+            last = previous;
+        }
+        return new ArrayList<>(path);
+    }
+
+    private static int dispatch(Step step, Deque<Step> mainReady, BlockingQueue<Step> completed,
+                                ExecutorService databaseLane, ExecutorService ioLane) {
+        ExecutorService executor = switch (step.lane) {
+            case MAIN -> null;
+            case DATABASE -> databaseLane;
+            case IO -> ioLane;
+        };
+        if (executor == null) {
+            mainReady.add(step);
+            return 0;
+        }
+        executor.execute(() -> {
+            execute(step);
+            completed.add(step);
+        });
+        return 1;
+    }
+
+    private static void execute(Step step) {
+        step.startedAt = System.nanoTime();
+        try {
+            step.action.run();
+        } catch (Throwable t) {
+            step.error = t;
+        } finally {
+            step.finishedAt = System.nanoTime();
+        }
+    }
+
+    private void shutdown(ExecutorService executor) {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(30, TimeUnit.SECONDS)) {
+                logger.warning("Algunos pasos del arranque no terminaron a tiempo");
+                executor.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private ThreadFactory threadFactory(String prefix) {
+        ClassLoader pluginLoader = getClass().getClassLoader();
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            thread.setContextClassLoader(pluginLoader);
+            return thread;
+        };
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * Un paso del grafo; su estado solo lo modifica el hilo principal, salvo los tiempos y el error,
+     * que el hilo que lo ejecuta escribe antes de avisar por la cola de completados
+     */
+    private static final class Step {
+        private final String name;
+        private final Lane lane;
+        private final Runnable action;
+        private final List<Step> dependencies;
+        private final List<Step> dependents;
+        private int pending;
+        private long startedAt;
+        private long finishedAt;
+        private Throwable error;
+
+        private Step(String name, Lane lane, Runnable action) {
+            this.name = name;
+            this.lane = lane;
+            this.action = action;
+            this.dependencies = new ArrayList<>();
+            this.dependents = new ArrayList<>();
+        }
+    }
+}
@@ -1,14 +1,14 @@
 package com.nightslayer.mmorpg.achievements;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import com.nightslayer.mmorpg.managers.ReloadableConfig;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.Connection;
@@ -18,28 +18,32 @@ import java.sql.SQLException;
 import java.sql.Statement;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
  * Gestor principal del sistema de logros
  */
-public class AchievementManager {
+public class AchievementManager implements ReloadableConfig<AchievementManager.Settings> {
     private final MMORPGPlugin plugin;
     private final Gson gson;
-    private final Map<String, Achievement> achievements;
-    private final Map<UUID, Map<String, AchievementProgress>> progressByPlayer;
-    private boolean enabled;
+    private final File configFile;
+    private volatile Map<String, Achievement> achievements;
+    private final PlayerCache<Map<String, AchievementProgress>> progressByPlayer;
+    private volatile boolean enabled;
     private final DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
 
     public AchievementManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.achievements = new ConcurrentHashMap<>();
-        this.progressByPlayer = new ConcurrentHashMap<>();
+        this.gson = GsonRegistry.pretty();
+        this.configFile = new File(plugin.getDataFolder(), "data/achievements_config.json");
+        this.achievements = Map.of();
+        // El progreso se guarda en cada cambio, así que no hace falta guardarlo al descartarlo
+        this.progressByPlayer = new PlayerCache<>("achievements", null, progressMap -> 64L + progressMap.size() * 96L);
         this.enabled = true;
 
         loadConfiguration();
@@ -66,47 +70,68 @@ public class AchievementManager {
     }
 
     private void loadConfiguration() {
-        File configFile = new File(plugin.getDataFolder(), "data/achievements_config.json");
         if (!configFile.exists()) {
             createDefaultConfiguration(configFile);
             return;
         }
 
-        try (FileReader reader = new FileReader(configFile)) {
-            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
-            this.enabled = json.has("enabled") && json.get("enabled").getAsBoolean();
-
-            if (json.has("achievements")) {
-                JsonObject achObj = json.getAsJsonObject("achievements");
-                achObj.entrySet().forEach(entry -> {
-                    String id = entry.getKey();
-                    JsonObject data = entry.getValue().getAsJsonObject();
-
-                    String name = data.get("name").getAsString();
-                    String description = data.has("description") ? data.get("description").getAsString() : "";
-                    String triggerTypeStr = data.getAsJsonObject("trigger").get("type").getAsString();
-                    Achievement.TriggerType triggerType = Achievement.TriggerType.valueOf(triggerTypeStr.toUpperCase());
-                    String mobId = data.getAsJsonObject("trigger").has("mobId") ?
-                            data.getAsJsonObject("trigger").get("mobId").getAsString() : null;
-                    int target = data.getAsJsonObject("trigger").get("target").getAsInt();
-
-                    AchievementReward reward = new AchievementReward(
-                        data.getAsJsonObject("reward").has("xp") ? data.getAsJsonObject("reward").get("xp").getAsInt() : 0,
-                        data.getAsJsonObject("reward").has("coins") ? data.getAsJsonObject("reward").get("coins").getAsInt() : 0,
-                        data.getAsJsonObject("reward").has("title") ? data.getAsJsonObject("reward").get("title").getAsString() : "",
-                        data.getAsJsonObject("reward").has("item") ? data.getAsJsonObject("reward").get("item").getAsString() : "",
-                        data.getAsJsonObject("reward").has("broadcast") && data.getAsJsonObject("reward").get("broadcast").getAsBoolean()
-                    );
-
-                    Achievement achievement = new Achievement(id, name, description, triggerType, mobId, target, reward);
-                    achievements.put(id, achievement);
-                });
-            }
-        } catch (IOException e) {
+        try {
+            applyConfig(parseConfig(plugin.getConfigCache().loadObject(configFile)));
+        } catch (IOException | RuntimeException e) {
             plugin.getLogger().log(Level.SEVERE, "Error cargando achievements_config.json", e);
         }
     }
 
+    @Override
+    public File getConfigFile() {
+        return configFile;
+    }
+
+    @Override
+    public Settings parseConfig(JsonObject json) {
+        boolean enabled = json.has("enabled") && json.get("enabled").getAsBoolean();
+        Map<String, Achievement> achievements = new LinkedHashMap<>();
+
+        if (json.has("achievements")) {
+            JsonObject achObj = json.getAsJsonObject("achievements");
+            achObj.entrySet().forEach(entry -> {
+                String id = entry.getKey();
+                JsonObject data = entry.getValue().getAsJsonObject();
+
+                String name = data.get("name").getAsString();
+                String description = data.has("description") ? data.get("description").getAsString() : "";
+                String triggerTypeStr = data.getAsJsonObject("trigger").get("type").getAsString();
+                Achievement.TriggerType triggerType = Achievement.TriggerType.valueOf(triggerTypeStr.toUpperCase());
+                String mobId = data.getAsJsonObject("trigger").has("mobId") ?
+                        data.getAsJsonObject("trigger").get("mobId").getAsString() : null;
+                int target = data.getAsJsonObject("trigger").get("target").getAsInt();
+
+                AchievementReward reward = new AchievementReward(
+                    data.getAsJsonObject("reward").has("xp") ? data.getAsJsonObject("reward").get("xp").getAsInt() : 0,
+                    data.getAsJsonObject("reward").has("coins") ? data.getAsJsonObject("reward").get("coins").getAsInt() : 0,
+                    data.getAsJsonObject("reward").has("title") ? data.getAsJsonObject("reward").get("title").getAsString() : "",
+                    data.getAsJsonObject("reward").has("item") ? data.getAsJsonObject("reward").get("item").getAsString() : "",
+                    data.getAsJsonObject("reward").has("broadcast") && data.getAsJsonObject("reward").get("broadcast").getAsBoolean()
+                );
+
+                Achievement achievement = new Achievement(id, name, description, triggerType, mobId, target, reward);
+                achievements.put(id, achievement);
+            });
+        }
+        return new Settings(enabled, Collections.unmodifiableMap(achievements));
+    }
+
+    @Override
+    public void applyConfig(Settings settings) {
+        achievements = settings.achievements();
+        enabled = settings.enabled();
+    }
+
+    @Override
+    public Settings currentConfig() {
+        return new Settings(enabled, achievements);
+    }
+
     private void createDefaultConfiguration(File configFile) {
         try {
             if (!configFile.getParentFile().exists()) {
@@ -163,15 +188,10 @@ public class AchievementManager {
     }
 
     public Map<String, AchievementProgress> getProgress(UUID playerUUID) {
-        ensureProgressLoaded(playerUUID);
-        return progressByPlayer.getOrDefault(playerUUID, new HashMap<>());
+        return progressByPlayer.computeIfAbsent(playerUUID, this::loadProgress);
     }
 
-    private void ensureProgressLoaded(UUID playerUUID) {
-        if (progressByPlayer.containsKey(playerUUID)) {
-            return;
-        }
-
+    private Map<String, AchievementProgress> loadProgress(UUID playerUUID) {
         Map<String, AchievementProgress> progressMap = new HashMap<>();
         try (Connection conn = plugin.getDatabaseManager().getConnection();
              PreparedStatement ps = conn.prepareStatement(
@@ -192,7 +212,7 @@ public class AchievementManager {
             plugin.getLogger().log(Level.WARNING, "No se pudo cargar progreso de logros", e);
         }
 
-        progressByPlayer.put(playerUUID, progressMap);
+        return progressMap;
     }
 
     public void recordKill(Player player, String mobId) {
@@ -200,8 +220,7 @@ public class AchievementManager {
             return;
         }
 
-        ensureProgressLoaded(player.getUniqueId());
-        Map<String, AchievementProgress> progressMap = progressByPlayer.get(player.getUniqueId());
+        Map<String, AchievementProgress> progressMap = getProgress(player.getUniqueId());
 
         achievements.values().forEach(achievement -> {
             if (achievement.getTriggerType() == Achievement.TriggerType.KILL_ANY
@@ -228,8 +247,8 @@ public class AchievementManager {
             player.giveExp(reward.getXp());
         }
 
-        if (reward.getCoins() > 0 && plugin.getEconomyManager() != null) {
-            plugin.getEconomyManager().deposit(player, reward.getCoins());
+        if (reward.getCoins() > 0 && plugin.getRewardService() != null) {
+            plugin.getRewardService().queueDeposit(player.getUniqueId(), reward.getCoins());
         }
 
         if (reward.getTitle() != null && !reward.getTitle().isEmpty()) {
@@ -265,12 +284,24 @@ public class AchievementManager {
         }
     }
 
+    /**
+     * Caché de progreso de logros cargado en memoria
+     */
+    public PlayerCache<Map<String, AchievementProgress>> getPlayerCache() {
+        return progressByPlayer;
+    }
+
     public void saveAll() {
         progressByPlayer.forEach((uuid, map) -> map.values().forEach(progress -> saveProgress(uuid, progress)));
     }
 
     public void reloadConfiguration() {
-        achievements.clear();
         loadConfiguration();
     }
+
+    /**
+     * Logros cargados y si el sistema está activo
+     */
+    public record Settings(boolean enabled, Map<String, Achievement> achievements) {
+    }
 }
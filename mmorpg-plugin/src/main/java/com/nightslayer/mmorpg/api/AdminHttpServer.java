@@ -0,0 +1,268 @@
+package com.nightslayer.mmorpg.api;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+
+/**
+ * Servidor HTTP local (por defecto solo loopback) para que el panel web lea datos en vivo y envíe comandos
+ * sin esperar a la exportación periódica de archivos.
+ *
+ * <ul>
+ *   <li>GET  /api/v1/snapshot/{clave} - documento publicado, con ETag (responde 304 si no cambió)</li>
+ *   <li>GET  /api/v1/changes?since=N&amp;wait=S - documentos cambiados desde la versión N; con wait espera hasta S segundos</li>
+ *   <li>POST /api/v1/commands - encola un comando {"type", "data"} en la bandeja de comandos</li>
+ *   <li>GET  /api/v1/commands/{id} - resultado de un comando</li>
+ * </ul>
+ *
+ * Cada petición se atiende en un hilo virtual, así que el long-polling no ocupa hilos del sistema.
+ */
+public class AdminHttpServer {
+    private static final int MAX_WAIT_SECONDS = 30;
+    private static final int MAX_BODY_BYTES = 1024 * 1024;
+
+    private final MMORPGPlugin plugin;
+    private final SnapshotStore snapshots;
+    private final CommandInbox commandInbox;
+    private final String bindAddress;
+    private final int port;
+    private final byte[] token;
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public AdminHttpServer(MMORPGPlugin plugin, SnapshotStore snapshots, CommandInbox commandInbox) {
+        this.plugin = plugin;
+        this.snapshots = snapshots;
+        this.commandInbox = commandInbox;
+        this.bindAddress = plugin.getConfig().getString("web-panel.http.bind", "127.0.0.1");
+        this.port = plugin.getConfig().getInt("web-panel.http.port", 8765);
+        String configuredToken = plugin.getConfig().getString("web-panel.http.token", "");
+        this.token = configuredToken == null || configuredToken.isEmpty()
+            ? null : configuredToken.getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Arranca el servidor (por defecto solo en 127.0.0.1)
+     */
+    public void start() {
+        try {
+            InetAddress address = bindAddress == null || bindAddress.isEmpty()
+                ? InetAddress.getLoopbackAddress() : InetAddress.getByName(bindAddress);
+            if (!address.isLoopbackAddress() && token == null) {
+                plugin.getLogger().warning("La API HTTP local escucha fuera de loopback sin token; configura web-panel.http.token");
+            }
+            server = HttpServer.create(new InetSocketAddress(address, port), 0);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "No se pudo iniciar la API HTTP local en el puerto " + port, e);
+            return;
+        }
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext("/api/v1/", this::handle);
+        server.start();
+        plugin.getLogger().info("API HTTP local escuchando en " + server.getAddress().getHostString() + ":" + port);
+    }
+
+    public void shutdown() {
+        if (server != null) {
+            server.stop(0);
+            server = null;
+        }
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!authorized(exchange)) {
+                sendError(exchange, 401, "Token inválido");
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath().substring("/api/v1/".length());
+            String method = exchange.getRequestMethod();
+
+            if (path.startsWith("snapshot/") && method.equals("GET")) {
+                handleSnapshot(exchange, path.substring("snapshot/".length()));
+            } else if (path.equals("changes") && method.equals("GET")) {
+                handleChanges(exchange);
+            } else if (path.equals("commands") && method.equals("POST")) {
+                handleCommand(exchange);
+            } else if (path.startsWith("commands/") && method.equals("GET")) {
+                handleCommandResult(exchange, path.substring("commands/".length()));
+            } else {
+                sendError(exchange, 404, "Ruta no encontrada");
+            }
+        } catch (IllegalArgumentException e) {
+            sendError(exchange, 400, e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            plugin.getLogger().log(Level.WARNING, "Error en la API HTTP local", e);
+            sendError(exchange, 500, "Error interno");
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleSnapshot(HttpExchange exchange, String key) throws IOException {
+        SnapshotStore.Snapshot snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            sendError(exchange, 404, "Documento no encontrado: " + key);
+            return;
+        }
+
+        String etag = "\"" + snapshot.etag() + "\"";
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("X-Snapshot-Version", Long.toString(snapshot.version()));
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            exchange.sendResponseHeaders(304, -1);
+            return;
+        }
+        send(exchange, 200, snapshot.body());
+    }
+
+    private void handleChanges(HttpExchange exchange) throws IOException, InterruptedException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        long since = parseLong(query.get("since"), 0L);
+        if (since > snapshots.getVersion()) {
+            // El plugin se reinició y las versiones empezaron de nuevo: enviar todo
+            since = 0L;
+        }
+        int wait = (int) Math.min(MAX_WAIT_SECONDS, Math.max(0L, parseLong(query.get("wait"), 0L)));
+
+        List<SnapshotStore.Snapshot> changes = wait > 0
+            ? snapshots.awaitChangesSince(since, wait * 1000L)
+            : snapshots.changesSince(since);
+
+        JsonArray changed = new JsonArray();
+        long latest = since;
+        for (SnapshotStore.Snapshot snapshot : changes) {
+            JsonObject entry = new JsonObject();
+            entry.addProperty("key", snapshot.key());
+            entry.addProperty("version", snapshot.version());
+            entry.addProperty("etag", snapshot.etag());
+            changed.add(entry);
+            latest = Math.max(latest, snapshot.version());
+        }
+
+        JsonObject response = new JsonObject();
+        response.addProperty("version", latest);
+        response.add("changed", changed);
+        sendJson(exchange, 200, response);
+    }
+
+    private void handleCommand(HttpExchange exchange) throws IOException {
+        JsonObject command;
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) {
+                sendError(exchange, 413, "Comando demasiado grande");
+                return;
+            }
+            command = JsonParser.parseString(new String(body, StandardCharsets.UTF_8)).getAsJsonObject();
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getMessage(), e);
+        }
+        if (!command.has("type")) {
+            throw new IllegalArgumentException("Falta el campo type");
+        }
+
+        String commandId = commandInbox.enqueue(command.get("type").getAsString(), command.get("data"));
+        JsonObject response = new JsonObject();
+        response.addProperty("success", true);
+        response.addProperty("commandId", commandId);
+        sendJson(exchange, 202, response);
+    }
+
+    private void handleCommandResult(HttpExchange exchange, String commandId) throws IOException {
+        JsonObject result = commandInbox.getResult(commandId);
+        JsonObject response = new JsonObject();
+        if (result != null) {
+            response.addProperty("pending", false);
+            response.add("result", result);
+        } else if (commandInbox.isPending(commandId)) {
+            response.addProperty("pending", true);
+        } else {
+            sendError(exchange, 404, "Comando no encontrado: " + commandId);
+            return;
+        }
+        response.addProperty("success", true);
+        sendJson(exchange, 200, response);
+    }
+
+    private boolean authorized(HttpExchange exchange) {
+        if (token == null) {
+            return true;
+        }
+        String provided = exchange.getRequestHeaders().getFirst("X-Admin-Token");
+        return provided != null && MessageDigest.isEqual(token, provided.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void sendError(HttpExchange exchange, int status, String message) throws IOException {
+        JsonObject error = new JsonObject();
+        error.addProperty("success", false);
+        error.addProperty("message", message);
+        sendJson(exchange, status, error);
+    }
+
+    private void sendJson(HttpExchange exchange, int status, JsonElement body) throws IOException {
+        send(exchange, status, body.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> params = new HashMap<>();
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return params;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return params;
+    }
+
+    private static long parseLong(String value, long defaultValue) {
+        if (value == null || value.isEmpty()) {
+            return defaultValue;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Número inválido: " + value);
+        }
+    }
+}
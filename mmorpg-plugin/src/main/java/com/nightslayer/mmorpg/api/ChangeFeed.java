@@ -0,0 +1,83 @@
+package com.nightslayer.mmorpg.api;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Registro de cambios de quests, NPCs, jugadores y spawns para el panel web.
+ * Cada cambio recibe un número de versión creciente y se guarda en un historial acotado;
+ * el exportador solo vuelve a serializar lo que cambió desde su última exportación.
+ * Si alguien pide cambios más antiguos que el historial, debe recargar todo.
+ */
+public class ChangeFeed {
+    /**
+     * Tipo de dato que cambió
+     */
+    public enum Kind {
+        QUEST, NPC, PLAYER, SPAWN
+    }
+
+    private final int capacity;
+    private final Deque<Change> changes;
+    private long version;
+
+    public ChangeFeed(int capacity) {
+        this.capacity = Math.max(16, capacity);
+        this.changes = new ArrayDeque<>(this.capacity);
+    }
+
+    /**
+     * Anota que un elemento cambió (o se eliminó)
+     * @return versión asignada al cambio
+     */
+    public synchronized long record(Kind kind, String id, boolean removed) {
+        version++;
+        if (changes.size() >= capacity) {
+            changes.removeFirst();
+        }
+        changes.addLast(new Change(version, kind, id, removed));
+        return version;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    /**
+     * Cambios posteriores a la versión indicada y hasta {@code until} incluida, en orden.
+     * @return null si el historial ya no contiene todos los cambios pedidos
+     */
+    public synchronized List<Change> between(long since, long until) {
+        if (since >= version) {
+            return List.of();
+        }
+        Change oldest = changes.peekFirst();
+        if (oldest == null || oldest.version() > since + 1) {
+            return null;
+        }
+
+        List<Change> result = new ArrayList<>();
+        Iterator<Change> it = changes.descendingIterator();
+        while (it.hasNext()) {
+            Change change = it.next();
+            if (change.version() <= since) {
+                break;
+            }
+            if (change.version() <= until) {
+                result.add(change);
+            }
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Un cambio del historial
+     */
+    public record Change(long version, Kind kind, String id, boolean removed) {
+    }
+}
@@ -0,0 +1,329 @@
+package com.nightslayer.mmorpg.api;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+
+/**
+ * Bandeja de entrada de comandos del panel web.
+ * Cada comando es un archivo api/inbox/{secuencia}-{tipo}.json que el panel escribe con
+ * otro nombre y renombra de forma atómica. Un hilo en segundo plano vigila la carpeta con
+ * un WatchService, procesa los comandos en orden de secuencia (lectura y validación fuera
+ * del hilo principal) y solo salta al hilo principal para aplicar el cambio. El resultado se
+ * escribe en api/results/{nombre}.result.json y solo entonces se borra el comando, de modo
+ * que un comando nunca se pierde: si el servidor se cae antes, se vuelve a procesar al arrancar.
+ */
+public class CommandInbox {
+    /** Espera máxima entre revisiones de la carpeta si el sistema de archivos no notifica cambios */
+    private static final long RESCAN_SECONDS = 5L;
+    /** Tiempo que se conservan los archivos de resultado */
+    private static final long RESULT_TTL_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    private final MMORPGPlugin plugin;
+    private final RPGAdminAPI api;
+    private final File apiFolder;
+    private final File inboxDir;
+    private final File resultsDir;
+    private final AtomicLong lastSequence;
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread worker;
+
+    public CommandInbox(MMORPGPlugin plugin, RPGAdminAPI api, File apiFolder) {
+        this.plugin = plugin;
+        this.api = api;
+        this.apiFolder = apiFolder;
+        this.inboxDir = new File(apiFolder, "inbox");
+        this.resultsDir = new File(apiFolder, "results");
+        this.lastSequence = new AtomicLong();
+
+        inboxDir.mkdirs();
+        resultsDir.mkdirs();
+    }
+
+    /**
+     * Inicia el hilo que vigila la bandeja de entrada
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            inboxDir.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            apiFolder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "No se pudo vigilar la bandeja de comandos, se revisará cada " + RESCAN_SECONDS + "s", e);
+            watchService = null;
+        }
+
+        cleanOldResults();
+        running = true;
+        worker = new Thread(this::run, "MMORPG-CommandInbox");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Deja un comando en la bandeja con el mismo formato que usa el panel web
+     * @return id del comando, para consultar su resultado con {@link #getResult(String)}
+     */
+    public String enqueue(String type, JsonElement data) throws IOException {
+        if (!type.matches("[A-Za-z]+")) {
+            throw new IllegalArgumentException("Tipo de comando inválido: " + type);
+        }
+        String commandId = nextSequence() + "-" + type;
+
+        JsonObject command = new JsonObject();
+        command.addProperty("type", type);
+        command.add("data", data);
+
+        File temp = new File(inboxDir, commandId + ".tmp");
+        Files.writeString(temp.toPath(), command.toString(), StandardCharsets.UTF_8);
+        Files.move(temp.toPath(), new File(inboxDir, commandId + ".json").toPath(), StandardCopyOption.ATOMIC_MOVE);
+        return commandId;
+    }
+
+    /**
+     * Resultado de un comando ya procesado, o null si sigue pendiente o no existe
+     */
+    public JsonObject getResult(String commandId) throws IOException {
+        if (!commandId.matches("[0-9]+-[A-Za-z]+")) {
+            throw new IllegalArgumentException("Id de comando inválido: " + commandId);
+        }
+        File resultFile = new File(resultsDir, commandId + ".result.json");
+        if (!resultFile.exists()) {
+            return null;
+        }
+        return JsonParser.parseString(Files.readString(resultFile.toPath(), StandardCharsets.UTF_8)).getAsJsonObject();
+    }
+
+    /**
+     * Indica si un comando sigue en la bandeja sin procesar
+     */
+    public boolean isPending(String commandId) {
+        return new File(inboxDir, commandId + ".json").exists();
+    }
+
+    /**
+     * Detiene el hilo. Los comandos sin procesar se quedan en la bandeja para el siguiente arranque.
+     */
+    public void shutdown() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Se está cerrando de todos modos
+            }
+        }
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(2000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                importLegacyCommands();
+                processPending();
+                awaitChanges();
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Error en la bandeja de comandos API", e);
+            }
+        }
+    }
+
+    private void awaitChanges() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(RESCAN_SECONDS));
+            return;
+        }
+        WatchKey key = watchService.poll(RESCAN_SECONDS, TimeUnit.SECONDS);
+        if (key != null) {
+            // Solo interesa que hubo cambios: la carpeta se vuelve a listar entera
+            key.pollEvents();
+            key.reset();
+        }
+    }
+
+    /**
+     * Mueve el antiguo api/commands.json a la bandeja para que se procese como un comando más
+     */
+    private void importLegacyCommands() throws IOException {
+        File legacy = new File(apiFolder, "commands.json");
+        if (!legacy.exists()) {
+            return;
+        }
+        Path target = new File(inboxDir, nextSequence() + "-legacy.json").toPath();
+        Files.move(legacy.toPath(), target, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private void processPending() throws InterruptedException {
+        File[] files = inboxDir.listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null || files.length == 0) {
+            return;
+        }
+
+        Arrays.sort(files, Comparator.comparingLong((File file) -> sequenceOf(file.getName()))
+            .thenComparing(File::getName));
+        for (File file : files) {
+            if (!running) {
+                return;
+            }
+            process(file);
+        }
+    }
+
+    /**
+     * Procesa un archivo de comando: lo valida aquí, lo aplica en el hilo principal,
+     * escribe el resultado y borra el comando
+     */
+    private void process(File file) throws InterruptedException {
+        String name = file.getName();
+        File resultFile = new File(resultsDir, name.substring(0, name.length() - ".json".length()) + ".result.json");
+        if (resultFile.exists()) {
+            // Ya aplicado antes de una caída: solo faltaba borrarlo
+            file.delete();
+            return;
+        }
+
+        List<JsonObject> results = new ArrayList<>();
+        try {
+            JsonObject root = JsonParser.parseString(Files.readString(file.toPath(), StandardCharsets.UTF_8)).getAsJsonObject();
+            if (root.has("type")) {
+                results.add(execute(root.get("type").getAsString(), root.get("data")));
+            } else {
+                // Formato antiguo: un objeto con un comando por tipo
+                for (Map.Entry<String, JsonElement> command : root.entrySet()) {
+                    results.add(execute(command.getKey(), command.getValue()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            results.add(result(null, false, "Comando ilegible: " + e.getMessage()));
+        }
+
+        JsonObject ack = new JsonObject();
+        ack.addProperty("sequence", sequenceOf(name));
+        ack.addProperty("file", name);
+        ack.addProperty("processedAt", System.currentTimeMillis());
+        ack.addProperty("success", results.stream().allMatch(r -> r.get("success").getAsBoolean()));
+        ack.add("results", GsonRegistry.compact().toJsonTree(results));
+
+        try {
+            File temp = new File(resultsDir, resultFile.getName() + ".tmp");
+            Files.writeString(temp.toPath(), GsonRegistry.compact().toJson(ack), StandardCharsets.UTF_8);
+            Files.move(temp.toPath(), resultFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.delete(file.toPath());
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "No se pudo confirmar el comando API " + name, e);
+        }
+    }
+
+    /**
+     * Valida un comando en este hilo y aplica el cambio en el hilo principal
+     */
+    private JsonObject execute(String type, JsonElement data) throws InterruptedException {
+        Callable<String> action;
+        try {
+            action = api.prepareCommand(type, data);
+        } catch (RuntimeException e) {
+            plugin.getLogger().warning("Comando API inválido (" + type + "): " + e.getMessage());
+            return result(type, false, e.getMessage());
+        }
+
+        try {
+            String message = Bukkit.getScheduler().callSyncMethod(plugin, action).get();
+            plugin.getLogger().info(message);
+            return result(type, true, message);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            plugin.getLogger().warning("Error aplicando comando API (" + type + "): " + cause.getMessage());
+            return result(type, false, cause.getMessage());
+        }
+    }
+
+    private JsonObject result(String type, boolean success, String message) {
+        JsonObject result = new JsonObject();
+        if (type != null) {
+            result.addProperty("type", type);
+        }
+        result.addProperty("success", success);
+        result.addProperty("message", message);
+        return result;
+    }
+
+    /**
+     * Siguiente número de secuencia: nanosegundos desde epoch, como los que genera el panel web
+     */
+    private long nextSequence() {
+        Instant now = Instant.now();
+        long nanos = now.getEpochSecond() * 1_000_000_000L + now.getNano();
+        return lastSequence.updateAndGet(last -> Math.max(last + 1, nanos));
+    }
+
+    /**
+     * Número de secuencia al principio del nombre ({secuencia}-{tipo}.json), 0 si no tiene
+     */
+    private static long sequenceOf(String name) {
+        int end = 0;
+        while (end < name.length() && Character.isDigit(name.charAt(end))) {
+            end++;
+        }
+        if (end == 0) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(name.substring(0, end));
+        } catch (NumberFormatException e) {
+            return 0L;
+        }
+    }
+
+    private void cleanOldResults() {
+        long cutoff = System.currentTimeMillis() - RESULT_TTL_MILLIS;
+        File[] results = resultsDir.listFiles((dir, name) -> name.endsWith(".result.json"));
+        if (results == null) {
+            return;
+        }
+        for (File result : results) {
+            if (result.lastModified() < cutoff) {
+                result.delete();
+            }
+        }
+    }
+}
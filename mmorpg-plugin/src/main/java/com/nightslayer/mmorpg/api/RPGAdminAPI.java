@@ -1,8 +1,8 @@
 package com.nightslayer.mmorpg.api;
 
 import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.npcs.CustomNPC;
 import com.nightslayer.mmorpg.npcs.NPCType;
@@ -10,15 +10,16 @@ import com.nightslayer.mmorpg.quests.Quest;
 import com.nightslayer.mmorpg.quests.QuestObjective;
 import com.nightslayer.mmorpg.quests.QuestObjectiveType;
 import com.nightslayer.mmorpg.quests.QuestReward;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.EntityType;
 
-import java.io.*;
+import java.io.File;
+import java.io.IOException;
 import java.nio.file.Files;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.Callable;
 
 /**
  * API para administración del plugin desde el panel web
@@ -26,6 +27,9 @@ import java.util.List;
 public class RPGAdminAPI {
     private final MMORPGPlugin plugin;
     private final File apiFolder;
+    private final CommandInbox commandInbox;
+    private final SnapshotStore snapshots;
+    private AdminHttpServer httpServer;
     
     public RPGAdminAPI(MMORPGPlugin plugin) {
         this.plugin = plugin;
@@ -34,284 +38,280 @@ public class RPGAdminAPI {
         if (!apiFolder.exists()) {
             apiFolder.mkdirs();
         }
+        this.commandInbox = new CommandInbox(plugin, this, apiFolder);
+        this.snapshots = new SnapshotStore();
     }
     
     /**
-     * Procesa comandos desde archivos JSON
+     * Inicia la bandeja de comandos y, si está activada, la API HTTP local del panel web
      */
-    public void processCommands() {
-        File commandsFile = new File(apiFolder, "commands.json");
-        if (!commandsFile.exists()) {
-            return;
+    public void start() {
+        commandInbox.start();
+        if (plugin.getConfig().getBoolean("web-panel.http.enabled", true)) {
+            httpServer = new AdminHttpServer(plugin, snapshots, commandInbox);
+            httpServer.start();
         }
-        
-        try {
-            String content = Files.readString(commandsFile.toPath());
-            JsonObject commands = JsonParser.parseString(content).getAsJsonObject();
-            
-            if (commands.has("createQuest")) {
-                processCreateQuest(commands.getAsJsonObject("createQuest"));
-            }
-            
-            if (commands.has("updateQuest")) {
-                processUpdateQuest(commands.getAsJsonObject("updateQuest"));
-            }
-            
-            if (commands.has("deleteQuest")) {
-                processDeleteQuest(commands.get("deleteQuest").getAsString());
-            }
-            
-            if (commands.has("createNPC")) {
-                processCreateNPC(commands.getAsJsonObject("createNPC"));
-            }
-            
-            if (commands.has("updateNPC")) {
-                processUpdateNPC(commands.getAsJsonObject("updateNPC"));
-            }
-            
-            if (commands.has("deleteNPC")) {
-                processDeleteNPC(commands.get("deleteNPC").getAsString());
-            }
-            
-            // Borrar archivo de comandos después de procesar
-            commandsFile.delete();
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error procesando comandos API: " + e.getMessage());
+    }
+    
+    /**
+     * Detiene la API HTTP y la bandeja de comandos; los pendientes se procesan en el siguiente arranque
+     */
+    public void shutdown() {
+        if (httpServer != null) {
+            httpServer.shutdown();
+            httpServer = null;
         }
+        commandInbox.shutdown();
+    }
+    
+    /**
+     * Documentos publicados para el panel web (servidos por la API HTTP local)
+     */
+    public SnapshotStore getSnapshots() {
+        return snapshots;
     }
     
     /**
-     * Procesa creación de quest
+     * Lee y valida un comando fuera del hilo principal.
+     * @return acción que aplica el cambio y debe ejecutarse en el hilo principal
+     * @throws IllegalArgumentException si el comando no es válido
      */
-    private void processCreateQuest(JsonObject data) {
+    Callable<String> prepareCommand(String type, JsonElement data) {
+        if (data == null || data.isJsonNull()) {
+            throw new IllegalArgumentException("Comando sin datos: " + type);
+        }
         try {
-            String id = data.get("id").getAsString();
-            String name = data.get("name").getAsString();
-            String description = data.get("description").getAsString();
-            int minLevel = data.get("minLevel").getAsInt();
-            String npcGiverId = data.has("npcGiverId") ? data.get("npcGiverId").getAsString() : "";
-            
-            Quest.QuestDifficulty difficulty = Quest.QuestDifficulty.valueOf(
-                data.get("difficulty").getAsString().toUpperCase()
-            );
-            
-            // Crear quest con constructor correcto
-            Quest quest = new Quest(id, name, description, minLevel, npcGiverId, difficulty);
-            
-            // Añadir objetivos
-            if (data.has("objectives")) {
-                JsonArray objectivesArray = data.getAsJsonArray("objectives");
-                for (int i = 0; i < objectivesArray.size(); i++) {
-                    JsonObject obj = objectivesArray.get(i).getAsJsonObject();
-                    String objId = obj.has("id") ? obj.get("id").getAsString() : ("obj_" + i);
-                    quest.addObjective(new QuestObjective(
-                        objId,
-                        QuestObjectiveType.valueOf(obj.get("type").getAsString().toUpperCase()),
-                        obj.get("target").getAsString(),
-                        obj.get("amount").getAsInt()
-                    ));
-                }
-            }
-            
-            // Añadir recompensas
-            if (data.has("rewards")) {
-                JsonArray rewardsArray = data.getAsJsonArray("rewards");
-                for (int i = 0; i < rewardsArray.size(); i++) {
-                    JsonObject rew = rewardsArray.get(i).getAsJsonObject();
-                    quest.addReward(new QuestReward(
-                        QuestReward.RewardType.valueOf(rew.get("type").getAsString().toUpperCase()),
-                        (int) rew.get("value").getAsDouble()
-                    ));
-                }
+            switch (type) {
+                case "createQuest":
+                    return prepareCreateQuest(data.getAsJsonObject());
+                case "updateQuest":
+                    return prepareUpdateQuest(data.getAsJsonObject());
+                case "deleteQuest":
+                    return prepareDeleteQuest(data.getAsString());
+                case "createNPC":
+                    return prepareCreateNPC(data.getAsJsonObject());
+                case "updateNPC":
+                    return prepareUpdateNPC(data.getAsJsonObject());
+                case "deleteNPC":
+                    return prepareDeleteNPC(data.getAsString());
+                default:
+                    throw new IllegalArgumentException("Tipo de comando desconocido: " + type);
             }
-            
-            // Configurar propiedades adicionales
-            if (data.has("repeatable")) {
-                quest.setRepeatable(data.get("repeatable").getAsBoolean());
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            // Campos ausentes o de tipo incorrecto
+            throw new IllegalArgumentException("Datos inválidos para " + type + ": " + e.getMessage(), e);
+        }
+    }
+    
+    /**
+     * Prepara la creación de una quest
+     */
+    private Callable<String> prepareCreateQuest(JsonObject data) {
+        String id = data.get("id").getAsString();
+        String name = data.get("name").getAsString();
+        String description = data.get("description").getAsString();
+        int minLevel = data.get("minLevel").getAsInt();
+        String npcGiverId = data.has("npcGiverId") ? data.get("npcGiverId").getAsString() : "";
+        
+        Quest.QuestDifficulty difficulty = Quest.QuestDifficulty.valueOf(
+            data.get("difficulty").getAsString().toUpperCase()
+        );
+        
+        // Crear quest con constructor correcto
+        Quest quest = new Quest(id, name, description, minLevel, npcGiverId, difficulty);
+        
+        // Añadir objetivos
+        if (data.has("objectives")) {
+            JsonArray objectivesArray = data.getAsJsonArray("objectives");
+            for (int i = 0; i < objectivesArray.size(); i++) {
+                JsonObject obj = objectivesArray.get(i).getAsJsonObject();
+                String objId = obj.has("id") ? obj.get("id").getAsString() : ("obj_" + i);
+                quest.addObjective(new QuestObjective(
+                    objId,
+                    QuestObjectiveType.valueOf(obj.get("type").getAsString().toUpperCase()),
+                    obj.get("target").getAsString(),
+                    obj.get("amount").getAsInt()
+                ));
             }
-            
-            if (data.has("cooldown")) {
-                quest.setCooldownTime(data.get("cooldown").getAsLong());
+        }
+        
+        // Añadir recompensas
+        if (data.has("rewards")) {
+            JsonArray rewardsArray = data.getAsJsonArray("rewards");
+            for (int i = 0; i < rewardsArray.size(); i++) {
+                JsonObject rew = rewardsArray.get(i).getAsJsonObject();
+                quest.addReward(new QuestReward(
+                    QuestReward.RewardType.valueOf(rew.get("type").getAsString().toUpperCase()),
+                    (int) rew.get("value").getAsDouble()
+                ));
             }
-            
-            // Registrar quest
-            plugin.getQuestManager().registerQuest(quest);
-            plugin.getLogger().info("Quest creada via API: " + id);
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error creando quest: " + e.getMessage());
         }
+        
+        // Configurar propiedades adicionales
+        if (data.has("repeatable")) {
+            quest.setRepeatable(data.get("repeatable").getAsBoolean());
+        }
+        
+        if (data.has("cooldown")) {
+            quest.setCooldownTime(data.get("cooldown").getAsLong());
+        }
+        
+        return () -> {
+            plugin.getQuestManager().registerQuest(quest);
+            return "Quest creada via API: " + id;
+        };
     }
     
     /**
-     * Procesa actualización de quest
+     * Prepara la actualización de una quest
      */
-    private void processUpdateQuest(JsonObject data) {
-        try {
-            String id = data.get("id").getAsString();
+    private Callable<String> prepareUpdateQuest(JsonObject data) {
+        String id = data.get("id").getAsString();
+        Boolean repeatable = data.has("repeatable") ? data.get("repeatable").getAsBoolean() : null;
+        Long cooldown = data.has("cooldown") ? data.get("cooldown").getAsLong() : null;
+        
+        return () -> {
             Quest quest = plugin.getQuestManager().getQuest(id);
-            
             if (quest == null) {
-                plugin.getLogger().warning("Quest no encontrada: " + id);
-                return;
+                throw new IllegalStateException("Quest no encontrada: " + id);
             }
             
             // Actualizar campos modificables
-            if (data.has("repeatable")) {
-                quest.setRepeatable(data.get("repeatable").getAsBoolean());
+            if (repeatable != null) {
+                quest.setRepeatable(repeatable);
             }
-            
-            if (data.has("cooldown")) {
-                quest.setCooldownTime(data.get("cooldown").getAsLong());
+            if (cooldown != null) {
+                quest.setCooldownTime(cooldown);
             }
-            
-            plugin.getLogger().info("Quest actualizada via API: " + id);
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error actualizando quest: " + e.getMessage());
-        }
+            plugin.getChangeFeed().record(ChangeFeed.Kind.QUEST, id, false);
+            return "Quest actualizada via API: " + id;
+        };
     }
     
     /**
-     * Procesa eliminación de quest
+     * Prepara la eliminación de una quest
      */
-    private void processDeleteQuest(String questId) {
-        try {
+    private Callable<String> prepareDeleteQuest(String questId) {
+        return () -> {
             plugin.getQuestManager().unregisterQuest(questId);
-            plugin.getLogger().info("Quest eliminada via API: " + questId);
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error eliminando quest: " + e.getMessage());
-        }
+            return "Quest eliminada via API: " + questId;
+        };
     }
     
     /**
-     * Procesa creación de NPC
+     * Prepara la creación de un NPC
      */
-    private void processCreateNPC(JsonObject data) {
-        try {
-            String id = data.get("id").getAsString();
-            String name = data.get("name").getAsString();
-            NPCType type = NPCType.valueOf(data.get("type").getAsString().toUpperCase());
-            
-            // Parsear ubicación
-            JsonObject locData = data.getAsJsonObject("location");
-            World world = Bukkit.getWorld(locData.get("world").getAsString());
-            
-            if (world == null) {
-                plugin.getLogger().warning("Mundo no encontrado: " + locData.get("world").getAsString());
-                return;
-            }
-            
-            Location location = new Location(
-                world,
-                locData.get("x").getAsDouble(),
-                locData.get("y").getAsDouble(),
-                locData.get("z").getAsDouble(),
-                locData.get("yaw").getAsFloat(),
-                locData.get("pitch").getAsFloat()
-            );
-            
-            // Determinar tipo de entidad
-            EntityType entityType = data.has("entityType") ? 
-                EntityType.valueOf(data.get("entityType").getAsString().toUpperCase()) : 
-                EntityType.VILLAGER;
-            
-            // Crear NPC
-            CustomNPC npc = new CustomNPC(id, name, type, location, entityType);
+    private Callable<String> prepareCreateNPC(JsonObject data) {
+        String id = data.get("id").getAsString();
+        String name = data.get("name").getAsString();
+        NPCType type = NPCType.valueOf(data.get("type").getAsString().toUpperCase());
+        LocationData locationData = LocationData.parse(data.getAsJsonObject("location"));
+        
+        // Determinar tipo de entidad
+        EntityType entityType = data.has("entityType") ? 
+            EntityType.valueOf(data.get("entityType").getAsString().toUpperCase()) : 
+            EntityType.VILLAGER;
+        String questId = data.has("questId") ? data.get("questId").getAsString() : null;
+        
+        return () -> {
+            CustomNPC npc = new CustomNPC(id, name, type, locationData.resolve(), entityType);
             
             // Asociar quest si existe
-            if (data.has("questId")) {
-                npc.setQuestId(data.get("questId").getAsString());
+            if (questId != null) {
+                npc.setQuestId(questId);
             }
             
             // Registrar y spawnear NPC
             plugin.getNPCManager().registerNPC(npc);
-            npc.spawn();
-            
-            plugin.getLogger().info("NPC creado via API: " + id);
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error creando NPC: " + e.getMessage());
-            e.printStackTrace();
-        }
+            plugin.getNPCManager().spawnNPC(id);
+            return "NPC creado via API: " + id;
+        };
     }
     
     /**
-     * Procesa actualización de NPC
+     * Prepara la actualización de un NPC
      */
-    private void processUpdateNPC(JsonObject data) {
-        try {
-            String id = data.get("id").getAsString();
+    private Callable<String> prepareUpdateNPC(JsonObject data) {
+        String id = data.get("id").getAsString();
+        String questId = data.has("questId") ? data.get("questId").getAsString() : null;
+        LocationData locationData = data.has("location") ? LocationData.parse(data.getAsJsonObject("location")) : null;
+        
+        return () -> {
             CustomNPC npc = plugin.getNPCManager().getNPC(id);
-            
             if (npc == null) {
-                plugin.getLogger().warning("NPC no encontrado: " + id);
-                return;
+                throw new IllegalStateException("NPC no encontrado: " + id);
             }
             
             // Actualizar quest asociada
-            if (data.has("questId")) {
-                npc.setQuestId(data.get("questId").getAsString());
+            if (questId != null) {
+                npc.setQuestId(questId);
             }
             
             // Si cambió la ubicación, mover NPC
-            if (data.has("location")) {
-                JsonObject locData = data.getAsJsonObject("location");
-                World world = Bukkit.getWorld(locData.get("world").getAsString());
-                
-                if (world != null) {
-                    Location newLocation = new Location(
-                        world,
-                        locData.get("x").getAsDouble(),
-                        locData.get("y").getAsDouble(),
-                        locData.get("z").getAsDouble(),
-                        locData.get("yaw").getAsFloat(),
-                        locData.get("pitch").getAsFloat()
-                    );
-                    
-                    npc.despawn();
-                    npc.setLocation(newLocation);
-                    npc.spawn();
-                }
+            if (locationData != null) {
+                plugin.getNPCManager().moveNPC(id, locationData.resolve());
             }
-            
-            plugin.getLogger().info("NPC actualizado via API: " + id);
-            
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error actualizando NPC: " + e.getMessage());
-        }
+            plugin.getNPCManager().recordChange(id, false);
+            return "NPC actualizado via API: " + id;
+        };
     }
     
     /**
-     * Procesa eliminación de NPC
+     * Prepara la eliminación de un NPC
      */
-    private void processDeleteNPC(String npcId) {
-        try {
+    private Callable<String> prepareDeleteNPC(String npcId) {
+        return () -> {
             CustomNPC npc = plugin.getNPCManager().getNPC(npcId);
-            if (npc != null) {
-                npc.despawn();
-                plugin.getNPCManager().removeNPC(npcId);
-                plugin.getLogger().info("NPC eliminado via API: " + npcId);
+            if (npc == null) {
+                throw new IllegalStateException("NPC no encontrado: " + npcId);
+            }
+            plugin.getNPCManager().despawnNPC(npcId);
+            plugin.getNPCManager().removeNPC(npcId);
+            return "NPC eliminado via API: " + npcId;
+        };
+    }
+    
+    /**
+     * Ubicación leída del JSON; el mundo se resuelve en el hilo principal
+     */
+    private record LocationData(String world, double x, double y, double z, float yaw, float pitch) {
+        static LocationData parse(JsonObject locData) {
+            return new LocationData(
+                locData.get("world").getAsString(),
+                locData.get("x").getAsDouble(),
+                locData.get("y").getAsDouble(),
+                locData.get("z").getAsDouble(),
+                locData.has("yaw") ? locData.get("yaw").getAsFloat() : 0f,
+                locData.has("pitch") ? locData.get("pitch").getAsFloat() : 0f
+            );
+        }
+        
+        Location resolve() {
+            World bukkitWorld = Bukkit.getWorld(world);
+            if (bukkitWorld == null) {
+                throw new IllegalStateException("Mundo no encontrado: " + world);
             }
-        } catch (Exception e) {
-            plugin.getLogger().warning("Error eliminando NPC: " + e.getMessage());
+            return new Location(bukkitWorld, x, y, z, yaw, pitch);
         }
     }
     
     /**
-     * Exporta el estado actual para confirmación
+     * Exporta el estado actual para confirmación (con los totales de la instantánea de exportación)
      */
-    public void exportStatus() {
+    public void exportStatus(int questCount, int npcCount) {
         JsonObject status = new JsonObject();
         status.addProperty("status", "ready");
+        status.addProperty("questCount", questCount);
+        status.addProperty("npcCount", npcCount);
+        // Sin timestamp, para que el ETag solo cambie si cambian los datos
+        snapshots.publish("api/status", status);
         status.addProperty("timestamp", System.currentTimeMillis());
-        status.addProperty("questCount", plugin.getQuestManager().getAllQuests().size());
-        status.addProperty("npcCount", plugin.getNPCManager().getAllNPCs().size());
         
         try {
             File statusFile = new File(apiFolder, "status.json");
-            Files.writeString(statusFile.toPath(), plugin.getGson().toJson(status));
+            Files.writeString(statusFile.toPath(), GsonRegistry.compact().toJson(status));
         } catch (IOException e) {
             plugin.getLogger().warning("Error exportando status API: " + e.getMessage());
         }
@@ -0,0 +1,141 @@
+package com.nightslayer.mmorpg.api;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonElement;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Últimas versiones publicadas de los datos que consume el panel web.
+ * Cada documento (p. ej. "world/status") se guarda ya serializado junto a su hash (ETag)
+ * y al número de versión global en que cambió por última vez. Publicar un documento
+ * idéntico no genera versión nueva, así que el panel puede preguntar "qué cambió desde N".
+ */
+public class SnapshotStore {
+    private final Gson gson;
+    private final ReentrantLock lock;
+    private final Condition changed;
+    private final Map<String, Snapshot> documents;
+    private long version;
+
+    public SnapshotStore() {
+        this.gson = GsonRegistry.compact();
+        this.lock = new ReentrantLock();
+        this.changed = lock.newCondition();
+        this.documents = new HashMap<>();
+    }
+
+    /**
+     * Publica un documento; solo cuenta como cambio si su contenido es distinto
+     * @return true si el documento cambió
+     */
+    public boolean publish(String key, JsonElement data) {
+        return publish(key, gson.toJson(data).getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Publica un documento ya serializado como JSON en UTF-8
+     * @return true si el documento cambió
+     */
+    public boolean publish(String key, byte[] body) {
+        String etag = hash(body);
+
+        lock.lock();
+        try {
+            Snapshot current = documents.get(key);
+            if (current != null && current.etag().equals(etag)) {
+                return false;
+            }
+            version++;
+            documents.put(key, new Snapshot(key, body, etag, version));
+            changed.signalAll();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Snapshot get(String key) {
+        lock.lock();
+        try {
+            return documents.get(key);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getVersion() {
+        lock.lock();
+        try {
+            return version;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Documentos que cambiaron después de la versión indicada
+     */
+    public List<Snapshot> changesSince(long since) {
+        lock.lock();
+        try {
+            return collectChanges(since);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Igual que {@link #changesSince(long)}, pero si no hay cambios espera hasta que los haya
+     * o hasta agotar el tiempo (long-polling)
+     */
+    public List<Snapshot> awaitChangesSince(long since, long timeoutMillis) throws InterruptedException {
+        long remaining = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        lock.lock();
+        try {
+            while (version <= since && remaining > 0) {
+                remaining = changed.awaitNanos(remaining);
+            }
+            return collectChanges(since);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private List<Snapshot> collectChanges(long since) {
+        List<Snapshot> changes = new ArrayList<>();
+        for (Snapshot snapshot : documents.values()) {
+            if (snapshot.version() > since) {
+                changes.add(snapshot);
+            }
+        }
+        changes.sort((a, b) -> Long.compare(a.version(), b.version()));
+        return changes;
+    }
+
+    private static String hash(byte[] body) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(body);
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Documento publicado: contenido JSON compacto, ETag y versión en que cambió
+     */
+    public record Snapshot(String key, byte[] body, String etag, long version) {
+    }
+}
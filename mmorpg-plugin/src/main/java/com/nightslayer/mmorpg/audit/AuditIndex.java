@@ -0,0 +1,486 @@
+package com.nightslayer.mmorpg.audit;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Índice de los segmentos de auditoría.
+ * Mantiene, por día, contadores por categoría y por jugador (audit-{fecha}.stats) y,
+ * por segmento, un índice disperso de bloques (audit-{fecha}.{n}.idx) con la posición,
+ * el rango de tiempo y los jugadores de cada bloque. Así las estadísticas no leen los
+ * segmentos y las consultas por tiempo o jugador saltan directamente a los bloques útiles.
+ */
+class AuditIndex {
+    /** Entradas máximas por bloque del índice disperso */
+    static final int BLOCK_ENTRIES = 256;
+
+    private final File auditDir;
+    private final Logger logger;
+    private final Gson gson;
+    private final Map<String, DayStats> days;
+    private final List<Pending> pending;
+
+    AuditIndex(File auditDir, Logger logger) {
+        this.auditDir = auditDir;
+        this.logger = logger;
+        this.gson = GsonRegistry.compact();
+        this.days = new HashMap<>();
+        this.pending = new ArrayList<>();
+
+        rebuildMissingStats();
+    }
+
+    /**
+     * Anota una entrada recién añadida a un segmento. No se aplica hasta {@link #commit()}.
+     */
+    synchronized void record(String segmentName, long offset, String date, AuditLogger.AuditEntry entry) {
+        pending.add(new Pending(segmentName, offset, date, entry));
+    }
+
+    /**
+     * Descarta lo anotado desde el último commit (la escritura del lote falló)
+     */
+    synchronized void discard() {
+        pending.clear();
+    }
+
+    /**
+     * Aplica lo anotado: añade los bloques a los índices de sus segmentos y
+     * reescribe los contadores de los días afectados
+     */
+    synchronized void commit() {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<Block>> blocksBySegment = new LinkedHashMap<>();
+        Set<String> touchedDays = new HashSet<>();
+        Block block = null;
+        String blockSegment = null;
+
+        for (Pending p : pending) {
+            if (block == null || !p.segmentName.equals(blockSegment) || block.count >= BLOCK_ENTRIES) {
+                block = new Block(p.offset);
+                blockSegment = p.segmentName;
+                blocksBySegment.computeIfAbsent(blockSegment, k -> new ArrayList<>()).add(block);
+            }
+            block.add(toMillis(p.entry.getTimestamp()), p.entry.getPlayerName());
+
+            dayStats(p.date).add(p.entry.getCategory(), p.entry.getPlayerName());
+            touchedDays.add(p.date);
+        }
+        pending.clear();
+
+        for (Map.Entry<String, List<Block>> e : blocksBySegment.entrySet()) {
+            appendBlocks(e.getKey(), e.getValue());
+        }
+        for (String date : touchedDays) {
+            writeDayStats(date, days.get(date));
+        }
+    }
+
+    /**
+     * Suma los contadores de los días completos entre {@code from} y {@code to}, ambos incluidos
+     */
+    synchronized int aggregate(LocalDate from, LocalDate to,
+                               Map<AuditLogger.AuditCategory, Integer> categoryCounts,
+                               Map<String, Integer> playerCounts) {
+        int total = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            DayStats stats = days.get(day.toString());
+            if (stats == null) {
+                continue;
+            }
+            total += stats.total;
+            stats.categories.forEach((category, count) -> categoryCounts.merge(category, count, Integer::sum));
+            stats.players.forEach((player, count) -> playerCounts.merge(player, count, Integer::sum));
+        }
+        return total;
+    }
+
+    /**
+     * Lee las entradas entre {@code from} y {@code to}, opcionalmente de un único jugador,
+     * leyendo solo los bloques del índice que pueden contenerlas
+     */
+    List<AuditLogger.AuditEntry> query(LocalDateTime from, LocalDateTime to, String playerName, int limit) {
+        List<AuditLogger.AuditEntry> result = new ArrayList<>();
+        long fromMillis = toMillis(from);
+        long toMillis = toMillis(to);
+
+        for (LocalDate day = from.toLocalDate(); !day.isAfter(to.toLocalDate()); day = day.plusDays(1)) {
+            for (File segment : segmentsOf(day.toString())) {
+                List<Block> blocks = loadBlocks(segment);
+                try {
+                    if (blocks == null) {
+                        // Segmento sin índice (formato antiguo): se recorre completo
+                        scan(segment, 0L, Integer.MAX_VALUE, from, to, playerName, result, limit);
+                    } else {
+                        for (Block block : blocks) {
+                            if (block.lastMillis < fromMillis || block.firstMillis > toMillis
+                                    || (playerName != null && !block.players.contains(playerName))) {
+                                continue;
+                            }
+                            scan(segment, block.offset, block.count, from, to, playerName, result, limit);
+                            if (result.size() >= limit) {
+                                return result;
+                            }
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.warning("Error leyendo segmento de auditoría " + segment.getName() + ": " + e.getMessage());
+                }
+                if (result.size() >= limit) {
+                    return result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Olvida los contadores de un día cuyos archivos se han borrado
+     */
+    synchronized void forgetDay(String date) {
+        days.remove(date);
+    }
+
+    private void scan(File segment, long offset, int maxLines, LocalDateTime from, LocalDateTime to,
+                      String playerName, List<AuditLogger.AuditEntry> result, int limit) throws IOException {
+        try (BufferedReader reader = openSegment(segment, offset)) {
+            String line;
+            int read = 0;
+            while (read < maxLines && result.size() < limit && (line = reader.readLine()) != null) {
+                read++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                AuditLogger.AuditEntry entry;
+                try {
+                    entry = gson.fromJson(line, AuditLogger.AuditEntry.class);
+                } catch (RuntimeException e) {
+                    continue;
+                }
+                if (entry.getTimestamp().isBefore(from) || entry.getTimestamp().isAfter(to)) {
+                    continue;
+                }
+                if (playerName == null || playerName.equals(entry.getPlayerName())) {
+                    result.add(entry);
+                }
+            }
+        }
+    }
+
+    /**
+     * Abre un segmento para lectura desde una posición (sin comprimir). En los segmentos
+     * comprimidos el salto descomprime pero no interpreta las líneas saltadas.
+     */
+    static BufferedReader openSegment(File file, long offset) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            if (file.getName().endsWith(".gz")) {
+                in = new GZIPInputStream(in);
+                in.skipNBytes(offset);
+            } else if (offset > 0) {
+                ((FileInputStream) in).getChannel().position(offset);
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+        return new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Segmentos de un día ordenados: primero el archivo antiguo audit-{fecha}.json y luego por número
+     */
+    private List<File> segmentsOf(String date) {
+        String prefix = "audit-" + date;
+        File[] files = auditDir.listFiles((dir, name) -> name.startsWith(prefix)
+            && (name.endsWith(".json") || name.endsWith(".json.gz")));
+        if (files == null) {
+            return new ArrayList<>();
+        }
+        List<File> segments = new ArrayList<>(Arrays.asList(files));
+        segments.sort(Comparator.comparingInt(file -> segmentNumber(file.getName(), prefix)));
+        return segments;
+    }
+
+    private static int segmentNumber(String name, String prefix) {
+        String rest = name.substring(prefix.length());
+        if (!rest.startsWith(".") || rest.startsWith(".json")) {
+            return 0;
+        }
+        int dot = rest.indexOf('.', 1);
+        try {
+            return Integer.parseInt(rest.substring(1, dot));
+        } catch (RuntimeException e) {
+            return 0;
+        }
+    }
+
+    private static String baseName(String segmentName) {
+        String name = segmentName.endsWith(".gz") ? segmentName.substring(0, segmentName.length() - 3) : segmentName;
+        return name.substring(0, name.length() - ".json".length());
+    }
+
+    private File indexFile(String segmentName) {
+        return new File(auditDir, baseName(segmentName) + ".idx");
+    }
+
+    private File statsFile(String date) {
+        return new File(auditDir, "audit-" + date + ".stats");
+    }
+
+    private void appendBlocks(String segmentName, List<Block> blocks) {
+        try (Writer writer = new FileWriter(indexFile(segmentName), StandardCharsets.UTF_8, true)) {
+            for (Block block : blocks) {
+                writer.write(gson.toJson(block.toJson()));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error escribiendo índice de auditoría de " + segmentName, e);
+        }
+    }
+
+    /**
+     * Bloques del índice de un segmento, o null si el segmento no tiene índice
+     */
+    private List<Block> loadBlocks(File segment) {
+        File index = indexFile(segment.getName());
+        if (!index.exists()) {
+            return null;
+        }
+        List<Block> blocks = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(index.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isBlank()) {
+                    blocks.add(Block.fromJson(JsonParser.parseString(line).getAsJsonObject()));
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warning("Índice de auditoría dañado, se recorrerá el segmento: " + index.getName());
+            return null;
+        }
+        return blocks;
+    }
+
+    private DayStats dayStats(String date) {
+        return days.computeIfAbsent(date, d -> new DayStats());
+    }
+
+    private void writeDayStats(String date, DayStats stats) {
+        File target = statsFile(date);
+        File temp = new File(auditDir, target.getName() + ".tmp");
+        try (Writer writer = new FileWriter(temp, StandardCharsets.UTF_8)) {
+            gson.toJson(stats.toJson(), writer);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error escribiendo estadísticas de auditoría de " + date, e);
+            return;
+        }
+        try {
+            Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error guardando estadísticas de auditoría de " + date, e);
+        }
+    }
+
+    /**
+     * Carga los contadores guardados y reconstruye, recorriendo sus segmentos una sola vez,
+     * los de los días que aún no tienen archivo de estadísticas (auditorías anteriores al índice)
+     */
+    private void rebuildMissingStats() {
+        File[] files = auditDir.listFiles((dir, name) -> name.startsWith("audit-")
+            && (name.endsWith(".stats") || name.endsWith(".json") || name.endsWith(".json.gz")));
+        if (files == null) {
+            return;
+        }
+
+        Set<String> dates = new HashSet<>();
+        for (File file : files) {
+            String name = file.getName();
+            if (name.length() >= "audit-yyyy-MM-dd".length()) {
+                dates.add(name.substring("audit-".length(), "audit-yyyy-MM-dd".length()));
+            }
+        }
+
+        int rebuilt = 0;
+        for (String date : dates) {
+            File statsFile = statsFile(date);
+            if (statsFile.exists()) {
+                try (BufferedReader reader = Files.newBufferedReader(statsFile.toPath(), StandardCharsets.UTF_8)) {
+                    days.put(date, DayStats.fromJson(JsonParser.parseReader(reader).getAsJsonObject()));
+                    continue;
+                } catch (IOException | RuntimeException e) {
+                    logger.warning("Estadísticas de auditoría dañadas, se reconstruyen: " + statsFile.getName());
+                }
+            }
+
+            DayStats stats = new DayStats();
+            for (File segment : segmentsOf(date)) {
+                try (BufferedReader reader = openSegment(segment, 0L)) {
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isBlank()) {
+                            continue;
+                        }
+                        try {
+                            AuditLogger.AuditEntry entry = gson.fromJson(line, AuditLogger.AuditEntry.class);
+                            stats.add(entry.getCategory(), entry.getPlayerName());
+                        } catch (RuntimeException ignored) {
+                            // Línea de formato antiguo ilegible
+                        }
+                    }
+                } catch (IOException e) {
+                    logger.warning("Error leyendo segmento de auditoría " + segment.getName() + ": " + e.getMessage());
+                }
+            }
+            days.put(date, stats);
+            writeDayStats(date, stats);
+            rebuilt++;
+        }
+
+        if (rebuilt > 0) {
+            logger.info("Estadísticas de auditoría reconstruidas para " + rebuilt + " días");
+        }
+    }
+
+    static long toMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static final class Pending {
+        private final String segmentName;
+        private final long offset;
+        private final String date;
+        private final AuditLogger.AuditEntry entry;
+
+        private Pending(String segmentName, long offset, String date, AuditLogger.AuditEntry entry) {
+            this.segmentName = segmentName;
+            this.offset = offset;
+            this.date = date;
+            this.entry = entry;
+        }
+    }
+
+    /**
+     * Bloque del índice disperso: posición de la primera línea, número de líneas,
+     * rango de tiempo y jugadores presentes
+     */
+    private static final class Block {
+        private final long offset;
+        private int count;
+        private long firstMillis = Long.MAX_VALUE;
+        private long lastMillis = Long.MIN_VALUE;
+        private final Set<String> players = new HashSet<>();
+
+        private Block(long offset) {
+            this.offset = offset;
+        }
+
+        private void add(long millis, String playerName) {
+            count++;
+            firstMillis = Math.min(firstMillis, millis);
+            lastMillis = Math.max(lastMillis, millis);
+            if (playerName != null) {
+                players.add(playerName);
+            }
+        }
+
+        private JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("o", offset);
+            json.addProperty("n", count);
+            json.addProperty("t", firstMillis);
+            json.addProperty("l", lastMillis);
+            JsonArray array = new JsonArray();
+            players.forEach(array::add);
+            json.add("p", array);
+            return json;
+        }
+
+        private static Block fromJson(JsonObject json) {
+            Block block = new Block(json.get("o").getAsLong());
+            block.count = json.get("n").getAsInt();
+            block.firstMillis = json.get("t").getAsLong();
+            block.lastMillis = json.get("l").getAsLong();
+            for (JsonElement player : json.getAsJsonArray("p")) {
+                block.players.add(player.getAsString());
+            }
+            return block;
+        }
+    }
+
+    /**
+     * Contadores de un día
+     */
+    private static final class DayStats {
+        private int total;
+        private final Map<AuditLogger.AuditCategory, Integer> categories = new EnumMap<>(AuditLogger.AuditCategory.class);
+        private final Map<String, Integer> players = new HashMap<>();
+
+        private void add(AuditLogger.AuditCategory category, String playerName) {
+            total++;
+            categories.merge(category, 1, Integer::sum);
+            if (playerName != null) {
+                players.merge(playerName, 1, Integer::sum);
+            }
+        }
+
+        private JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("total", total);
+            JsonObject categoriesJson = new JsonObject();
+            categories.forEach((category, count) -> categoriesJson.addProperty(category.name(), count));
+            json.add("categories", categoriesJson);
+            JsonObject playersJson = new JsonObject();
+            players.forEach(playersJson::addProperty);
+            json.add("players", playersJson);
+            return json;
+        }
+
+        private static DayStats fromJson(JsonObject json) {
+            DayStats stats = new DayStats();
+            stats.total = json.get("total").getAsInt();
+            for (Map.Entry<String, JsonElement> e : json.getAsJsonObject("categories").entrySet()) {
+                stats.categories.put(AuditLogger.AuditCategory.valueOf(e.getKey()), e.getValue().getAsInt());
+            }
+            for (Map.Entry<String, JsonElement> e : json.getAsJsonObject("players").entrySet()) {
+                stats.players.put(e.getKey(), e.getValue().getAsInt());
+            }
+            return stats;
+        }
+    }
+}
@@ -1,39 +1,68 @@
 package com.nightslayer.mmorpg.audit;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
- * Sistema de auditoría para registrar todas las acciones RPG
+ * Sistema de auditoría para registrar todas las acciones RPG.
+ * Las entradas se encolan en una cola acotada y se añaden, una por línea, a segmentos
+ * de solo-añadir cada pocos segundos o cuando la cola se llena. Las escrituras se hacen de una
+ * en una, aunque las pidan a la vez el temporizador y quien registra con la cola llena, para
+ * que el índice y las estadísticas sigan coincidiendo con los segmentos.
  */
 public class AuditLogger {
     private final Plugin plugin;
     private final File auditDir;
     private final Gson gson;
-    private final Queue<AuditEntry> pendingEntries;
+    private final BlockingQueue<AuditEntry> pendingEntries;
+    private final int capacity;
+    private final Object flushLock;
+    private final List<AuditEntry> failedEntries; // lote que no se pudo escribir, se reintenta primero (flushLock)
+    private final int flushThreshold;
+    private final AtomicBoolean flushScheduled;
+    private final AuditSegmentWriter writer;
+    private final AuditIndex index;
     private final DateTimeFormatter dateFormatter;
     private final DateTimeFormatter filenameFormatter;
+    private BukkitTask autoSaveTask;
     
     public AuditLogger(Plugin plugin) {
         this.plugin = plugin;
         this.auditDir = new File(plugin.getDataFolder(), "audit");
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
-        this.pendingEntries = new ConcurrentLinkedQueue<>();
+        this.gson = GsonRegistry.compact();
+        this.capacity = Math.max(16, plugin.getConfig().getInt("audit.queue-capacity", 1000));
+        this.pendingEntries = new ArrayBlockingQueue<>(capacity);
+        this.flushLock = new Object();
+        this.failedEntries = new ArrayList<>();
+        this.flushThreshold = capacity * 3 / 4;
+        this.flushScheduled = new AtomicBoolean(false);
+        long maxSegmentBytes = Math.max(1L, plugin.getConfig().getLong("audit.max-segment-size-mb", 16)) * 1024L * 1024L;
+        this.writer = new AuditSegmentWriter(auditDir, maxSegmentBytes,
+            plugin.getConfig().getBoolean("audit.compress-segments", true), plugin.getLogger());
         this.dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
         this.filenameFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         
         if (!auditDir.exists()) {
             auditDir.mkdirs();
         }
+        this.index = new AuditIndex(auditDir, plugin.getLogger());
         
         // Iniciar tarea de guardado periódico
         startAutoSave();
@@ -49,7 +78,7 @@ public class AuditLogger {
             action,
             details
         );
-        pendingEntries.add(entry);
+        enqueue(entry);
     }
     
     /**
@@ -62,7 +91,7 @@ public class AuditLogger {
             action,
             String.format("Quest: %s | %s", questId, details)
         );
-        pendingEntries.add(entry);
+        enqueue(entry);
     }
     
     /**
@@ -75,7 +104,7 @@ public class AuditLogger {
             type,
             String.format("Amount: %.2f | Reason: %s", amount, reason)
         );
-        pendingEntries.add(entry);
+        enqueue(entry);
     }
     
     /**
@@ -88,7 +117,7 @@ public class AuditLogger {
             action,
             "NPC: " + npcId
         );
-        pendingEntries.add(entry);
+        enqueue(entry);
     }
     
     /**
@@ -102,7 +131,7 @@ public class AuditLogger {
             String.format("Target: %s | %s", target, details)
         );
         entry.setSeverity(AuditSeverity.HIGH);
-        pendingEntries.add(entry);
+        enqueue(entry);
     }
     
     /**
@@ -116,62 +145,73 @@ public class AuditLogger {
             String.format("Error: %s\nStack: %s", error, stackTrace)
         );
         entry.setSeverity(AuditSeverity.CRITICAL);
-        pendingEntries.add(entry);
+        enqueue(entry);
     }
     
     /**
-     * Guarda todas las entradas pendientes
+     * Encola una entrada. Si la cola se acerca a su capacidad se adelanta la escritura;
+     * si está llena, quien registra escribe el lote directamente.
      */
-    public void flush() {
-        if (pendingEntries.isEmpty()) {
-            return;
-        }
-        
-        Map<String, List<AuditEntry>> entriesByDate = new HashMap<>();
-        
-        // Agrupar por fecha
-        while (!pendingEntries.isEmpty()) {
-            AuditEntry entry = pendingEntries.poll();
-            String date = entry.getTimestamp().format(filenameFormatter);
-            entriesByDate.computeIfAbsent(date, k -> new ArrayList<>()).add(entry);
+    private void enqueue(AuditEntry entry) {
+        while (!pendingEntries.offer(entry)) {
+            flush();
         }
-        
-        // Guardar cada grupo en su archivo correspondiente
-        for (Map.Entry<String, List<AuditEntry>> dateGroup : entriesByDate.entrySet()) {
-            saveToFile(dateGroup.getKey(), dateGroup.getValue());
+        if (pendingEntries.size() >= flushThreshold && flushScheduled.compareAndSet(false, true)) {
+            plugin.getServer().getScheduler().runTaskAsynchronously(plugin, () -> {
+                flushScheduled.set(false);
+                flush();
+            });
         }
     }
     
     /**
-     * Guarda entradas en un archivo
+     * Añade al segmento activo todas las entradas pendientes. Si la escritura falla, el lote se
+     * guarda para reintentarlo en la siguiente (hasta la capacidad de la cola; lo más antiguo
+     * que no quepa se pierde).
      */
-    private void saveToFile(String date, List<AuditEntry> entries) {
-        File auditFile = new File(auditDir, "audit-" + date + ".json");
-        List<AuditEntry> allEntries = new ArrayList<>();
-        
-        // Cargar entradas existentes si el archivo ya existe
-        if (auditFile.exists()) {
+    public void flush() {
+        synchronized (flushLock) {
+            if (pendingEntries.isEmpty() && failedEntries.isEmpty()) {
+                return;
+            }
+            
+            List<AuditEntry> batch = new ArrayList<>(failedEntries.size() + pendingEntries.size());
+            batch.addAll(failedEntries);
+            failedEntries.clear();
+            pendingEntries.drainTo(batch);
+            
             try {
-                java.nio.file.Files.readAllLines(auditFile.toPath()).forEach(line -> {
-                    try {
-                        allEntries.add(gson.fromJson(line, AuditEntry.class));
-                    } catch (Exception ignored) {}
-                });
+                for (AuditEntry entry : batch) {
+                    String date = entry.getTimestamp().format(filenameFormatter);
+                    byte[] line = (gson.toJson(entry, AuditEntry.class) + "\n").getBytes(StandardCharsets.UTF_8);
+                    AuditSegmentWriter.Position position = writer.append(date, line);
+                    index.record(position.segmentName(), position.offset(), date, entry);
+                }
+                writer.flush();
+                index.commit();
             } catch (IOException e) {
-                plugin.getLogger().warning("Error leyendo archivo de auditoría: " + e.getMessage());
+                index.discard();
+                int dropped = Math.max(0, batch.size() - capacity);
+                failedEntries.addAll(batch.subList(dropped, batch.size()));
+                plugin.getLogger().severe("Error guardando auditoría (" + batch.size() + " entradas), se reintentará: "
+                    + e.getMessage() + (dropped > 0 ? " (" + dropped + " entradas descartadas)" : ""));
             }
         }
-        
-        // Añadir nuevas entradas
-        allEntries.addAll(entries);
-        
-        // Guardar todo
-        try (FileWriter writer = new FileWriter(auditFile)) {
-            for (AuditEntry entry : allEntries) {
-                writer.write(gson.toJson(entry) + "\n");
-            }
+    }
+    
+    /**
+     * Detiene el guardado periódico, escribe lo pendiente y cierra el segmento activo
+     */
+    public void close() {
+        if (autoSaveTask != null) {
+            autoSaveTask.cancel();
+            autoSaveTask = null;
+        }
+        flush();
+        try {
+            writer.close();
         } catch (IOException e) {
-            plugin.getLogger().severe("Error guardando auditoría: " + e.getMessage());
+            plugin.getLogger().severe("Error cerrando auditoría: " + e.getMessage());
         }
     }
     
@@ -179,39 +219,31 @@ public class AuditLogger {
      * Inicia el guardado automático periódico
      */
     private void startAutoSave() {
-        plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, 
-            this::flush, 6000L, 6000L); // Cada 5 minutos
+        long interval = Math.max(1L, plugin.getConfig().getLong("audit.flush-interval", 5)) * 20L;
+        autoSaveTask = plugin.getServer().getScheduler().runTaskTimerAsynchronously(plugin, 
+            this::flush, interval, interval);
     }
     
     /**
-     * Obtiene estadísticas de auditoría
+     * Obtiene estadísticas de auditoría.
+     * Los días completos salen de los contadores del índice; solo el día del corte,
+     * que cuenta parcialmente, se lee usando el índice disperso de sus segmentos.
      */
     public Map<String, Object> getStatistics(int days) {
         Map<String, Object> stats = new HashMap<>();
-        LocalDateTime cutoff = LocalDateTime.now().minusDays(days);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minusDays(days);
         
         Map<AuditCategory, Integer> categoryCounts = new HashMap<>();
         Map<String, Integer> playerActions = new HashMap<>();
-        int totalEntries = 0;
-        
-        File[] auditFiles = auditDir.listFiles((dir, name) -> name.startsWith("audit-") && name.endsWith(".json"));
+        int totalEntries = index.aggregate(cutoff.toLocalDate().plusDays(1), now.toLocalDate(),
+            categoryCounts, playerActions);
         
-        if (auditFiles != null) {
-            for (File file : auditFiles) {
-                try {
-                    List<String> lines = java.nio.file.Files.readAllLines(file.toPath());
-                    for (String line : lines) {
-                        AuditEntry entry = gson.fromJson(line, AuditEntry.class);
-                        if (entry.getTimestamp().isAfter(cutoff)) {
-                            totalEntries++;
-                            categoryCounts.merge(entry.getCategory(), 1, Integer::sum);
-                            playerActions.merge(entry.getPlayerName(), 1, Integer::sum);
-                        }
-                    }
-                } catch (Exception e) {
-                    plugin.getLogger().warning("Error leyendo estadísticas: " + e.getMessage());
-                }
-            }
+        LocalDateTime endOfCutoffDay = cutoff.toLocalDate().plusDays(1).atStartOfDay().minusNanos(1);
+        for (AuditEntry entry : index.query(cutoff.plusNanos(1), endOfCutoffDay, null, Integer.MAX_VALUE)) {
+            totalEntries++;
+            categoryCounts.merge(entry.getCategory(), 1, Integer::sum);
+            playerActions.merge(entry.getPlayerName(), 1, Integer::sum);
         }
         
         stats.put("totalEntries", totalEntries);
@@ -222,6 +254,14 @@ public class AuditLogger {
         return stats;
     }
     
+    /**
+     * Obtiene las entradas guardadas en un rango de tiempo, opcionalmente de un único jugador
+     * @param playerName jugador a filtrar, o null para todos
+     */
+    public List<AuditEntry> getEntries(LocalDateTime from, LocalDateTime to, String playerName, int limit) {
+        return index.query(from, to, playerName, limit);
+    }
+    
     /**
      * Obtiene los jugadores más activos
      */
@@ -237,16 +277,18 @@ public class AuditLogger {
      */
     public void cleanOldAudits(int daysToKeep) {
         LocalDateTime cutoff = LocalDateTime.now().minusDays(daysToKeep);
-        File[] auditFiles = auditDir.listFiles((dir, name) -> name.startsWith("audit-") && name.endsWith(".json"));
+        // Segmentos y sus archivos de índice y estadísticas
+        File[] auditFiles = auditDir.listFiles((dir, name) -> name.startsWith("audit-"));
         
         if (auditFiles != null) {
             for (File file : auditFiles) {
                 String filename = file.getName();
-                String dateStr = filename.replace("audit-", "").replace(".json", "");
+                String dateStr = filename.substring("audit-".length(), Math.min(filename.length(), "audit-yyyy-MM-dd".length()));
                 try {
                     LocalDateTime fileDate = LocalDateTime.parse(dateStr + " 00:00:00", dateFormatter);
                     if (fileDate.isBefore(cutoff)) {
                         file.delete();
+                        index.forgetDay(dateStr);
                         plugin.getLogger().info("Archivo de auditoría eliminado: " + filename);
                     }
                 } catch (Exception e) {
@@ -291,12 +333,17 @@ public class AuditLogger {
         private AuditSeverity severity;
         
         public AuditEntry(AuditCategory category, String playerName, String action, String details) {
+            this(category, playerName, action, details, LocalDateTime.now(), AuditSeverity.MEDIUM);
+        }
+        
+        private AuditEntry(AuditCategory category, String playerName, String action, String details,
+                           LocalDateTime timestamp, AuditSeverity severity) {
             this.category = category;
             this.playerName = playerName;
             this.action = action;
             this.details = details;
-            this.timestamp = LocalDateTime.now();
-            this.severity = AuditSeverity.MEDIUM;
+            this.timestamp = timestamp;
+            this.severity = severity;
         }
         
         public AuditCategory getCategory() { return category; }
@@ -309,5 +356,88 @@ public class AuditLogger {
         public void setSeverity(AuditSeverity severity) {
             this.severity = severity;
         }
+        
+        /**
+         * Serializa la entrada como una línea JSON
+         */
+        public JsonObject toJson() {
+            JsonObject json = new JsonObject();
+            json.addProperty("category", category.name());
+            json.addProperty("playerName", playerName);
+            json.addProperty("action", action);
+            json.addProperty("details", details);
+            json.addProperty("timestamp", timestamp.toString());
+            json.addProperty("severity", severity.name());
+            return json;
+        }
+        
+        /**
+         * Lee una entrada desde su línea JSON
+         */
+        public static AuditEntry fromJson(JsonObject json) {
+            return new AuditEntry(
+                AuditCategory.valueOf(json.get("category").getAsString()),
+                json.get("playerName").getAsString(),
+                json.get("action").getAsString(),
+                json.has("details") && !json.get("details").isJsonNull() ? json.get("details").getAsString() : null,
+                LocalDateTime.parse(json.get("timestamp").getAsString()),
+                json.has("severity") ? AuditSeverity.valueOf(json.get("severity").getAsString()) : AuditSeverity.MEDIUM
+            );
+        }
+        
+        /**
+         * Serialización en streaming con el mismo formato que {@link #toJson()}
+         */
+        public static class Adapter extends TypeAdapter<AuditEntry> {
+            @Override
+            public void write(JsonWriter out, AuditEntry entry) throws IOException {
+                if (entry == null) {
+                    out.nullValue();
+                    return;
+                }
+                out.beginObject();
+                out.name("category").value(entry.category.name());
+                out.name("playerName").value(entry.playerName);
+                out.name("action").value(entry.action);
+                out.name("details").value(entry.details);
+                out.name("timestamp").value(entry.timestamp.toString());
+                out.name("severity").value(entry.severity.name());
+                out.endObject();
+            }
+            
+            @Override
+            public AuditEntry read(JsonReader in) throws IOException {
+                AuditCategory category = null;
+                String playerName = null;
+                String action = null;
+                String details = null;
+                LocalDateTime timestamp = null;
+                AuditSeverity severity = AuditSeverity.MEDIUM;
+                
+                in.beginObject();
+                while (in.hasNext()) {
+                    String name = in.nextName();
+                    if (in.peek() == JsonToken.NULL) {
+                        in.nextNull();
+                        continue;
+                    }
+                    switch (name) {
+                        case "category" -> category = AuditCategory.valueOf(in.nextString());
+                        case "playerName" -> playerName = in.nextString();
+                        case "action" -> action = in.nextString();
+                        case "details" -> details = in.nextString();
+                        case "timestamp" -> timestamp = LocalDateTime.parse(in.nextString());
+                        case "severity" -> severity = AuditSeverity.valueOf(in.nextString());
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                
+                if (category == null || timestamp == null) {
+                    throw new IOException("Entrada de auditoría incompleta");
+                }
+                return new AuditEntry(category, playerName, action, details, timestamp, severity);
+            }
+        }
     }
 }
@@ -0,0 +1,198 @@
+package com.nightslayer.mmorpg.audit;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Escritor de solo-añadir para los segmentos de auditoría.
+ * Cada entrada es una línea JSON. Los segmentos se llaman audit-{fecha}.{n}.json, rotan
+ * al cambiar de día o al superar el tamaño máximo y, si está activado, se comprimen
+ * con gzip al cerrarse. Nunca se relee ni se reescribe un segmento.
+ */
+class AuditSegmentWriter {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final File auditDir;
+    private final long maxSegmentBytes;
+    private final boolean compressClosed;
+    private final Logger logger;
+    private final ByteBuffer buffer;
+    private FileChannel channel;
+    private File segmentFile;
+    private String segmentDate;
+    private int segmentNumber;
+    private long segmentSize;
+
+    AuditSegmentWriter(File auditDir, long maxSegmentBytes, boolean compressClosed, Logger logger) {
+        this.auditDir = auditDir;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.compressClosed = compressClosed;
+        this.logger = logger;
+        this.buffer = ByteBuffer.allocate(BUFFER_SIZE);
+    }
+
+    /**
+     * Añade una línea al segmento del día indicado, rotando si hace falta
+     * @return segmento en el que quedó la línea y su posición dentro de él (sin comprimir)
+     */
+    synchronized Position append(String date, byte[] line) throws IOException {
+        long pendingSize = segmentSize + buffer.position();
+        if (channel == null || !date.equals(segmentDate)
+                || (pendingSize > 0 && pendingSize + line.length > maxSegmentBytes)) {
+            roll(date);
+        }
+
+        Position position = new Position(segmentFile.getName(), segmentSize + buffer.position());
+        if (line.length > buffer.remaining()) {
+            drain();
+            if (line.length > buffer.capacity()) {
+                ByteBuffer large = ByteBuffer.wrap(line);
+                while (large.hasRemaining()) {
+                    segmentSize += channel.write(large);
+                }
+                return position;
+            }
+        }
+        buffer.put(line);
+        return position;
+    }
+
+    /**
+     * Escribe en disco lo acumulado en el buffer
+     */
+    synchronized void flush() throws IOException {
+        if (channel != null) {
+            drain();
+        }
+    }
+
+    /**
+     * Cierra el segmento activo
+     */
+    synchronized void close() throws IOException {
+        closeSegment();
+        segmentDate = null;
+    }
+
+    /**
+     * Posición de una línea añadida; segmento y posición se toman juntos para que una rotación
+     * no los separe
+     */
+    record Position(String segmentName, long offset) {
+    }
+
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            segmentSize += channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void roll(String date) throws IOException {
+        boolean sameDay = date.equals(segmentDate);
+        closeSegment();
+
+        if (sameDay) {
+            segmentNumber++;
+        } else {
+            compressStaleSegments(date);
+            segmentNumber = lastSegmentNumber(date);
+            File last = segmentFile(date, segmentNumber);
+            // Continuar el último segmento del día si sigue sin comprimir y tiene espacio
+            if (segmentNumber == 0 || !last.exists() || last.length() >= maxSegmentBytes) {
+                segmentNumber++;
+            }
+        }
+
+        segmentDate = date;
+        segmentFile = segmentFile(date, segmentNumber);
+        channel = FileChannel.open(segmentFile.toPath(),
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentSize = channel.size();
+    }
+
+    private void closeSegment() throws IOException {
+        if (channel == null) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            channel.close();
+            channel = null;
+        }
+        if (compressClosed) {
+            compress(segmentFile);
+        }
+    }
+
+    private File segmentFile(String date, int number) {
+        return new File(auditDir, "audit-" + date + "." + number + ".json");
+    }
+
+    /**
+     * Mayor número de segmento existente para una fecha (comprimido o no), 0 si no hay
+     */
+    private int lastSegmentNumber(String date) {
+        String prefix = "audit-" + date + ".";
+        String[] names = auditDir.list((dir, name) -> name.startsWith(prefix));
+        int last = 0;
+        if (names != null) {
+            for (String name : names) {
+                String rest = name.substring(prefix.length());
+                int dot = rest.indexOf('.');
+                if (dot <= 0) {
+                    continue;
+                }
+                try {
+                    last = Math.max(last, Integer.parseInt(rest.substring(0, dot)));
+                } catch (NumberFormatException ignored) {
+                    // Archivo antiguo audit-{fecha}.json
+                }
+            }
+        }
+        return last;
+    }
+
+    /**
+     * Comprime los segmentos de otros días que quedaron abiertos (p. ej. tras un cierre inesperado)
+     */
+    private void compressStaleSegments(String currentDate) {
+        if (!compressClosed) {
+            return;
+        }
+        File[] stale = auditDir.listFiles((dir, name) -> name.startsWith("audit-") && name.endsWith(".json")
+            && !name.startsWith("audit-" + currentDate + ".") && name.indexOf('.') < name.lastIndexOf('.'));
+        if (stale != null) {
+            for (File file : stale) {
+                compress(file);
+            }
+        }
+    }
+
+    private void compress(File file) {
+        File target = new File(file.getPath() + ".gz");
+        try (InputStream in = new FileInputStream(file);
+             OutputStream out = new GZIPOutputStream(new FileOutputStream(target))) {
+            in.transferTo(out);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Error comprimiendo segmento de auditoría " + file.getName(), e);
+            target.delete();
+            return;
+        }
+        if (!file.delete()) {
+            logger.warning("No se pudo borrar el segmento comprimido " + file.getName());
+        }
+    }
+}
@@ -1,23 +1,49 @@
 package com.nightslayer.mmorpg.bestiary;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
- * Bestiario de un jugador individual
+ * Bestiario de un jugador individual.
+ * Los datos se guardan en arrays primitivos indexados por {@link MobIndex};
+ * las entradas modificadas desde el último guardado se marcan como sucias.
  */
 public class Bestiary {
+    /** Flag devuelto por recordKill: el mob se descubrió con esta kill */
+    public static final int NEW_DISCOVERY = 1;
+    /** Flag devuelto por recordKill: el mob subió de tier con esta kill */
+    public static final int TIER_UP = 2;
+
+    private static final int INITIAL_CAPACITY = 16;
+
     private final UUID playerUUID;
-    private final Map<String, BestiaryEntry> entries;
+    private final MobIndex mobIndex;
+    private int[] kills;
+    private long[] firstKillMillis;
+    private long[] lastKillMillis;
+    private byte[] tiers;
+    private final BitSet present;
+    private final BitSet discovered;
+    private final BitSet dirty;
     private int totalDiscoveries;
     private int totalKills;
 
-    public Bestiary(UUID playerUUID) {
+    public Bestiary(UUID playerUUID, MobIndex mobIndex) {
         this.playerUUID = playerUUID;
-        this.entries = new HashMap<>();
+        this.mobIndex = mobIndex;
+        int capacity = Math.max(INITIAL_CAPACITY, mobIndex.size());
+        this.kills = new int[capacity];
+        this.firstKillMillis = new long[capacity];
+        this.lastKillMillis = new long[capacity];
+        this.tiers = new byte[capacity];
+        this.present = new BitSet();
+        this.discovered = new BitSet();
+        this.dirty = new BitSet();
         this.totalDiscoveries = 0;
         this.totalKills = 0;
     }
@@ -26,48 +52,86 @@ public class Bestiary {
      * Registra una kill de mob
      * @param mobId ID del mob matado
      * @param thresholds Array de thresholds para calcular tier
-     * @return true si es un nuevo descubrimiento
+     * @return combinación de {@link #NEW_DISCOVERY} y {@link #TIER_UP}
+     */
+    public int recordKill(String mobId, int[] thresholds) {
+        return recordKill(mobIndex.indexOf(mobId), thresholds);
+    }
+
+    /**
+     * Registra una kill de mob por índice
      */
-    public boolean recordKill(String mobId, int[] thresholds) {
-        BestiaryEntry entry = entries.computeIfAbsent(mobId, BestiaryEntry::new);
-        
-        boolean wasDiscovered = entry.isDiscovered();
-        entry.recordKill();
-        
-        boolean tierUp = entry.updateTier(thresholds);
-        
-        if (!wasDiscovered) {
+    public synchronized int recordKill(int index, int[] thresholds) {
+        ensureCapacity(index);
+        long now = System.currentTimeMillis();
+        int result = 0;
+
+        present.set(index);
+        kills[index]++;
+        totalKills++;
+
+        if (!discovered.get(index)) {
+            discovered.set(index);
+            firstKillMillis[index] = now;
             totalDiscoveries++;
+            result |= NEW_DISCOVERY;
         }
-        
-        totalKills++;
-        
-        return !wasDiscovered; // true si es nuevo descubrimiento
+        lastKillMillis[index] = now;
+
+        int newTier = BestiaryEntry.tierFor(kills[index], thresholds);
+        if (newTier > tiers[index]) {
+            tiers[index] = (byte) newTier;
+            result |= TIER_UP;
+        }
+
+        dirty.set(index);
+        return result;
     }
 
     /**
      * Obtiene la entrada de un mob específico
      */
     public BestiaryEntry getEntry(String mobId) {
-        return entries.get(mobId);
+        int index = mobIndex.find(mobId);
+        return index >= 0 ? entryAt(index) : null;
+    }
+
+    /**
+     * Obtiene el tier actual de un mob por índice
+     */
+    public synchronized int getTier(int index) {
+        return index < tiers.length ? tiers[index] : 0;
     }
 
     /**
      * Verifica si un mob ha sido descubierto
      */
-    public boolean isDiscovered(String mobId) {
-        BestiaryEntry entry = entries.get(mobId);
-        return entry != null && entry.isDiscovered();
+    public synchronized boolean isDiscovered(String mobId) {
+        int index = mobIndex.find(mobId);
+        return index >= 0 && discovered.get(index);
+    }
+
+    /**
+     * Verifica si todos los mobs de una máscara han sido descubiertos
+     */
+    public synchronized boolean hasDiscoveredAll(BitSet mask) {
+        for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+            if (!discovered.get(i)) {
+                return false;
+            }
+        }
+        return true;
     }
 
     /**
      * Obtiene lista de todos los mobs descubiertos
      */
-    public List<String> getDiscoveredMobs() {
-        return entries.values().stream()
-            .filter(BestiaryEntry::isDiscovered)
-            .map(BestiaryEntry::getMobId)
-            .collect(Collectors.toList());
+    public synchronized List<String> getDiscoveredMobs() {
+        List<String> mobs = new ArrayList<>(totalDiscoveries);
+        for (int i = discovered.nextSetBit(0); i >= 0; i = discovered.nextSetBit(i + 1)) {
+            mobs.add(mobIndex.mobIdAt(i));
+        }
+        return mobs;
     }
 
     /**
@@ -84,9 +148,9 @@ public class Bestiary {
     /**
      * Obtiene kills totales de un mob específico
      */
-    public int getKillsForMob(String mobId) {
-        BestiaryEntry entry = entries.get(mobId);
-        return entry != null ? entry.getKills() : 0;
+    public synchronized int getKillsForMob(String mobId) {
+        int index = mobIndex.find(mobId);
+        return index >= 0 && index < kills.length ? kills[index] : 0;
     }
 
     // Getters
@@ -94,8 +158,13 @@ public class Bestiary {
         return playerUUID;
     }
 
-    public Map<String, BestiaryEntry> getEntries() {
-        return new HashMap<>(entries);
+    public synchronized Map<String, BestiaryEntry> getEntries() {
+        Map<String, BestiaryEntry> entries = new HashMap<>();
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            BestiaryEntry entry = entryAt(i);
+            entries.put(entry.getMobId(), entry);
+        }
+        return entries;
     }
 
     public int getTotalDiscoveries() {
@@ -106,22 +175,75 @@ public class Bestiary {
         return totalKills;
     }
 
-    // Para cargar desde BD
-    public void addEntry(BestiaryEntry entry) {
-        entries.put(entry.getMobId(), entry);
-        if (entry.isDiscovered()) {
-            totalDiscoveries++;
+    public synchronized boolean isDirty() {
+        return !dirty.isEmpty();
+    }
+
+    /**
+     * Tamaño aproximado en memoria de los arrays por mob, en bytes
+     */
+    public synchronized long estimatedBytes() {
+        // int + 2 long + byte por mob, más las tres máscaras de bits
+        return 64L + kills.length * 21L + (present.size() + discovered.size() + dirty.size()) / 8;
+    }
+
+    // Para cargar desde BD (no marca la entrada como sucia)
+    public synchronized void addEntry(BestiaryEntry entry) {
+        int index = mobIndex.indexOf(entry.getMobId());
+        ensureCapacity(index);
+        present.set(index);
+        kills[index] = entry.getKills();
+        firstKillMillis[index] = entry.getFirstKillMillis();
+        lastKillMillis[index] = entry.getLastKillMillis();
+        tiers[index] = (byte) entry.getCurrentTier();
+        discovered.set(index, entry.isDiscovered());
+    }
+
+    public synchronized void recalculateTotals() {
+        totalDiscoveries = discovered.cardinality();
+        totalKills = 0;
+        for (int i = present.nextSetBit(0); i >= 0; i = present.nextSetBit(i + 1)) {
+            totalKills += kills[i];
         }
-        totalKills += entry.getKills();
     }
 
-    public void recalculateTotals() {
-        totalDiscoveries = (int) entries.values().stream()
-            .filter(BestiaryEntry::isDiscovered)
-            .count();
-        
-        totalKills = entries.values().stream()
-            .mapToInt(BestiaryEntry::getKills)
-            .sum();
+    /**
+     * Extrae las entradas modificadas desde el último guardado y limpia las marcas
+     */
+    public synchronized List<BestiaryEntry> drainDirtyEntries() {
+        List<BestiaryEntry> changed = new ArrayList<>(dirty.cardinality());
+        for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+            changed.add(entryAt(i));
+        }
+        dirty.clear();
+        return changed;
+    }
+
+    /**
+     * Vuelve a marcar como sucias entradas cuyo guardado falló
+     */
+    public synchronized void markDirty(List<BestiaryEntry> entries) {
+        for (BestiaryEntry entry : entries) {
+            dirty.set(mobIndex.indexOf(entry.getMobId()));
+        }
+    }
+
+    private synchronized BestiaryEntry entryAt(int index) {
+        if (!present.get(index)) {
+            return null;
+        }
+        return new BestiaryEntry(mobIndex.mobIdAt(index), kills[index], firstKillMillis[index],
+            lastKillMillis[index], tiers[index], discovered.get(index));
+    }
+
+    private void ensureCapacity(int index) {
+        if (index < kills.length) {
+            return;
+        }
+        int capacity = Math.max(index + 1, kills.length * 2);
+        kills = Arrays.copyOf(kills, capacity);
+        firstKillMillis = Arrays.copyOf(firstKillMillis, capacity);
+        lastKillMillis = Arrays.copyOf(lastKillMillis, capacity);
+        tiers = Arrays.copyOf(tiers, capacity);
     }
 }
@@ -1,6 +1,7 @@
 package com.nightslayer.mmorpg.bestiary;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 
 /**
@@ -12,14 +13,19 @@ public class BestiaryCategory {
     private final String description;
     private final List<String> mobIds;
     private final BestiaryReward completionReward;
+    private final BitSet mobMask;
 
     public BestiaryCategory(String id, String name, String description, 
-                           List<String> mobIds, BestiaryReward completionReward) {
+                           List<String> mobIds, BestiaryReward completionReward, MobIndex mobIndex) {
         this.id = id;
         this.name = name;
         this.description = description;
         this.mobIds = new ArrayList<>(mobIds);
         this.completionReward = completionReward;
+        this.mobMask = new BitSet();
+        for (String mobId : this.mobIds) {
+            mobMask.set(mobIndex.indexOf(mobId));
+        }
     }
 
     /**
@@ -70,6 +76,17 @@ public class BestiaryCategory {
         return new ArrayList<>(mobIds);
     }
 
+    /**
+     * Máscara precalculada con los índices de {@link MobIndex} de los mobs de la categoría
+     */
+    public BitSet getMobMask() {
+        return (BitSet) mobMask.clone();
+    }
+
+    BitSet mobMask() {
+        return mobMask;
+    }
+
     public BestiaryReward getCompletionReward() {
         return completionReward;
     }
@@ -1,50 +1,31 @@
 package com.nightslayer.mmorpg.bestiary;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
- * Representa una entrada individual en el bestiario de un jugador
+ * Vista inmutable de una entrada individual en el bestiario de un jugador.
+ * Las fechas se guardan como epoch millis (0 = sin registrar).
  */
 public class BestiaryEntry {
     private final String mobId;
-    private int kills;
-    private LocalDateTime firstKillDate;
-    private LocalDateTime lastKillDate;
-    private int currentTier;
-    private boolean discovered;
-
-    public BestiaryEntry(String mobId) {
-        this.mobId = mobId;
-        this.kills = 0;
-        this.currentTier = 0;
-        this.discovered = false;
-    }
-
-    public BestiaryEntry(String mobId, int kills, LocalDateTime firstKillDate, 
-                        LocalDateTime lastKillDate, int currentTier, boolean discovered) {
+    private final int kills;
+    private final long firstKillMillis;
+    private final long lastKillMillis;
+    private final int currentTier;
+    private final boolean discovered;
+
+    public BestiaryEntry(String mobId, int kills, long firstKillMillis,
+                        long lastKillMillis, int currentTier, boolean discovered) {
         this.mobId = mobId;
         this.kills = kills;
-        this.firstKillDate = firstKillDate;
-        this.lastKillDate = lastKillDate;
+        this.firstKillMillis = firstKillMillis;
+        this.lastKillMillis = lastKillMillis;
         this.currentTier = currentTier;
         this.discovered = discovered;
     }
 
-    /**
-     * Registra una nueva kill del mob
-     */
-    public void recordKill() {
-        kills++;
-        LocalDateTime now = LocalDateTime.now();
-        
-        if (!discovered) {
-            discovered = true;
-            firstKillDate = now;
-        }
-        
-        lastKillDate = now;
-    }
-
     /**
      * Calcula el progreso porcentual del tier actual
      * @param thresholds Array de kills requeridos por tier
@@ -54,41 +35,39 @@ public class BestiaryEntry {
         if (currentTier >= thresholds.length - 1) {
             return 100; // Tier máximo alcanzado
         }
-        
+
         int currentThreshold = thresholds[currentTier];
         int nextThreshold = thresholds[currentTier + 1];
-        
+
         if (kills >= nextThreshold) {
             return 100;
         }
-        
+
         int killsInTier = kills - currentThreshold;
         int killsNeeded = nextThreshold - currentThreshold;
-        
+
         return (int) ((killsInTier / (double) killsNeeded) * 100);
     }
 
     /**
-     * Actualiza el tier basado en los kills actuales
+     * Calcula el tier correspondiente a un número de kills
      * @param thresholds Array de kills requeridos por tier
-     * @return true si subió de tier
      */
-    public boolean updateTier(int[] thresholds) {
-        int newTier = 0;
-        
+    public static int tierFor(int kills, int[] thresholds) {
         for (int i = thresholds.length - 1; i >= 0; i--) {
             if (kills >= thresholds[i]) {
-                newTier = i;
-                break;
+                return i;
             }
         }
-        
-        if (newTier > currentTier) {
-            currentTier = newTier;
-            return true;
-        }
-        
-        return false;
+        return 0;
+    }
+
+    static LocalDateTime toDateTime(long millis) {
+        return millis > 0 ? LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault()) : null;
+    }
+
+    static long toMillis(LocalDateTime dateTime) {
+        return dateTime != null ? dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : 0L;
     }
 
     // Getters
@@ -100,12 +79,20 @@ public class BestiaryEntry {
         return kills;
     }
 
+    public long getFirstKillMillis() {
+        return firstKillMillis;
+    }
+
+    public long getLastKillMillis() {
+        return lastKillMillis;
+    }
+
     public LocalDateTime getFirstKillDate() {
-        return firstKillDate;
+        return toDateTime(firstKillMillis);
     }
 
     public LocalDateTime getLastKillDate() {
-        return lastKillDate;
+        return toDateTime(lastKillMillis);
     }
 
     public int getCurrentTier() {
@@ -115,25 +102,4 @@ public class BestiaryEntry {
     public boolean isDiscovered() {
         return discovered;
     }
-
-    // Setters (para cargar desde BD)
-    public void setKills(int kills) {
-        this.kills = kills;
-    }
-
-    public void setFirstKillDate(LocalDateTime firstKillDate) {
-        this.firstKillDate = firstKillDate;
-    }
-
-    public void setLastKillDate(LocalDateTime lastKillDate) {
-        this.lastKillDate = lastKillDate;
-    }
-
-    public void setCurrentTier(int currentTier) {
-        this.currentTier = currentTier;
-    }
-
-    public void setDiscovered(boolean discovered) {
-        this.discovered = discovered;
-    }
 }
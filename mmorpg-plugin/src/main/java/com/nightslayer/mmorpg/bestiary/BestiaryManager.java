@@ -1,19 +1,18 @@
 package com.nightslayer.mmorpg.bestiary;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonObject;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.*;
 import java.time.LocalDateTime;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 
 /**
@@ -22,24 +21,28 @@ import java.util.logging.Level;
 public class BestiaryManager {
     private final MMORPGPlugin plugin;
     private final Gson gson;
-    private final Map<UUID, Bestiary> bestiaries;
+    private final PlayerCache<Bestiary> bestiaries;
     private final Map<String, BestiaryCategory> categories;
     private final Map<String, BestiaryReward> tierRewards;
+    private final MobIndex mobIndex;
+    private BestiaryCategory[][] categoriesByMob;
     private int[] progressThresholds;
     private boolean enabled;
 
     public BestiaryManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder()
-            .setPrettyPrinting()
-            .create();
-        this.bestiaries = new ConcurrentHashMap<>();
+        this.gson = GsonRegistry.pretty();
+        this.bestiaries = new PlayerCache<>("bestiary", (uuid, bestiary) -> flushDirty(Collections.singletonList(bestiary)) >= 0,
+            Bestiary::estimatedBytes);
         this.categories = new HashMap<>();
         this.tierRewards = new HashMap<>();
+        this.mobIndex = new MobIndex();
+        this.categoriesByMob = new BestiaryCategory[0][];
         this.progressThresholds = new int[]{0, 25, 50, 75, 100, 500, 1000};
         this.enabled = true;
         
         loadConfiguration();
+        indexCategories();
         createDatabaseTable();
     }
 
@@ -54,8 +57,8 @@ public class BestiaryManager {
             return;
         }
 
-        try (FileReader reader = new FileReader(configFile)) {
-            JsonObject config = gson.fromJson(reader, JsonObject.class);
+        try {
+            JsonObject config = plugin.getConfigCache().loadObject(configFile);
             
             // Cargar thresholds
             if (config.has("progressThresholds")) {
@@ -85,7 +88,7 @@ public class BestiaryManager {
                         reward = parseReward(catId + "_completion", rewardData);
                     }
                     
-                    categories.put(catId, new BestiaryCategory(catId, name, description, mobIds, reward));
+                    categories.put(catId, new BestiaryCategory(catId, name, description, mobIds, reward, mobIndex));
                 });
             }
 
@@ -113,6 +116,23 @@ public class BestiaryManager {
         }
     }
 
+    /**
+     * Precalcula qué categorías contienen cada mob, indexado por {@link MobIndex}
+     */
+    private void indexCategories() {
+        Map<Integer, List<BestiaryCategory>> byMob = new HashMap<>();
+        for (BestiaryCategory category : categories.values()) {
+            BitSet mask = category.mobMask();
+            for (int i = mask.nextSetBit(0); i >= 0; i = mask.nextSetBit(i + 1)) {
+                byMob.computeIfAbsent(i, k -> new ArrayList<>()).add(category);
+            }
+        }
+
+        BestiaryCategory[][] index = new BestiaryCategory[mobIndex.size()][];
+        byMob.forEach((mob, list) -> index[mob] = list.toArray(new BestiaryCategory[0]));
+        categoriesByMob = index;
+    }
+
     /**
      * Parsea una recompensa desde JSON
      */
@@ -218,7 +238,16 @@ public class BestiaryManager {
      * Carga el bestiario de un jugador desde la BD
      */
     public Bestiary loadBestiary(UUID playerUUID) {
-        Bestiary bestiary = new Bestiary(playerUUID);
+        Bestiary bestiary = readBestiary(playerUUID);
+        bestiaries.put(playerUUID, bestiary);
+        return bestiary;
+    }
+
+    /**
+     * Lee el bestiario de un jugador desde la BD sin registrarlo en memoria
+     */
+    private Bestiary readBestiary(UUID playerUUID) {
+        Bestiary bestiary = new Bestiary(playerUUID, mobIndex);
         
         String query = "SELECT * FROM player_bestiary WHERE player_uuid = ?";
         
@@ -236,17 +265,16 @@ public class BestiaryManager {
                 int tier = rs.getInt("current_tier");
                 boolean discovered = rs.getBoolean("discovered");
                 
-                LocalDateTime firstKill = firstKillStr != null ? 
-                    LocalDateTime.parse(firstKillStr) : null;
-                LocalDateTime lastKill = lastKillStr != null ? 
-                    LocalDateTime.parse(lastKillStr) : null;
+                long firstKill = firstKillStr != null ? 
+                    BestiaryEntry.toMillis(LocalDateTime.parse(firstKillStr)) : 0L;
+                long lastKill = lastKillStr != null ? 
+                    BestiaryEntry.toMillis(LocalDateTime.parse(lastKillStr)) : 0L;
                 
                 BestiaryEntry entry = new BestiaryEntry(mobId, kills, firstKill, lastKill, tier, discovered);
                 bestiary.addEntry(entry);
             }
             
             bestiary.recalculateTotals();
-            bestiaries.put(playerUUID, bestiary);
             
         } catch (SQLException e) {
             plugin.getLogger().log(Level.SEVERE, "Error al cargar bestiario de " + playerUUID, e);
@@ -256,37 +284,73 @@ public class BestiaryManager {
     }
 
     /**
-     * Guarda el bestiario de un jugador en la BD
+     * Guarda en la BD las entradas del bestiario de un jugador modificadas desde el último guardado
      */
     public void saveBestiary(UUID playerUUID) {
         Bestiary bestiary = bestiaries.get(playerUUID);
-        if (bestiary == null) return;
+        if (bestiary == null || !bestiary.isDirty()) return;
+
+        flushDirty(Collections.singletonList(bestiary));
+    }
+
+    /**
+     * Escribe las entradas sucias de varios bestiarios en un único lote transaccional
+     * @return número de filas escritas, o -1 si falló (las entradas vuelven a quedar sucias)
+     */
+    private int flushDirty(Collection<Bestiary> toFlush) {
+        Map<Bestiary, List<BestiaryEntry>> pending = new LinkedHashMap<>();
+        for (Bestiary bestiary : toFlush) {
+            List<BestiaryEntry> changed = bestiary.drainDirtyEntries();
+            if (!changed.isEmpty()) {
+                pending.put(bestiary, changed);
+            }
+        }
+        if (pending.isEmpty()) return 0;
 
-        String upsert = "INSERT OR REPLACE INTO player_bestiary " +
+        String upsert = "INSERT INTO player_bestiary " +
             "(player_uuid, mob_id, kills, first_kill_date, last_kill_date, current_tier, discovered) " +
-            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+            "VALUES (?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT(player_uuid, mob_id) DO UPDATE SET " +
+            "kills = excluded.kills, first_kill_date = excluded.first_kill_date, " +
+            "last_kill_date = excluded.last_kill_date, current_tier = excluded.current_tier, " +
+            "discovered = excluded.discovered";
 
-        try (Connection conn = plugin.getDatabaseManager().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(upsert)) {
-            
-            for (BestiaryEntry entry : bestiary.getEntries().values()) {
-                stmt.setString(1, playerUUID.toString());
-                stmt.setString(2, entry.getMobId());
-                stmt.setInt(3, entry.getKills());
-                stmt.setString(4, entry.getFirstKillDate() != null ? 
-                    entry.getFirstKillDate().toString() : null);
-                stmt.setString(5, entry.getLastKillDate() != null ? 
-                    entry.getLastKillDate().toString() : null);
-                stmt.setInt(6, entry.getCurrentTier());
-                stmt.setBoolean(7, entry.isDiscovered());
-                stmt.addBatch();
+        Connection conn = plugin.getDatabaseManager().getConnection();
+        int rows = 0;
+        try {
+            boolean autoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement stmt = conn.prepareStatement(upsert)) {
+                for (Map.Entry<Bestiary, List<BestiaryEntry>> e : pending.entrySet()) {
+                    String uuid = e.getKey().getPlayerUUID().toString();
+                    for (BestiaryEntry entry : e.getValue()) {
+                        LocalDateTime firstKill = entry.getFirstKillDate();
+                        LocalDateTime lastKill = entry.getLastKillDate();
+                        stmt.setString(1, uuid);
+                        stmt.setString(2, entry.getMobId());
+                        stmt.setInt(3, entry.getKills());
+                        stmt.setString(4, firstKill != null ? firstKill.toString() : null);
+                        stmt.setString(5, lastKill != null ? lastKill.toString() : null);
+                        stmt.setInt(6, entry.getCurrentTier());
+                        stmt.setBoolean(7, entry.isDiscovered());
+                        stmt.addBatch();
+                        rows++;
+                    }
+                }
+                stmt.executeBatch();
+                conn.commit();
+            } catch (SQLException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(autoCommit);
             }
-            
-            stmt.executeBatch();
-            
         } catch (SQLException e) {
-            plugin.getLogger().log(Level.SEVERE, "Error al guardar bestiario de " + playerUUID, e);
+            pending.forEach(Bestiary::markDirty);
+            plugin.getLogger().log(Level.SEVERE, "Error al guardar bestiarios (" + pending.size() + " jugadores)", e);
+            return -1;
         }
+        return rows;
     }
 
     /**
@@ -295,23 +359,20 @@ public class BestiaryManager {
     public void recordMobKill(Player player, String mobId) {
         if (!enabled) return;
 
-        UUID uuid = player.getUniqueId();
-        Bestiary bestiary = bestiaries.computeIfAbsent(uuid, this::loadBestiary);
+        Bestiary bestiary = getBestiary(player.getUniqueId());
+        int index = mobIndex.indexOf(mobId);
         
-        boolean isNewDiscovery = bestiary.recordKill(mobId, progressThresholds);
+        int result = bestiary.recordKill(index, progressThresholds);
         
-        if (isNewDiscovery) {
-            handleNewDiscovery(player, mobId);
+        if ((result & Bestiary.TIER_UP) != 0) {
+            handleTierUp(player, mobId, bestiary.getTier(index));
         }
         
-        // Verificar tier up
-        BestiaryEntry entry = bestiary.getEntry(mobId);
-        if (entry != null && entry.updateTier(progressThresholds)) {
-            handleTierUp(player, mobId, entry.getCurrentTier());
+        // Una categoría solo puede completarse al descubrir uno de sus mobs
+        if ((result & Bestiary.NEW_DISCOVERY) != 0) {
+            handleNewDiscovery(player, mobId);
+            checkCategoryCompletion(player, bestiary, index);
         }
-        
-        // Verificar completado de categoría
-        checkCategoryCompletion(player, mobId);
     }
 
     /**
@@ -341,15 +402,12 @@ public class BestiaryManager {
     /**
      * Verifica si se completó una categoría
      */
-    private void checkCategoryCompletion(Player player, String mobId) {
-        UUID uuid = player.getUniqueId();
-        Bestiary bestiary = bestiaries.get(uuid);
-        if (bestiary == null) return;
+    private void checkCategoryCompletion(Player player, Bestiary bestiary, int mobIndex) {
+        BestiaryCategory[][] byMob = categoriesByMob;
+        if (mobIndex >= byMob.length || byMob[mobIndex] == null) return;
 
-        for (BestiaryCategory category : categories.values()) {
-            if (category.containsMob(mobId) && 
-                category.isCompleted(bestiary.getDiscoveredMobs())) {
-                
+        for (BestiaryCategory category : byMob[mobIndex]) {
+            if (bestiary.hasDiscoveredAll(category.mobMask())) {
                 grantCategoryReward(player, category);
             }
         }
@@ -379,15 +437,22 @@ public class BestiaryManager {
      * Obtiene el bestiario de un jugador
      */
     public Bestiary getBestiary(UUID playerUUID) {
-        return bestiaries.computeIfAbsent(playerUUID, this::loadBestiary);
+        return bestiaries.computeIfAbsent(playerUUID, this::readBestiary);
+    }
+
+    /**
+     * Caché de bestiarios cargados en memoria
+     */
+    public PlayerCache<Bestiary> getPlayerCache() {
+        return bestiaries;
     }
 
     /**
-     * Guarda todos los bestiarios
+     * Guarda las entradas modificadas de todos los bestiarios en un único lote
      */
     public void saveAll() {
-        bestiaries.keySet().forEach(this::saveBestiary);
-        plugin.getLogger().info("Bestiarios guardados: " + bestiaries.size());
+        int rows = Math.max(0, flushDirty(bestiaries.values()));
+        plugin.getLogger().info("Bestiarios guardados: " + bestiaries.size() + " (" + rows + " entradas modificadas)");
     }
 
     // Getters
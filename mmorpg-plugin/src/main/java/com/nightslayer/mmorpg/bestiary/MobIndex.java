@@ -0,0 +1,64 @@
+package com.nightslayer.mmorpg.bestiary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Internado de IDs de mob a índices enteros compartidos por todos los bestiarios.
+ * Los índices son estables mientras el plugin esté activo y nunca se reutilizan.
+ */
+public class MobIndex {
+    private final Map<String, Integer> indices;
+    private final List<String> mobIds;
+
+    public MobIndex() {
+        this.indices = new ConcurrentHashMap<>();
+        this.mobIds = new ArrayList<>();
+    }
+
+    /**
+     * Obtiene el índice de un mob, registrándolo si es la primera vez que se ve
+     */
+    public int indexOf(String mobId) {
+        Integer index = indices.get(mobId);
+        if (index != null) {
+            return index;
+        }
+
+        synchronized (mobIds) {
+            index = indices.get(mobId);
+            if (index == null) {
+                index = mobIds.size();
+                mobIds.add(mobId);
+                indices.put(mobId, index);
+            }
+            return index;
+        }
+    }
+
+    /**
+     * Obtiene el índice de un mob sin registrarlo
+     * @return índice o -1 si el mob nunca se ha visto
+     */
+    public int find(String mobId) {
+        Integer index = indices.get(mobId);
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Obtiene el ID de mob asociado a un índice
+     */
+    public String mobIdAt(int index) {
+        synchronized (mobIds) {
+            return mobIds.get(index);
+        }
+    }
+
+    public int size() {
+        synchronized (mobIds) {
+            return mobIds.size();
+        }
+    }
+}
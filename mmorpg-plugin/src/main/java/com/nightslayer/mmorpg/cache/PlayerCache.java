@@ -0,0 +1,190 @@
+package com.nightslayer.mmorpg.cache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToLongFunction;
+
+/**
+ * Caché de datos en memoria por jugador.
+ * Cada entrada recuerda su último acceso para que {@link PlayerCacheRegistry} pueda
+ * guardarla y descartarla al desconectarse el jugador o al superar los límites de
+ * tamaño o inactividad. Antes de descartar una entrada se llama a su función de guardado,
+ * fuera de las operaciones del mapa para no bloquear a otros jugadores mientras escribe.
+ */
+public class PlayerCache<V> {
+    /** Sobrecoste aproximado de cada entrada del mapa (nodo, UUID y envoltorio) */
+    private static final long ENTRY_OVERHEAD_BYTES = 112L;
+
+    private final String name;
+    private final Map<UUID, Node<V>> entries;
+    private final BiPredicate<UUID, V> flusher;
+    private final ToLongFunction<V> sizeEstimator;
+
+    /**
+     * @param name nombre mostrado en el informe de memoria
+     * @param flusher guarda la entrada antes de descartarla y devuelve false si no pudo, o null si ya se guarda en cada cambio
+     * @param sizeEstimator tamaño aproximado en bytes de un valor
+     */
+    public PlayerCache(String name, BiPredicate<UUID, V> flusher, ToLongFunction<V> sizeEstimator) {
+        this.name = name;
+        this.entries = new ConcurrentHashMap<>();
+        this.flusher = flusher;
+        this.sizeEstimator = sizeEstimator;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public V get(UUID playerId) {
+        Node<V> node = entries.get(playerId);
+        if (node == null) {
+            return null;
+        }
+        node.touch();
+        return node.value;
+    }
+
+    public V getOrDefault(UUID playerId, V defaultValue) {
+        V value = get(playerId);
+        return value != null ? value : defaultValue;
+    }
+
+    /**
+     * Obtiene la entrada de un jugador, cargándola si no está en memoria
+     */
+    public V computeIfAbsent(UUID playerId, Function<UUID, ? extends V> loader) {
+        Node<V> node = entries.computeIfAbsent(playerId, id -> {
+            V value = loader.apply(id);
+            return value != null ? new Node<>(value) : null;
+        });
+        if (node == null) {
+            return null;
+        }
+        node.touch();
+        return node.value;
+    }
+
+    public V put(UUID playerId, V value) {
+        Node<V> previous = entries.put(playerId, new Node<>(value));
+        return previous != null ? previous.value : null;
+    }
+
+    public boolean containsKey(UUID playerId) {
+        return entries.containsKey(playerId);
+    }
+
+    /**
+     * Copia de los valores en memoria (no cuenta como acceso)
+     */
+    public Collection<V> values() {
+        List<V> values = new ArrayList<>(entries.size());
+        for (Node<V> node : entries.values()) {
+            values.add(node.value);
+        }
+        return values;
+    }
+
+    public void forEach(BiConsumer<UUID, V> action) {
+        entries.forEach((playerId, node) -> action.accept(playerId, node.value));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    /**
+     * Guarda y descarta la entrada de un jugador. La entrada se saca del mapa antes de guardarla;
+     * si el guardado falla (devuelve false o lanza una excepción) se vuelve a meter, salvo que
+     * entretanto se haya cargado otra para ese jugador, y la excepción se propaga.
+     * @return true si se descartó
+     */
+    public boolean evict(UUID playerId) {
+        Node<V> node = entries.remove(playerId);
+        if (node == null) {
+            return false;
+        }
+        if (flusher == null) {
+            return true;
+        }
+
+        boolean saved = false;
+        try {
+            saved = flusher.test(playerId, node.value);
+        } finally {
+            if (!saved) {
+                entries.putIfAbsent(playerId, node);
+            }
+        }
+        return saved;
+    }
+
+    /**
+     * Jugadores cuya entrada no se usa desde antes de {@code cutoff}, entre los aceptados por el filtro
+     */
+    List<UUID> idleSince(long cutoff, Predicate<UUID> filter) {
+        List<UUID> idle = new ArrayList<>();
+        entries.forEach((playerId, node) -> {
+            if (node.lastAccess < cutoff && filter.test(playerId)) {
+                idle.add(playerId);
+            }
+        });
+        return idle;
+    }
+
+    /**
+     * Jugadores aceptados por el filtro, del acceso más antiguo al más reciente
+     */
+    List<UUID> leastRecentlyUsed(Predicate<UUID> filter) {
+        List<Map.Entry<UUID, Long>> candidates = new ArrayList<>();
+        entries.forEach((playerId, node) -> {
+            if (filter.test(playerId)) {
+                candidates.add(Map.entry(playerId, node.lastAccess));
+            }
+        });
+        candidates.sort(Map.Entry.comparingByValue());
+
+        List<UUID> ordered = new ArrayList<>(candidates.size());
+        for (Map.Entry<UUID, Long> candidate : candidates) {
+            ordered.add(candidate.getKey());
+        }
+        return ordered;
+    }
+
+    /**
+     * Tamaño aproximado en memoria de todas las entradas, en bytes
+     */
+    public long estimatedBytes() {
+        long total = 0L;
+        for (Node<V> node : entries.values()) {
+            total += ENTRY_OVERHEAD_BYTES + sizeEstimator.applyAsLong(node.value);
+        }
+        return total;
+    }
+
+    private static final class Node<V> {
+        private final V value;
+        private volatile long lastAccess;
+
+        private Node(V value) {
+            this.value = value;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package com.nightslayer.mmorpg.cache;
+
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+
+/**
+ * Registro de las cachés por jugador de todos los gestores.
+ * Guarda y descarta los datos de un jugador al desconectarse y, periódicamente,
+ * descarta las entradas de jugadores desconectados que superan el tiempo de
+ * inactividad o el número máximo de entradas por caché.
+ */
+public class PlayerCacheRegistry implements Listener {
+    private final Plugin plugin;
+    private final List<PlayerCache<?>> caches;
+    private final int maxEntries;
+    private final long maxIdleMillis;
+    private BukkitTask sweepTask;
+
+    public PlayerCacheRegistry(Plugin plugin) {
+        this.plugin = plugin;
+        this.caches = new CopyOnWriteArrayList<>();
+        this.maxEntries = Math.max(0, plugin.getConfig().getInt("player-cache.max-entries", 500));
+        this.maxIdleMillis = Math.max(0L, plugin.getConfig().getLong("player-cache.idle-minutes", 15)) * 60_000L;
+
+        if (maxEntries > 0 || maxIdleMillis > 0) {
+            long interval = Math.max(1L, plugin.getConfig().getLong("player-cache.sweep-interval", 60)) * 20L;
+            sweepTask = Bukkit.getScheduler().runTaskTimer(plugin, this::sweep, interval, interval);
+        }
+    }
+
+    /**
+     * Registra una caché para que se incluya en la expulsión y en el informe de memoria
+     */
+    public void register(PlayerCache<?> cache) {
+        caches.add(cache);
+    }
+
+    public List<PlayerCache<?>> getCaches() {
+        return new ArrayList<>(caches);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        evictPlayer(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Guarda y descarta los datos de un jugador en todas las cachés
+     */
+    public void evictPlayer(UUID playerId) {
+        for (PlayerCache<?> cache : caches) {
+            evict(cache, playerId);
+        }
+    }
+
+    /**
+     * Aplica los límites de inactividad y tamaño. Nunca descarta jugadores conectados.
+     */
+    private void sweep() {
+        Predicate<UUID> offline = playerId -> Bukkit.getPlayer(playerId) == null;
+        long cutoff = System.currentTimeMillis() - maxIdleMillis;
+        int evicted = 0;
+
+        for (PlayerCache<?> cache : caches) {
+            if (maxIdleMillis > 0) {
+                for (UUID playerId : cache.idleSince(cutoff, offline)) {
+                    if (evict(cache, playerId)) {
+                        evicted++;
+                    }
+                }
+            }
+
+            if (maxEntries > 0 && cache.size() > maxEntries) {
+                for (UUID playerId : cache.leastRecentlyUsed(offline)) {
+                    if (cache.size() <= maxEntries) {
+                        break;
+                    }
+                    if (evict(cache, playerId)) {
+                        evicted++;
+                    }
+                }
+            }
+        }
+
+        if (evicted > 0 && plugin.getConfig().getBoolean("plugin.debug", false)) {
+            plugin.getLogger().info("Cachés de jugadores: " + evicted + " entradas descartadas");
+        }
+    }
+
+    private boolean evict(PlayerCache<?> cache, UUID playerId) {
+        try {
+            return cache.evict(playerId);
+        } catch (RuntimeException e) {
+            plugin.getLogger().log(Level.WARNING, "Error guardando caché " + cache.getName() + " de " + playerId, e);
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        if (sweepTask != null) {
+            sweepTask.cancel();
+            sweepTask = null;
+        }
+    }
+}
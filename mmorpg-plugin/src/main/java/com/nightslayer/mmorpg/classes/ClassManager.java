@@ -1,10 +1,10 @@
 package com.nightslayer.mmorpg.classes;
 
 import com.google.gson.Gson;
-import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.Plugin;
-import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
 import java.io.FileReader;
@@ -16,16 +16,17 @@ import java.util.*;
  */
 public class ClassManager {
     private final Plugin plugin;
-    private final Map<UUID, PlayerClass> playerClasses;
+    private final PlayerCache<PlayerClass> playerClasses;
     private final Map<String, ClassAbility> abilities;
     private final Gson gson;
     private final File dataFolder;
     
     public ClassManager(Plugin plugin) {
         this.plugin = plugin;
-        this.playerClasses = new HashMap<>();
+        this.playerClasses = new PlayerCache<>("classes", (uuid, playerClass) -> savePlayerClass(playerClass),
+            playerClass -> 256L);
         this.abilities = new HashMap<>();
-        this.gson = new Gson();
+        this.gson = GsonRegistry.compact();
         this.dataFolder = new File(plugin.getDataFolder(), "classes");
         
         if (!dataFolder.exists()) {
@@ -33,7 +34,6 @@ public class ClassManager {
         }
         
         registerDefaultAbilities();
-        startManaRegeneration();
     }
     
     /**
@@ -214,8 +214,7 @@ public class ClassManager {
         }
         
         try (FileReader reader = new FileReader(file)) {
-            JsonObject json = gson.fromJson(reader, JsonObject.class);
-            return PlayerClass.fromJson(json);
+            return gson.fromJson(reader, PlayerClass.class);
         } catch (Exception e) {
             plugin.getLogger().warning("Error al cargar clase de jugador " + uuid + ": " + e.getMessage());
             return null;
@@ -224,17 +223,27 @@ public class ClassManager {
     
     /**
      * Guarda la clase de un jugador
+     * @return false si no se pudo escribir
      */
-    public void savePlayerClass(PlayerClass playerClass) {
+    public boolean savePlayerClass(PlayerClass playerClass) {
         File file = new File(dataFolder, playerClass.getPlayerUUID().toString() + ".json");
         
         try (FileWriter writer = new FileWriter(file)) {
-            gson.toJson(playerClass.toJson(), writer);
+            gson.toJson(playerClass, PlayerClass.class, writer);
+            return true;
         } catch (Exception e) {
             plugin.getLogger().warning("Error al guardar clase de jugador " + playerClass.getPlayerUUID() + ": " + e.getMessage());
+            return false;
         }
     }
     
+    /**
+     * Caché de clases de jugadores cargadas en memoria
+     */
+    public PlayerCache<PlayerClass> getPlayerCache() {
+        return playerClasses;
+    }
+    
     /**
      * Guarda todas las clases de jugadores
      */
@@ -244,24 +253,6 @@ public class ClassManager {
         }
     }
     
-    /**
-     * Inicia la regeneración automática de maná
-     */
-    private void startManaRegeneration() {
-        new BukkitRunnable() {
-            @Override
-            public void run() {
-                for (PlayerClass playerClass : playerClasses.values()) {
-                    if (playerClass.getClassType() != ClassType.NONE) {
-                        // Regenerar 5% del maná máximo cada segundo
-                        int regenAmount = Math.max(1, playerClass.getMaxMana() / 20);
-                        playerClass.regenerateMana(regenAmount);
-                    }
-                }
-            }
-        }.runTaskTimer(plugin, 20L, 20L); // Cada segundo (20 ticks)
-    }
-    
     /**
      * Usa una habilidad
      */
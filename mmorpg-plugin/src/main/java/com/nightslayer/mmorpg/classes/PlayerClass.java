@@ -1,21 +1,30 @@
 package com.nightslayer.mmorpg.classes;
 
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 import org.bukkit.entity.Player;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 /**
- * Representa la clase y progresión de un jugador
+ * Representa la clase y progresión de un jugador.
+ * El maná se regenera de forma perezosa: se guarda el valor y el instante de la última
+ * actualización, y el valor actual se calcula al leerlo.
  */
 public class PlayerClass {
+    private static final long REGEN_INTERVAL_MS = 1000L;
+    
     private final UUID playerUUID;
     private ClassType classType;
     private int level;
     private int experience;
     private int mana;
+    private long manaUpdatedAt;
     private int maxMana;
     private final Map<String, Long> abilityCooldowns;
     private final Map<String, Integer> skillLevels;
@@ -26,6 +35,7 @@ public class PlayerClass {
         this.level = 1;
         this.experience = 0;
         this.mana = 100;
+        this.manaUpdatedAt = System.currentTimeMillis();
         this.maxMana = 100;
         this.abilityCooldowns = new HashMap<>();
         this.skillLevels = new HashMap<>();
@@ -74,7 +84,8 @@ public class PlayerClass {
         return 100 * level; // 100 XP por nivel
     }
     
-    public int getMana() {
+    public synchronized int getMana() {
+        settleMana(System.currentTimeMillis());
         return mana;
     }
     
@@ -82,33 +93,67 @@ public class PlayerClass {
         return maxMana;
     }
     
-    public void setMana(int mana) {
+    /**
+     * Maná regenerado por segundo (5% del máximo, mínimo 1)
+     */
+    public int getManaRegenPerSecond() {
+        if (classType == ClassType.NONE) {
+            return 0;
+        }
+        return Math.max(1, maxMana / 20);
+    }
+    
+    public synchronized void setMana(int mana) {
         this.mana = Math.min(mana, this.maxMana);
+        this.manaUpdatedAt = System.currentTimeMillis();
     }
     
-    public void consumeMana(int amount) {
+    public synchronized void consumeMana(int amount) {
+        // Con el maná lleno settleMana reinicia el reloj, así la regeneración cuenta desde el consumo
+        settleMana(System.currentTimeMillis());
         this.mana = Math.max(0, this.mana - amount);
     }
     
-    public void regenerateMana(int amount) {
+    public synchronized void regenerateMana(int amount) {
+        settleMana(System.currentTimeMillis());
         this.mana = Math.min(this.maxMana, this.mana + amount);
     }
     
-    public boolean isAbilityOnCooldown(String abilityId) {
-        Long cooldownEnd = abilityCooldowns.get(abilityId);
-        if (cooldownEnd == null) {
-            return false;
+    /**
+     * Aplica la regeneración acumulada desde la última actualización, en pasos de un
+     * segundo completo. El resto de tiempo se conserva para la siguiente lectura.
+     */
+    private void settleMana(long now) {
+        int regen = getManaRegenPerSecond();
+        if (mana >= maxMana || regen == 0) {
+            manaUpdatedAt = now;
+            return;
         }
         
-        if (System.currentTimeMillis() >= cooldownEnd) {
-            abilityCooldowns.remove(abilityId);
-            return false;
+        long steps = (now - manaUpdatedAt) / REGEN_INTERVAL_MS;
+        if (steps <= 0) {
+            return;
         }
         
-        return true;
+        long regenerated = mana + steps * regen;
+        if (regenerated >= maxMana) {
+            mana = maxMana;
+            manaUpdatedAt = now;
+        } else {
+            mana = (int) regenerated;
+            manaUpdatedAt += steps * REGEN_INTERVAL_MS;
+        }
+    }
+    
+    public boolean isAbilityOnCooldown(String abilityId) {
+        Long cooldownEnd = abilityCooldowns.get(abilityId);
+        return cooldownEnd != null && System.currentTimeMillis() < cooldownEnd;
     }
     
     public void setAbilityCooldown(String abilityId, long cooldownEnd) {
+        long now = System.currentTimeMillis();
+        // Los cooldowns caducados se descartan al escribir, no en cada consulta
+        abilityCooldowns.values().removeIf(end -> end <= now);
         abilityCooldowns.put(abilityId, cooldownEnd);
     }
     
@@ -119,7 +164,7 @@ public class PlayerClass {
         }
         
         long remaining = cooldownEnd - System.currentTimeMillis();
-        return Math.max(0, remaining / 1000); // Convertir a segundos
+        return Math.max(0, (remaining + 999) / 1000); // Convertir a segundos, redondeando hacia arriba
     }
     
     public int getSkillLevel(String skillId) {
@@ -130,7 +175,8 @@ public class PlayerClass {
         skillLevels.put(skillId, level);
     }
     
-    private void updateStatsForClass() {
+    private synchronized void updateStatsForClass() {
+        settleMana(System.currentTimeMillis());
         if (classType == ClassType.NONE) {
             this.maxMana = 100;
         } else {
@@ -164,7 +210,10 @@ public class PlayerClass {
         json.addProperty("class", classType.name());
         json.addProperty("level", level);
         json.addProperty("experience", experience);
-        json.addProperty("mana", mana);
+        synchronized (this) {
+            json.addProperty("mana", mana);
+            json.addProperty("manaUpdatedAt", manaUpdatedAt);
+        }
         json.addProperty("maxMana", maxMana);
         
         // Cooldowns activos
@@ -197,6 +246,9 @@ public class PlayerClass {
         playerClass.level = json.get("level").getAsInt();
         playerClass.experience = json.get("experience").getAsInt();
         playerClass.mana = json.get("mana").getAsInt();
+        if (json.has("manaUpdatedAt")) {
+            playerClass.manaUpdatedAt = json.get("manaUpdatedAt").getAsLong();
+        }
         playerClass.maxMana = json.get("maxMana").getAsInt();
         
         // Cargar cooldowns
@@ -217,4 +269,107 @@ public class PlayerClass {
         
         return playerClass;
     }
+    
+    /**
+     * Serialización en streaming con el mismo formato que {@link #toJson()}, sin árbol intermedio
+     */
+    public static class Adapter extends TypeAdapter<PlayerClass> {
+        @Override
+        public void write(JsonWriter out, PlayerClass playerClass) throws IOException {
+            if (playerClass == null) {
+                out.nullValue();
+                return;
+            }
+            int mana;
+            long manaUpdatedAt;
+            synchronized (playerClass) {
+                mana = playerClass.mana;
+                manaUpdatedAt = playerClass.manaUpdatedAt;
+            }
+            
+            out.beginObject();
+            out.name("uuid").value(playerClass.playerUUID.toString());
+            out.name("class").value(playerClass.classType.name());
+            out.name("level").value(playerClass.level);
+            out.name("experience").value(playerClass.experience);
+            out.name("mana").value(mana);
+            out.name("manaUpdatedAt").value(manaUpdatedAt);
+            out.name("maxMana").value(playerClass.maxMana);
+            
+            // Cooldowns activos
+            long now = System.currentTimeMillis();
+            out.name("cooldowns").beginObject();
+            for (Map.Entry<String, Long> entry : playerClass.abilityCooldowns.entrySet()) {
+                if (entry.getValue() > now) {
+                    out.name(entry.getKey()).value(entry.getValue());
+                }
+            }
+            out.endObject();
+            
+            out.name("skills").beginObject();
+            for (Map.Entry<String, Integer> entry : playerClass.skillLevels.entrySet()) {
+                out.name(entry.getKey()).value(entry.getValue());
+            }
+            out.endObject();
+            out.endObject();
+        }
+        
+        @Override
+        public PlayerClass read(JsonReader in) throws IOException {
+            UUID uuid = null;
+            ClassType classType = ClassType.NONE;
+            int level = 1;
+            int experience = 0;
+            int mana = 100;
+            long manaUpdatedAt = -1L;
+            int maxMana = 100;
+            Map<String, Long> cooldowns = new HashMap<>();
+            Map<String, Integer> skills = new HashMap<>();
+            
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "uuid" -> uuid = UUID.fromString(in.nextString());
+                    case "class" -> classType = ClassType.valueOf(in.nextString());
+                    case "level" -> level = in.nextInt();
+                    case "experience" -> experience = in.nextInt();
+                    case "mana" -> mana = in.nextInt();
+                    case "manaUpdatedAt" -> manaUpdatedAt = in.nextLong();
+                    case "maxMana" -> maxMana = in.nextInt();
+                    case "cooldowns" -> {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            cooldowns.put(in.nextName(), in.nextLong());
+                        }
+                        in.endObject();
+                    }
+                    case "skills" -> {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            skills.put(in.nextName(), in.nextInt());
+                        }
+                        in.endObject();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            
+            if (uuid == null) {
+                throw new IOException("PlayerClass sin uuid");
+            }
+            PlayerClass playerClass = new PlayerClass(uuid);
+            playerClass.classType = classType;
+            playerClass.level = level;
+            playerClass.experience = experience;
+            playerClass.mana = mana;
+            if (manaUpdatedAt >= 0) {
+                playerClass.manaUpdatedAt = manaUpdatedAt;
+            }
+            playerClass.maxMana = maxMana;
+            playerClass.abilityCooldowns.putAll(cooldowns);
+            playerClass.skillLevels.putAll(skills);
+            return playerClass;
+        }
+    }
 }
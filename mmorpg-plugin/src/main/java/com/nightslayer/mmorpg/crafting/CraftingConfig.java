@@ -6,8 +6,6 @@ import com.google.gson.JsonObject;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.util.*;
 
 public class CraftingConfig {
@@ -33,8 +31,8 @@ public class CraftingConfig {
         }
 
         try {
-            String content = new String(Files.readAllBytes(Paths.get(configFile.getPath())));
-            return com.google.gson.JsonParser.parseString(content).getAsJsonObject();
+            com.nightslayer.mmorpg.MMORPGPlugin mmorpgPlugin = (com.nightslayer.mmorpg.MMORPGPlugin) plugin;
+            return mmorpgPlugin.getConfigCache().loadObject(configFile);
         } catch (Exception e) {
             plugin.getLogger().severe("Error loading crafting config: " + e.getMessage());
             return new JsonObject();
@@ -496,6 +496,18 @@ public class DatabaseManager {
         return connection;
     }
     
+    /**
+     * Abre una conexión dedicada al mismo fichero de BD, para escritores en segundo
+     * plano que no deben compartir el estado transaccional de la conexión principal
+     */
+    public Connection openConnection() throws SQLException {
+        Connection dedicated = DriverManager.getConnection("jdbc:sqlite:" + databaseFile.getAbsolutePath());
+        try (Statement stmt = dedicated.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = 5000");
+        }
+        return dedicated;
+    }
+    
     /**
      * Cierra la conexión a la base de datos
      */
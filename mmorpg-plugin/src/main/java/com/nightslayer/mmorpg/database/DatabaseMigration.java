@@ -5,6 +5,7 @@ import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import java.io.File;
 import java.io.FileReader;
 import java.sql.*;
@@ -15,7 +16,7 @@ import java.util.*;
  * Ejecuta en MainPlugin.onEnable() para inicializar las tablas y cargar datos históricos
  */
 public class DatabaseMigration {
-    private static final Gson gson = new Gson();
+    private static final Gson gson = GsonRegistry.compact();
 
     /**
      * Migra todos los datos JSON → SQLite
@@ -3,6 +3,7 @@ package com.nightslayer.mmorpg.database;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import java.sql.*;
 import java.util.*;
 
@@ -11,7 +12,7 @@ import java.util.*;
  */
 public class EventRepository {
     private DatabaseManager dbManager;
-    private static final Gson gson = new Gson();
+    private static final Gson gson = GsonRegistry.compact();
 
     public EventRepository(DatabaseManager dbManager) {
         this.dbManager = dbManager;
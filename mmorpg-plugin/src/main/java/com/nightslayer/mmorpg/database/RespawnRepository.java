@@ -2,6 +2,7 @@ package com.nightslayer.mmorpg.database;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import java.sql.*;
 import java.util.*;
 
@@ -10,7 +11,7 @@ import java.util.*;
  */
 public class RespawnRepository {
     private DatabaseManager dbManager;
-    private static final Gson gson = new Gson();
+    private static final Gson gson = GsonRegistry.compact();
 
     public RespawnRepository(DatabaseManager dbManager) {
         this.dbManager = dbManager;
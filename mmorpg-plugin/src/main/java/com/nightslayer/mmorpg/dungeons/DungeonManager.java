@@ -4,6 +4,8 @@ import com.google.gson.*;
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.mobs.MobManager;
 import com.nightslayer.mmorpg.economy.EconomyManager;
+import com.nightslayer.mmorpg.managers.ReloadableConfig;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.*;
 
 import java.io.*;
@@ -16,10 +18,10 @@ import java.util.concurrent.ThreadLocalRandom;
 /**
  * Sistema de gestión de mazmorras dinámicas con generación procedural
  */
-public class DungeonManager {
+public class DungeonManager implements ReloadableConfig<Map<String, DungeonConfig>> {
     private final MMORPGPlugin plugin;
     private final File configFile;
-    private final Map<String, DungeonConfig> dungeonConfigs;
+    private volatile Map<String, DungeonConfig> dungeonConfigs;
     private final Map<String, DungeonSession> activeSessions;
     
     private static final String CREATE_DUNGEONS_TABLE = 
@@ -54,7 +56,7 @@ public class DungeonManager {
     public DungeonManager(MMORPGPlugin plugin, MobManager mobManager, EconomyManager economy) {
         this.plugin = plugin;
         this.configFile = new File(plugin.getDataFolder(), "dungeons_config.json");
-        this.dungeonConfigs = new ConcurrentHashMap<>();
+        this.dungeonConfigs = Map.of();
         this.activeSessions = new ConcurrentHashMap<>();
         
         initDatabase();
@@ -80,20 +82,45 @@ public class DungeonManager {
             return;
         }
         
-        try (Reader reader = new FileReader(configFile)) {
-            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
-            JsonArray dungeonsArray = root.getAsJsonArray("dungeons");
-            
-            for (JsonElement element : dungeonsArray) {
-                DungeonConfig config = parseDungeonConfig(element.getAsJsonObject());
-                dungeonConfigs.put(config.getId(), config);
-            }
-            
-            plugin.getLogger().info("Cargadas " + dungeonConfigs.size() + " mazmorras");
+        try {
+            applyConfig(parseConfig(plugin.getConfigCache().loadObject(configFile)));
         } catch (IOException e) {
             plugin.getLogger().severe("Error cargando dungeons_config.json: " + e.getMessage());
             createDefaultConfig();
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("dungeons_config.json no es válido, se mantiene la configuración anterior: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public File getConfigFile() {
+        return configFile;
+    }
+    
+    @Override
+    public Map<String, DungeonConfig> parseConfig(JsonObject root) {
+        JsonArray array = root.getAsJsonArray("dungeons");
+        if (array == null) {
+            throw new IllegalArgumentException("Falta la lista \"dungeons\"");
+        }
+        
+        Map<String, DungeonConfig> configs = new LinkedHashMap<>();
+        for (JsonElement element : array) {
+            DungeonConfig config = parseDungeonConfig(element.getAsJsonObject());
+            configs.put(config.getId(), config);
         }
+        return Collections.unmodifiableMap(configs);
+    }
+    
+    @Override
+    public void applyConfig(Map<String, DungeonConfig> configs) {
+        dungeonConfigs = configs;
+        plugin.getLogger().info("Cargadas " + configs.size() + " mazmorras");
+    }
+    
+    @Override
+    public Map<String, DungeonConfig> currentConfig() {
+        return dungeonConfigs;
     }
     
     /**
@@ -206,7 +233,7 @@ public class DungeonManager {
         root.add("dungeons", dungeons);
         
         try (Writer writer = new FileWriter(configFile)) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Gson gson = GsonRegistry.pretty();
             gson.toJson(root, writer);
             plugin.getLogger().info("Creado dungeons_config.json por defecto con 2 mazmorras");
         } catch (IOException e) {
@@ -355,6 +382,7 @@ public class DungeonManager {
         
         if (success) {
             session.complete();
+            payCompletionRewards(session);
         } else {
             session.fail();
         }
@@ -367,6 +395,18 @@ public class DungeonManager {
         audience.sendMessage(msg);
     }
     
+    /**
+     * Paga las monedas de la mazmorra a todos los participantes en un único pago masivo
+     */
+    private void payCompletionRewards(DungeonSession session) {
+        DungeonConfig config = dungeonConfigs.get(session.getDungeonId());
+        if (config == null || config.getRewards() == null || plugin.getRewardService() == null) return;
+        
+        DungeonConfig.DungeonRewards rewards = config.getRewards();
+        int coins = rewards.getBaseCoin() + (session.isBossFinalDefeated() ? rewards.getBossCoinBonus() : 0);
+        plugin.getRewardService().payAll(session.getPlayers(), coins);
+    }
+    
     /**
      * Obtiene todas las mazmorras disponibles
      */
@@ -0,0 +1,243 @@
+package com.nightslayer.mmorpg.economy;
+
+import com.nightslayer.mmorpg.repositories.EconomyRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Libro mayor de la economía interna.
+ * Los balances se guardan en memoria como enteros de punto fijo (centésimas) y cada
+ * mutación se añade a un diario que un escritor en segundo plano confirma por lotes
+ * en economy_transactions. Las lecturas de balance nunca tocan disco.
+ */
+public class EconomyLedger {
+    /** Unidades de punto fijo por unidad de moneda (2 decimales) */
+    public static final long SCALE = 100L;
+
+    private final EconomyRepository repository;
+    private final Logger logger;
+    private final Map<UUID, AtomicLong> balances;
+    private final ConcurrentLinkedQueue<Entry> journal;
+    private final Object flushLock = new Object();
+
+    public EconomyLedger(EconomyRepository repository, Logger logger) {
+        this.repository = repository;
+        this.logger = logger;
+        this.balances = new ConcurrentHashMap<>();
+        this.journal = new ConcurrentLinkedQueue<>();
+    }
+
+    /**
+     * Carga todos los balances persistidos en memoria
+     */
+    public void load() {
+        repository.loadAllBalances().forEach((uuid, balance) ->
+            balances.put(uuid, new AtomicLong(toUnits(balance))));
+        logger.info("Libro de economía cargado: " + balances.size() + " cuentas");
+    }
+
+    /**
+     * Convierte una cantidad decimal a unidades de punto fijo
+     */
+    public static long toUnits(double amount) {
+        return Math.round(amount * SCALE);
+    }
+
+    /**
+     * Convierte unidades de punto fijo a cantidad decimal
+     */
+    public static double fromUnits(long units) {
+        return units / (double) SCALE;
+    }
+
+    /**
+     * Obtiene el balance de una cuenta en unidades de punto fijo
+     */
+    public long getBalance(UUID playerId) {
+        AtomicLong balance = balances.get(playerId);
+        return balance != null ? balance.get() : 0L;
+    }
+
+    /**
+     * Crea la cuenta si no existe
+     */
+    public void ensureAccount(UUID playerId) {
+        account(playerId);
+    }
+
+    /**
+     * Añade unidades a una cuenta
+     * @return balance resultante
+     */
+    public long deposit(UUID playerId, long units, String type, String description) {
+        if (units < 0) {
+            throw new IllegalArgumentException("Cantidad negativa: " + units);
+        }
+        long after = account(playerId).addAndGet(units);
+        append(playerId, type, units, after, description);
+        return after;
+    }
+
+    /**
+     * Retira unidades de una cuenta si hay saldo suficiente, de forma atómica
+     * @return true si se retiró
+     */
+    public boolean withdraw(UUID playerId, long units, String type, String description) {
+        if (units < 0) {
+            return false;
+        }
+        AtomicLong balance = balances.get(playerId);
+        if (balance == null) {
+            return units == 0;
+        }
+
+        long current;
+        do {
+            current = balance.get();
+            if (current < units) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - units));
+
+        append(playerId, type, -units, current - units, description);
+        return true;
+    }
+
+    /**
+     * Transfiere unidades entre cuentas. El retiro y la comprobación de saldo son una
+     * única operación atómica, por lo que no hay carrera de comprobar-y-actuar.
+     */
+    public boolean transfer(UUID from, UUID to, long units, String description) {
+        if (units < 0 || from.equals(to)) {
+            return false;
+        }
+        if (!withdraw(from, units, "TRANSFER_OUT", description)) {
+            return false;
+        }
+        deposit(to, units, "TRANSFER_IN", description);
+        return true;
+    }
+
+    /**
+     * Establece el balance de una cuenta
+     */
+    public void setBalance(UUID playerId, long units, String description) {
+        long previous = account(playerId).getAndSet(units);
+        append(playerId, "SET", units - previous, units, description);
+    }
+
+    /**
+     * Copia de todos los balances en unidades de punto fijo
+     */
+    public Map<UUID, Long> snapshot() {
+        Map<UUID, Long> copy = new HashMap<>();
+        balances.forEach((uuid, balance) -> copy.put(uuid, balance.get()));
+        return copy;
+    }
+
+    /**
+     * Número de movimientos pendientes de escribir
+     */
+    public int pendingEntries() {
+        return journal.size();
+    }
+
+    /**
+     * Confirma en BD, en una única transacción, todos los movimientos pendientes.
+     * Si falla, los movimientos vuelven a la cola para el siguiente intento.
+     * @return número de movimientos escritos
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            List<Entry> batch = new ArrayList<>();
+            Entry entry;
+            while ((entry = journal.poll()) != null) {
+                batch.add(entry);
+            }
+            if (batch.isEmpty()) {
+                return 0;
+            }
+
+            // El balance en memoria es la fuente de verdad: se persiste el valor actual
+            Map<UUID, Long> touched = new HashMap<>();
+            for (Entry e : batch) {
+                touched.put(e.getPlayerId(), getBalance(e.getPlayerId()));
+            }
+
+            try {
+                repository.commitJournal(batch, touched);
+                return batch.size();
+            } catch (Exception e) {
+                logger.log(Level.WARNING, "Error escribiendo diario de economía (" + batch.size() + " movimientos)", e);
+                List<Entry> retry = new ArrayList<>(batch);
+                while ((entry = journal.poll()) != null) {
+                    retry.add(entry);
+                }
+                journal.addAll(retry);
+                return 0;
+            }
+        }
+    }
+
+    private AtomicLong account(UUID playerId) {
+        return balances.computeIfAbsent(playerId, id -> new AtomicLong());
+    }
+
+    private void append(UUID playerId, String type, long units, long balanceAfter, String description) {
+        journal.add(new Entry(playerId, type, units, balanceAfter, description, System.currentTimeMillis()));
+    }
+
+    /**
+     * Movimiento del diario de economía
+     */
+    public static class Entry {
+        private final UUID playerId;
+        private final String type;
+        private final long amount;
+        private final long balanceAfter;
+        private final String description;
+        private final long timestamp;
+
+        public Entry(UUID playerId, String type, long amount, long balanceAfter, String description, long timestamp) {
+            this.playerId = playerId;
+            this.type = type;
+            this.amount = amount;
+            this.balanceAfter = balanceAfter;
+            this.description = description;
+            this.timestamp = timestamp;
+        }
+
+        public UUID getPlayerId() {
+            return playerId;
+        }
+
+        public String getType() {
+            return type;
+        }
+
+        public long getAmount() {
+            return amount;
+        }
+
+        public long getBalanceAfter() {
+            return balanceAfter;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        public long getTimestamp() {
+            return timestamp;
+        }
+    }
+}
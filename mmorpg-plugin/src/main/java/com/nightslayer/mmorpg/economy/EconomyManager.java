@@ -1,11 +1,14 @@
 package com.nightslayer.mmorpg.economy;
 
+import com.nightslayer.mmorpg.database.DatabaseManager;
+import com.nightslayer.mmorpg.repositories.EconomyRepository;
 import net.milkbowl.vault.economy.Economy;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 import org.bukkit.plugin.RegisteredServiceProvider;
 import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -19,11 +22,17 @@ public class EconomyManager {
     private final Plugin plugin;
     private Economy economy;
     private boolean vaultEnabled;
-    private final Map<UUID, Double> rpgCoins; // Sistema de monedas RPG interno
+    private final EconomyRepository repository;
+    private final EconomyLedger ledger; // Sistema de monedas RPG interno
+    private BukkitTask journalTask;
     
-    public EconomyManager(Plugin plugin) {
+    public EconomyManager(Plugin plugin, DatabaseManager databaseManager) {
         this.plugin = plugin;
-        this.rpgCoins = new HashMap<>();
+        this.repository = new EconomyRepository(databaseManager, plugin.getLogger());
+        this.ledger = new EconomyLedger(repository, plugin.getLogger());
+        repository.createTables();
+        ledger.load();
+        startJournalWriter();
         this.vaultEnabled = setupEconomy();
         
         if (!vaultEnabled) {
@@ -33,6 +42,30 @@ public class EconomyManager {
         }
     }
     
+    /**
+     * Inicia el escritor en segundo plano que confirma el diario de economía por lotes
+     */
+    private void startJournalWriter() {
+        long interval = Math.max(1L, plugin.getConfig().getLong("economy.journal-flush-interval", 1)) * 20L;
+        journalTask = Bukkit.getScheduler().runTaskTimerAsynchronously(plugin, ledger::flush, interval, interval);
+    }
+    
+    /**
+     * Detiene el escritor del diario y confirma los movimientos pendientes
+     */
+    public void shutdown() {
+        if (journalTask != null) {
+            journalTask.cancel();
+        }
+        int written = ledger.flush();
+        repository.close();
+        if (ledger.pendingEntries() > 0) {
+            plugin.getLogger().warning("Quedaron " + ledger.pendingEntries() + " movimientos de economía sin guardar");
+        } else if (written > 0) {
+            plugin.getLogger().info("Diario de economía guardado: " + written + " movimientos");
+        }
+    }
+    
     /**
      * Configura la integración con Vault
      */
@@ -65,14 +98,14 @@ public class EconomyManager {
         if (vaultEnabled) {
             return economy.getBalance(player);
         }
-        return rpgCoins.getOrDefault(player.getUniqueId(), 0.0);
+        return EconomyLedger.fromUnits(ledger.getBalance(player.getUniqueId()));
     }
     
     /**
      * Obtiene el balance de RPG Coins (moneda interna)
      */
     public double getRPGCoins(Player player) {
-        return rpgCoins.getOrDefault(player.getUniqueId(), 0.0);
+        return EconomyLedger.fromUnits(ledger.getBalance(player.getUniqueId()));
     }
     
     /**
@@ -82,13 +115,20 @@ public class EconomyManager {
         if (vaultEnabled) {
             return economy.has(player, amount);
         }
-        return getBalance(player) >= amount;
+        return ledger.getBalance(player.getUniqueId()) >= EconomyLedger.toUnits(amount);
     }
     
     /**
      * Añade dinero a un jugador
      */
     public boolean deposit(Player player, double amount) {
+        return deposit(player, amount, "DEPOSIT", null);
+    }
+
+    /**
+     * Añade dinero a un jugador anotando el tipo y la descripción del movimiento en el diario
+     */
+    public boolean deposit(Player player, double amount, String type, String description) {
         if (amount < 0) {
             return false;
         }
@@ -97,8 +137,24 @@ public class EconomyManager {
             return economy.depositPlayer(player, amount).transactionSuccess();
         }
         
-        double current = rpgCoins.getOrDefault(player.getUniqueId(), 0.0);
-        rpgCoins.put(player.getUniqueId(), current + amount);
+        ledger.deposit(player.getUniqueId(), EconomyLedger.toUnits(amount), type, description);
+        return true;
+    }
+
+    /**
+     * Añade dinero a un jugador por UUID (puede estar desconectado)
+     */
+    public boolean deposit(UUID playerId, double amount) {
+        if (amount < 0) {
+            return false;
+        }
+
+        if (vaultEnabled) {
+            OfflinePlayer player = Bukkit.getOfflinePlayer(playerId);
+            return economy.depositPlayer(player, amount).transactionSuccess();
+        }
+
+        ledger.deposit(playerId, EconomyLedger.toUnits(amount), "REWARD", null);
         return true;
     }
     
@@ -106,23 +162,33 @@ public class EconomyManager {
      * Retira dinero de un jugador
      */
     public boolean withdraw(Player player, double amount) {
-        if (amount < 0 || !hasEnough(player, amount)) {
+        return withdraw(player, amount, "WITHDRAW", null);
+    }
+
+    /**
+     * Retira dinero de un jugador anotando el tipo y la descripción del movimiento en el diario
+     */
+    public boolean withdraw(Player player, double amount, String type, String description) {
+        if (amount < 0) {
             return false;
         }
         
         if (vaultEnabled) {
-            return economy.withdrawPlayer(player, amount).transactionSuccess();
+            return hasEnough(player, amount) && economy.withdrawPlayer(player, amount).transactionSuccess();
         }
         
-        double current = rpgCoins.getOrDefault(player.getUniqueId(), 0.0);
-        rpgCoins.put(player.getUniqueId(), current - amount);
-        return true;
+        return ledger.withdraw(player.getUniqueId(), EconomyLedger.toUnits(amount), type, description);
     }
     
     /**
      * Transfiere dinero entre jugadores
      */
     public boolean transfer(Player from, Player to, double amount) {
+        if (!vaultEnabled) {
+            return ledger.transfer(from.getUniqueId(), to.getUniqueId(), EconomyLedger.toUnits(amount),
+                from.getName() + " -> " + to.getName());
+        }
+        
         if (withdraw(from, amount)) {
             if (deposit(to, amount)) {
                 return true;
@@ -139,8 +205,7 @@ public class EconomyManager {
     public void addRPGCoins(Player player, double amount) {
         if (amount < 0) return;
         
-        double current = rpgCoins.getOrDefault(player.getUniqueId(), 0.0);
-        rpgCoins.put(player.getUniqueId(), current + amount);
+        ledger.deposit(player.getUniqueId(), EconomyLedger.toUnits(amount), "RPG_COINS_ADD", null);
     }
     
     /**
@@ -149,13 +214,7 @@ public class EconomyManager {
     public boolean withdrawRPGCoins(Player player, double amount) {
         if (amount < 0) return false;
         
-        double current = rpgCoins.getOrDefault(player.getUniqueId(), 0.0);
-        if (current < amount) {
-            return false;
-        }
-        
-        rpgCoins.put(player.getUniqueId(), current - amount);
-        return true;
+        return ledger.withdraw(player.getUniqueId(), EconomyLedger.toUnits(amount), "RPG_COINS_WITHDRAW", null);
     }
     
     /**
@@ -192,14 +251,16 @@ public class EconomyManager {
         if (vaultEnabled && !economy.hasAccount(player)) {
             economy.createPlayerAccount(player);
         }
-        rpgCoins.putIfAbsent(player.getUniqueId(), 0.0);
+        ledger.ensureAccount(player.getUniqueId());
     }
     
     /**
      * Obtiene todos los datos de RPG Coins
      */
     public Map<UUID, Double> getAllRPGCoins() {
-        return new HashMap<>(rpgCoins);
+        Map<UUID, Double> coins = new HashMap<>();
+        ledger.snapshot().forEach((uuid, units) -> coins.put(uuid, EconomyLedger.fromUnits(units)));
+        return coins;
     }
     
     /**
@@ -207,13 +268,20 @@ public class EconomyManager {
      */
     public void setRPGCoins(UUID playerId, double amount) {
         if (amount < 0) return;
-        rpgCoins.put(playerId, amount);
+        ledger.setBalance(playerId, EconomyLedger.toUnits(amount), "ADMIN_SET");
     }
     
     /**
-     * Limpia los datos de un jugador
+     * Limpia los datos de un jugador (pone su balance interno a cero)
      */
     public void clearPlayerData(UUID playerId) {
-        rpgCoins.remove(playerId);
+        ledger.setBalance(playerId, 0L, "CLEAR");
+    }
+    
+    /**
+     * Obtiene el libro mayor de la economía interna
+     */
+    public EconomyLedger getLedger() {
+        return ledger;
     }
 }
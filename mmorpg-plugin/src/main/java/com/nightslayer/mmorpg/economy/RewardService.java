@@ -0,0 +1,127 @@
+package com.nightslayer.mmorpg.economy;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitTask;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio de pago de recompensas.
+ * Agrupa todos los pagos pendientes de un jugador en un único depósito por tick y
+ * limita cuántos depósitos se hacen por tick, para que recompensas masivas
+ * (oleadas de invasión, mazmorras) no bloqueen el hilo principal con llamadas a Vault.
+ */
+public class RewardService {
+    private final Plugin plugin;
+    private final EconomyManager economyManager;
+    private final Map<UUID, Double> pending;
+    private final Set<UUID> failing;
+    private final int depositsPerTick;
+    private BukkitTask payoutTask;
+
+    public RewardService(Plugin plugin, EconomyManager economyManager) {
+        this.plugin = plugin;
+        this.economyManager = economyManager;
+        this.pending = new ConcurrentHashMap<>();
+        this.failing = ConcurrentHashMap.newKeySet();
+        this.depositsPerTick = Math.max(1, plugin.getConfig().getInt("economy.reward-deposits-per-tick", 50));
+
+        payoutTask = Bukkit.getScheduler().runTaskTimer(plugin, this::processPending, 1L, 1L);
+    }
+
+    /**
+     * Encola un pago para un jugador. Varios pagos al mismo jugador dentro del mismo
+     * tick se suman en un único depósito.
+     */
+    public void queueDeposit(UUID playerId, double amount) {
+        if (amount <= 0) {
+            return;
+        }
+        pending.merge(playerId, amount, Double::sum);
+    }
+
+    /**
+     * Encola el mismo pago para muchos jugadores (participantes de invasiones, mazmorras...)
+     * @return número de jugadores a los que se encoló el pago
+     */
+    public int payAll(Collection<UUID> playerIds, double amount) {
+        if (amount <= 0) {
+            return 0;
+        }
+        for (UUID playerId : playerIds) {
+            pending.merge(playerId, amount, Double::sum);
+        }
+        return playerIds.size();
+    }
+
+    /**
+     * Número de jugadores con pagos pendientes
+     */
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Realiza como máximo depositsPerTick depósitos agregados.
+     * Un depósito que falla vuelve a la cola y se reintenta en el siguiente tick.
+     */
+    private void processPending() {
+        drain(depositsPerTick);
+    }
+
+    private void drain(int limit) {
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        int processed = 0;
+        Map<UUID, Double> failed = new HashMap<>();
+        Iterator<UUID> it = pending.keySet().iterator();
+        while (it.hasNext() && processed < limit) {
+            UUID playerId = it.next();
+            Double amount = pending.remove(playerId);
+            if (amount == null) {
+                continue;
+            }
+
+            if (economyManager.deposit(playerId, amount)) {
+                failing.remove(playerId);
+            } else {
+                // Avisar solo del primer fallo para no repetir el aviso en cada reintento
+                if (failing.add(playerId)) {
+                    plugin.getLogger().warning("No se pudo pagar recompensa de " + amount + " a " + playerId + ", se reintentará");
+                }
+                failed.put(playerId, amount);
+            }
+            processed++;
+        }
+
+        // Reencolar después de recorrer la cola para no reintentar en el mismo drain
+        failed.forEach((playerId, amount) -> pending.merge(playerId, amount, Double::sum));
+    }
+
+    /**
+     * Detiene el servicio pagando todo lo pendiente
+     */
+    public void shutdown() {
+        if (payoutTask != null) {
+            payoutTask.cancel();
+            payoutTask = null;
+        }
+        drain(Integer.MAX_VALUE);
+
+        if (!pending.isEmpty()) {
+            double unpaid = pending.values().stream().mapToDouble(Double::doubleValue).sum();
+            plugin.getLogger().severe("Quedaron " + unpaid + " en recompensas sin pagar a " + pending.size() + " jugadores");
+            pending.clear();
+        }
+        failing.clear();
+    }
+}
@@ -5,24 +5,34 @@ import org.bukkit.Material;
 import org.bukkit.entity.Player;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.plugin.Plugin;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Gestor de tiendas de NPCs
+ * Cada tienda se compila al registrarse en una lista inmutable y un índice por material, así que
+ * buscar el item que corresponde a un click es una sola consulta. Las compras y ventas leen el
+ * inventario una vez, cuentan o quitan sobre esa copia y lo escriben de golpe, y cada operación
+ * se cobra o se paga en un único movimiento de la economía.
  */
 public class ShopManager {
+    /** Última casilla del inventario de la tienda: botón de vender todo */
+    public static final int SELL_ALL_SLOT = 53;
+    
     private final Plugin plugin;
     private final EconomyManager economyManager;
-    private final Map<String, List<ShopItem>> shops; // shopId -> items
-    private final Map<UUID, String> openShops; // playerId -> shopId
+    private final Map<String, Shop> shops; // shopId -> catálogo compilado
+    private final Map<UUID, OpenShop> openShops; // playerId -> tienda e inventario abiertos
     
     public ShopManager(Plugin plugin, EconomyManager economyManager) {
         this.plugin = plugin;
         this.economyManager = economyManager;
-        this.shops = new HashMap<>();
-        this.openShops = new HashMap<>();
+        this.shops = new ConcurrentHashMap<>();
+        this.openShops = new ConcurrentHashMap<>();
         
         createDefaultShops();
     }
@@ -38,7 +48,7 @@ public class ShopManager {
         generalShop.add(createShopItem("cooked_beef", Material.COOKED_BEEF, "Carne Cocinada", 8, 4, 1));
         generalShop.add(createShopItem("torch", Material.TORCH, "Antorcha", 1, 0.5, 16));
         generalShop.add(createShopItem("arrow", Material.ARROW, "Flecha", 2, 1, 16));
-        shops.put("general", generalShop);
+        registerShop("general", generalShop);
         
         // Tienda de Armas
         List<ShopItem> weaponShop = new ArrayList<>();
@@ -46,7 +56,7 @@ public class ShopManager {
         weaponShop.add(createShopItem("iron_axe", Material.IRON_AXE, "Hacha de Hierro", 45, 20, 1));
         weaponShop.add(createShopItem("bow", Material.BOW, "Arco", 60, 30, 1));
         weaponShop.add(createShopItem("diamond_sword", Material.DIAMOND_SWORD, "Espada de Diamante", 200, 100, 1));
-        shops.put("weapons", weaponShop);
+        registerShop("weapons", weaponShop);
         
         // Tienda de Armaduras
         List<ShopItem> armorShop = new ArrayList<>();
@@ -54,14 +64,14 @@ public class ShopManager {
         armorShop.add(createShopItem("iron_chestplate", Material.IRON_CHESTPLATE, "Peto de Hierro", 80, 40, 1));
         armorShop.add(createShopItem("iron_leggings", Material.IRON_LEGGINGS, "Pantalones de Hierro", 70, 35, 1));
         armorShop.add(createShopItem("iron_boots", Material.IRON_BOOTS, "Botas de Hierro", 35, 17, 1));
-        shops.put("armor", armorShop);
+        registerShop("armor", armorShop);
         
         // Tienda de Pociones
         List<ShopItem> potionShop = new ArrayList<>();
         potionShop.add(createShopItem("glass_bottle", Material.GLASS_BOTTLE, "Botella de Cristal", 5, 2, 1));
         potionShop.add(createShopItem("nether_wart", Material.NETHER_WART, "Verruga del Nether", 10, 5, 1));
         potionShop.add(createShopItem("blaze_powder", Material.BLAZE_POWDER, "Polvo de Blaze", 15, 7, 1));
-        shops.put("potions", potionShop);
+        registerShop("potions", potionShop);
     }
     
     /**
@@ -75,25 +85,26 @@ public class ShopManager {
     }
     
     /**
-     * Registra una nueva tienda
+     * Registra una nueva tienda; si ya existía, la sustituye de golpe
      */
     public void registerShop(String shopId, List<ShopItem> items) {
-        shops.put(shopId, new ArrayList<>(items));
+        shops.put(shopId, Shop.compile(items));
     }
     
     /**
-     * Obtiene una tienda por ID
+     * Obtiene una tienda por ID (lista de solo lectura)
      */
     public List<ShopItem> getShop(String shopId) {
-        return shops.get(shopId);
+        Shop shop = shops.get(shopId);
+        return shop != null ? shop.items : null;
     }
     
     /**
      * Abre una tienda para un jugador
      */
     public void openShop(Player player, String shopId) {
-        List<ShopItem> items = shops.get(shopId);
-        if (items == null) {
+        Shop shop = shops.get(shopId);
+        if (shop == null) {
             player.sendMessage("§cTienda no encontrada.");
             return;
         }
@@ -103,13 +114,51 @@ public class ShopManager {
         
         // Añadir items
         int slot = 0;
-        for (ShopItem item : items) {
-            if (slot >= 54) break;
+        boolean sellable = false;
+        for (ShopItem item : shop.items) {
+            if (slot >= SELL_ALL_SLOT) break;
             inv.setItem(slot++, item.createItemStack());
+            sellable |= item.canSell();
+        }
+        if (sellable) {
+            inv.setItem(SELL_ALL_SLOT, createSellAllButton());
         }
         
         player.openInventory(inv);
-        openShops.put(player.getUniqueId(), shopId);
+        openShops.put(player.getUniqueId(), new OpenShop(shopId, inv));
+    }
+    
+    private ItemStack createSellAllButton() {
+        ItemStack button = new ItemStack(Material.HOPPER);
+        ItemMeta meta = button.getItemMeta();
+        if (meta != null) {
+            meta.setDisplayName("§6Vender todo");
+            meta.setLore(List.of("§7Vende todo lo que esta tienda", "§7compra de tu inventario"));
+            button.setItemMeta(meta);
+        }
+        return button;
+    }
+    
+    /**
+     * Procesa un click en una casilla de la tienda: click izquierdo compra, click derecho vende
+     * y el botón de la última casilla vende todo
+     */
+    public void handleClick(Player player, String shopId, int slot, boolean rightClick) {
+        if (slot == SELL_ALL_SLOT) {
+            sellAll(player, shopId);
+            return;
+        }
+        
+        Shop shop = shops.get(shopId);
+        if (shop == null || slot < 0 || slot >= shop.items.size()) {
+            return;
+        }
+        ShopItem item = shop.items.get(slot);
+        if (rightClick) {
+            sellItem(player, item, 1);
+        } else {
+            buyItem(player, item, 1);
+        }
     }
     
     /**
@@ -120,7 +169,11 @@ public class ShopManager {
             player.sendMessage("§cEste item no se puede comprar.");
             return false;
         }
+        if (quantity <= 0) {
+            return false;
+        }
         
+        int totalAmount = item.getAmount() * quantity;
         double totalPrice = item.getBuyPrice() * quantity;
         
         if (!economyManager.hasEnough(player, totalPrice)) {
@@ -130,21 +183,33 @@ public class ShopManager {
         }
         
         // Verificar espacio en inventario
-        ItemStack itemStack = new ItemStack(item.getMaterial(), item.getAmount() * quantity);
-        if (!hasInventorySpace(player, itemStack)) {
+        PlayerInventory inv = player.getInventory();
+        if (freeSpace(inv.getStorageContents(), item.getMaterial()) < totalAmount) {
             player.sendMessage("§cNo tienes suficiente espacio en el inventario.");
             return false;
         }
         
-        // Realizar transacción
-        if (economyManager.withdraw(player, totalPrice)) {
-            player.getInventory().addItem(itemStack);
-            player.sendMessage("§aCompraste §f" + (item.getAmount() * quantity) + "x " + 
-                             item.getDisplayName() + " §apor " + economyManager.format(totalPrice));
-            return true;
+        // Realizar transacción: un solo cobro por todas las unidades
+        if (!economyManager.withdraw(player, totalPrice, "SHOP_BUY", totalAmount + "x " + item.getId())) {
+            return false;
         }
         
-        return false;
+        Map<Integer, ItemStack> leftover = inv.addItem(new ItemStack(item.getMaterial(), totalAmount));
+        if (!leftover.isEmpty()) {
+            // No debería pasar tras comprobar el espacio; se devuelve lo que no cupo
+            int missing = 0;
+            for (ItemStack stack : leftover.values()) {
+                missing += stack.getAmount();
+            }
+            double refund = totalPrice * missing / totalAmount;
+            economyManager.deposit(player, refund, "SHOP_REFUND", missing + "x " + item.getId());
+            totalAmount -= missing;
+            totalPrice -= refund;
+        }
+        
+        player.sendMessage("§aCompraste §f" + totalAmount + "x " + 
+                         item.getDisplayName() + " §apor " + economyManager.format(totalPrice));
+        return true;
     }
     
     /**
@@ -155,54 +220,188 @@ public class ShopManager {
             player.sendMessage("§cEste item no se puede vender.");
             return false;
         }
+        if (quantity <= 0) {
+            return false;
+        }
+        
+        int totalAmount = item.getAmount() * quantity;
         
         // Verificar si el jugador tiene el item
-        ItemStack itemStack = new ItemStack(item.getMaterial(), item.getAmount() * quantity);
-        if (!player.getInventory().containsAtLeast(itemStack, item.getAmount() * quantity)) {
+        PlayerInventory inv = player.getInventory();
+        ItemStack[] contents = inv.getStorageContents();
+        if (count(contents, item.getMaterial()) < totalAmount) {
             player.sendMessage("§cNo tienes suficientes items para vender.");
             return false;
         }
         
         double totalPrice = item.getSellPrice() * quantity;
         
-        // Remover items del inventario
-        player.getInventory().removeItem(itemStack);
+        // Remover items del inventario y dar dinero
+        ItemStack[] previous = copy(contents);
+        remove(contents, item.getMaterial(), totalAmount);
+        inv.setStorageContents(contents);
+        if (!economyManager.deposit(player, totalPrice, "SHOP_SELL", totalAmount + "x " + item.getId())) {
+            inv.setStorageContents(previous);
+            player.sendMessage("§cNo se pudo completar la venta.");
+            return false;
+        }
         
-        // Dar dinero
-        economyManager.deposit(player, totalPrice);
-        player.sendMessage("§aVendiste §f" + (item.getAmount() * quantity) + "x " + 
+        player.sendMessage("§aVendiste §f" + totalAmount + "x " + 
                          item.getDisplayName() + " §apor " + economyManager.format(totalPrice));
         return true;
     }
     
     /**
-     * Verifica si el jugador tiene espacio en el inventario
+     * Vende de una vez todo lo que la tienda compra del inventario del jugador.
+     * Solo se venden lotes completos del tamaño del item de la tienda; el resto se queda.
+     * @return dinero recibido, 0 si no había nada que vender
      */
-    private boolean hasInventorySpace(Player player, ItemStack item) {
-        Inventory inv = player.getInventory();
-        int remaining = item.getAmount();
+    public double sellAll(Player player, String shopId) {
+        Shop shop = shops.get(shopId);
+        if (shop == null) {
+            player.sendMessage("§cTienda no encontrada.");
+            return 0;
+        }
         
-        for (ItemStack invItem : inv.getStorageContents()) {
-            if (invItem == null || invItem.getType() == Material.AIR) {
-                return true;
-            }
-            if (invItem.isSimilar(item)) {
-                int space = invItem.getMaxStackSize() - invItem.getAmount();
-                remaining -= space;
-                if (remaining <= 0) {
-                    return true;
+        PlayerInventory inv = player.getInventory();
+        ItemStack[] contents = inv.getStorageContents();
+        
+        // Contar por material en una sola pasada
+        EnumMap<Material, Integer> counts = new EnumMap<>(Material.class);
+        for (ItemStack stack : contents) {
+            if (isPlain(stack)) {
+                ShopItem item = shop.byMaterial.get(stack.getType());
+                if (item != null && item.canSell()) {
+                    counts.merge(stack.getType(), stack.getAmount(), Integer::sum);
                 }
             }
         }
         
-        return remaining <= 0;
+        EnumMap<Material, Integer> toRemove = new EnumMap<>(Material.class);
+        double totalPrice = 0;
+        int totalAmount = 0;
+        for (Map.Entry<Material, Integer> entry : counts.entrySet()) {
+            ShopItem item = shop.byMaterial.get(entry.getKey());
+            int lots = entry.getValue() / item.getAmount();
+            if (lots > 0) {
+                toRemove.put(entry.getKey(), lots * item.getAmount());
+                totalPrice += item.getSellPrice() * lots;
+                totalAmount += lots * item.getAmount();
+            }
+        }
+        if (toRemove.isEmpty()) {
+            player.sendMessage("§cNo tienes nada que vender en esta tienda.");
+            return 0;
+        }
+        
+        ItemStack[] previous = copy(contents);
+        for (int i = 0; i < contents.length; i++) {
+            ItemStack stack = contents[i];
+            if (!isPlain(stack)) {
+                continue;
+            }
+            Integer remaining = toRemove.get(stack.getType());
+            if (remaining == null || remaining == 0) {
+                continue;
+            }
+            int taken = Math.min(remaining, stack.getAmount());
+            contents[i] = take(stack, taken);
+            toRemove.put(stack.getType(), remaining - taken);
+        }
+        inv.setStorageContents(contents);
+        
+        // Un único pago por toda la venta
+        if (!economyManager.deposit(player, totalPrice, "SHOP_SELL", totalAmount + " items en " + shopId)) {
+            inv.setStorageContents(previous);
+            player.sendMessage("§cNo se pudo completar la venta.");
+            return 0;
+        }
+        
+        player.sendMessage("§aVendiste §f" + totalAmount + " §aitems por " + economyManager.format(totalPrice));
+        return totalPrice;
+    }
+    
+    /**
+     * Cuántas unidades de un material caben en el inventario, contando huecos vacíos y pilas incompletas
+     */
+    private static int freeSpace(ItemStack[] contents, Material material) {
+        int maxStack = material.getMaxStackSize();
+        int space = 0;
+        for (ItemStack stack : contents) {
+            if (stack == null || stack.getType() == Material.AIR) {
+                space += maxStack;
+            } else if (stack.getType() == material && !stack.hasItemMeta()) {
+                space += Math.max(0, stack.getMaxStackSize() - stack.getAmount());
+            }
+        }
+        return space;
+    }
+    
+    /**
+     * Unidades de un material en el inventario que la tienda acepta
+     */
+    private static int count(ItemStack[] contents, Material material) {
+        int total = 0;
+        for (ItemStack stack : contents) {
+            if (isPlain(stack) && stack.getType() == material) {
+                total += stack.getAmount();
+            }
+        }
+        return total;
+    }
+    
+    /**
+     * Quita unidades de un material de la copia del inventario
+     */
+    private static void remove(ItemStack[] contents, Material material, int amount) {
+        for (int i = 0; i < contents.length && amount > 0; i++) {
+            ItemStack stack = contents[i];
+            if (isPlain(stack) && stack.getType() == material) {
+                int taken = Math.min(amount, stack.getAmount());
+                contents[i] = take(stack, taken);
+                amount -= taken;
+            }
+        }
+    }
+    
+    private static ItemStack take(ItemStack stack, int amount) {
+        if (amount >= stack.getAmount()) {
+            return null;
+        }
+        ItemStack rest = stack.clone();
+        rest.setAmount(stack.getAmount() - amount);
+        return rest;
+    }
+    
+    private static ItemStack[] copy(ItemStack[] contents) {
+        ItemStack[] copy = new ItemStack[contents.length];
+        for (int i = 0; i < contents.length; i++) {
+            copy[i] = contents[i] != null ? contents[i].clone() : null;
+        }
+        return copy;
+    }
+    
+    /**
+     * Solo se aceptan items normales: con nombre, daño u otros datos (p. ej. items RPG) no se compran
+     */
+    private static boolean isPlain(ItemStack stack) {
+        return stack != null && stack.getType() != Material.AIR && !stack.hasItemMeta();
     }
     
     /**
      * Obtiene la tienda abierta por un jugador
      */
     public String getOpenShop(UUID playerId) {
-        return openShops.get(playerId);
+        OpenShop open = openShops.get(playerId);
+        return open != null ? open.shopId() : null;
+    }
+    
+    /**
+     * Tienda a la que pertenece un inventario que tiene abierto el jugador, o null si no es una tienda
+     */
+    public String getShopFor(UUID playerId, Inventory inventory) {
+        OpenShop open = openShops.get(playerId);
+        return open != null && open.inventory() == inventory ? open.shopId() : null;
     }
     
     /**
@@ -216,21 +415,40 @@ public class ShopManager {
      * Obtiene un item de tienda por material
      */
     public ShopItem getShopItem(String shopId, Material material) {
-        List<ShopItem> items = shops.get(shopId);
-        if (items == null) return null;
-        
-        for (ShopItem item : items) {
-            if (item.getMaterial() == material) {
-                return item;
-            }
-        }
-        return null;
+        Shop shop = shops.get(shopId);
+        return shop != null ? shop.byMaterial.get(material) : null;
     }
     
     /**
      * Obtiene todas las tiendas registradas
      */
     public Map<String, List<ShopItem>> getAllShops() {
-        return new HashMap<>(shops);
+        Map<String, List<ShopItem>> all = new HashMap<>();
+        shops.forEach((id, shop) -> all.put(id, shop.items));
+        return all;
+    }
+    
+    private record OpenShop(String shopId, Inventory inventory) {
+    }
+    
+    /**
+     * Catálogo compilado de una tienda; no cambia tras construirse
+     */
+    private static final class Shop {
+        private final List<ShopItem> items;
+        private final Map<Material, ShopItem> byMaterial; // primer item de cada material
+        
+        private Shop(List<ShopItem> items, Map<Material, ShopItem> byMaterial) {
+            this.items = items;
+            this.byMaterial = byMaterial;
+        }
+        
+        static Shop compile(List<ShopItem> items) {
+            EnumMap<Material, ShopItem> byMaterial = new EnumMap<>(Material.class);
+            for (ShopItem item : items) {
+                byMaterial.putIfAbsent(item.getMaterial(), item);
+            }
+            return new Shop(List.copyOf(items), Collections.unmodifiableMap(byMaterial));
+        }
     }
 }
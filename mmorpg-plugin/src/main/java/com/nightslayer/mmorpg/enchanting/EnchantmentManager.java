@@ -3,11 +3,13 @@ package com.nightslayer.mmorpg.enchanting;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.java.JavaPlugin;
 
 import java.io.*;
-import java.nio.file.Files;
-import java.nio.file.Paths;
 import java.sql.*;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
@@ -19,6 +21,7 @@ public class EnchantmentManager {
     private final Map<UUID, List<EnchantedItem>> playerEnchantedItems;
     private final JsonObject configData;
     private final Connection dbConnection;
+    private final NamespacedKey enchantmentsKey;
     private static final String TABLE_ENCHANTMENT_HISTORY = "enchantment_history";
     private static final String TABLE_ENCHANTED_ITEMS = "enchanted_items";
 
@@ -27,6 +30,7 @@ public class EnchantmentManager {
         this.enchantments = new ConcurrentHashMap<>();
         this.activeSessions = new ConcurrentHashMap<>();
         this.playerEnchantedItems = new ConcurrentHashMap<>();
+        this.enchantmentsKey = new NamespacedKey(plugin, "rpg_enchantments");
         // Usar conexión de DatabaseManager en lugar de crear una propia
         com.nightslayer.mmorpg.MMORPGPlugin mmorpgPlugin = (com.nightslayer.mmorpg.MMORPGPlugin) plugin;
         this.dbConnection = mmorpgPlugin.getDatabaseManager().getConnection();
@@ -43,8 +47,8 @@ public class EnchantmentManager {
         }
 
         try {
-            String content = new String(Files.readAllBytes(Paths.get(configFile.getPath())));
-            return com.google.gson.JsonParser.parseString(content).getAsJsonObject();
+            com.nightslayer.mmorpg.MMORPGPlugin mmorpgPlugin = (com.nightslayer.mmorpg.MMORPGPlugin) plugin;
+            return mmorpgPlugin.getConfigCache().loadObject(configFile);
         } catch (Exception e) {
             plugin.getLogger().severe("Error loading enchanting config: " + e.getMessage());
             return new JsonObject();
@@ -177,16 +181,22 @@ public class EnchantmentManager {
         return true;
     }
 
-    public boolean completeEnchantment(UUID playerUUID, String sessionId) {
+    /**
+     * Completa una sesión terminada y devuelve el item con sus encantamientos RPG guardados en el
+     * PersistentDataContainer, para que quien inició el encantamiento lo ponga en el inventario
+     * en lugar del original
+     * @return el item encantado, o null si la sesión no existe o no ha terminado
+     */
+    public ItemStack completeEnchantment(UUID playerUUID, String sessionId) {
         List<EnchantmentSession> sessions = activeSessions.get(playerUUID);
-        if (sessions == null) return false;
+        if (sessions == null) return null;
 
         EnchantmentSession session = sessions.stream()
                 .filter(s -> s.getSessionId().equals(sessionId) && s.isComplete())
                 .findFirst()
                 .orElse(null);
 
-        if (session == null) return false;
+        if (session == null) return null;
 
         // Aplicar encantamiento
         session.getItem().addEnchantment(session.getEnchantment().getId(), session.getTargetLevel());
@@ -199,7 +209,7 @@ public class EnchantmentManager {
         completeEnchantmentSession(playerUUID, session.getEnchantment().getId(), "COMPLETED");
         sessions.remove(session);
 
-        return true;
+        return toItemStack(session.getItem());
     }
 
     private void saveEnchantmentSession(UUID playerUUID, String enchantmentId, String itemType, 
@@ -259,6 +269,72 @@ public class EnchantmentManager {
         return enchantments.size();
     }
 
+    /**
+     * Copia del item con sus encantamientos RPG guardados en el PersistentDataContainer ("id:nivel;id:nivel")
+     */
+    public ItemStack toItemStack(EnchantedItem enchantedItem) {
+        ItemStack stack = enchantedItem.getItem();
+        ItemMeta meta = stack.getItemMeta();
+        if (meta == null) {
+            return stack;
+        }
+
+        StringBuilder encoded = new StringBuilder();
+        for (Map.Entry<String, Integer> entry : enchantedItem.getEnchantments().entrySet()) {
+            if (encoded.length() > 0) {
+                encoded.append(';');
+            }
+            encoded.append(entry.getKey()).append(':').append(entry.getValue());
+        }
+        if (encoded.length() > 0) {
+            meta.getPersistentDataContainer().set(enchantmentsKey, PersistentDataType.STRING, encoded.toString());
+        } else {
+            meta.getPersistentDataContainer().remove(enchantmentsKey);
+        }
+        stack.setItemMeta(meta);
+        return stack;
+    }
+
+    /**
+     * Suma a {@code totals} los efectos de los encantamientos RPG guardados en un item
+     */
+    public void addItemEffects(ItemStack stack, Map<String, Double> totals) {
+        for (Map.Entry<String, Integer> entry : getItemEnchantments(stack).entrySet()) {
+            RPGEnchantment enchantment = enchantments.get(entry.getKey());
+            if (enchantment != null) {
+                enchantment.getEffectsForLevel(entry.getValue())
+                    .forEach((effect, value) -> totals.merge(effect, value, Double::sum));
+            }
+        }
+    }
+
+    /**
+     * Encantamientos RPG guardados en un item (id -> nivel); vacío si no tiene
+     */
+    public Map<String, Integer> getItemEnchantments(ItemStack stack) {
+        if (stack == null || !stack.hasItemMeta()) {
+            return Map.of();
+        }
+        String encoded = stack.getItemMeta().getPersistentDataContainer().get(enchantmentsKey, PersistentDataType.STRING);
+        if (encoded == null || encoded.isEmpty()) {
+            return Map.of();
+        }
+
+        Map<String, Integer> result = new HashMap<>();
+        for (String part : encoded.split(";")) {
+            int separator = part.lastIndexOf(':');
+            if (separator <= 0) {
+                continue;
+            }
+            try {
+                result.put(part.substring(0, separator), Integer.parseInt(part.substring(separator + 1)));
+            } catch (NumberFormatException ignored) {
+                // Entrada dañada: se ignora
+            }
+        }
+        return result;
+    }
+
     public void shutdown() {
         activeSessions.clear();
         playerEnchantedItems.clear();
@@ -2,8 +2,11 @@ package com.nightslayer.mmorpg.events;
 
 import com.google.gson.*;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.cache.PlayerCache;
 import com.nightslayer.mmorpg.mobs.MobManager;
 import com.nightslayer.mmorpg.economy.EconomyManager;
+import com.nightslayer.mmorpg.managers.ReloadableConfig;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.Bukkit;
 import org.bukkit.World;
 import org.bukkit.scheduler.BukkitTask;
@@ -20,12 +23,12 @@ import java.util.concurrent.ConcurrentHashMap;
  * Sistema de gestión de eventos temáticos (Halloween, Navidad, etc.)
  * con mobs especiales, drops exclusivos y zonas temporales
  */
-public class EventManager {
+public class EventManager implements ReloadableConfig<Map<String, EventConfig>> {
     private final MMORPGPlugin plugin;
     private final File configFile;
-    private final Map<String, EventConfig> eventConfigs;
+    private volatile Map<String, EventConfig> eventConfigs;
     private final Map<String, EventSession> activeSessions;
-    private final Map<UUID, Integer> eventCurrency; // Monedas de evento por jugador
+    private final PlayerCache<Integer> eventCurrency; // Monedas de evento por jugador
     private BukkitTask autoCheckTask;
     
     private static final String CREATE_EVENTS_TABLE = 
@@ -52,12 +55,18 @@ public class EventManager {
         "FOREIGN KEY (event_history_id) REFERENCES event_history(id)" +
         ")";
     
+    private static final String CREATE_EVENT_CURRENCY_TABLE =
+        "CREATE TABLE IF NOT EXISTS player_event_currency (" +
+        "player_uuid TEXT PRIMARY KEY, " +
+        "coins INTEGER DEFAULT 0" +
+        ")";
+    
     public EventManager(MMORPGPlugin plugin, MobManager mobManager, EconomyManager economy) {
         this.plugin = plugin;
         this.configFile = new File(plugin.getDataFolder(), "events_config.json");
-        this.eventConfigs = new ConcurrentHashMap<>();
+        this.eventConfigs = Map.of();
         this.activeSessions = new ConcurrentHashMap<>();
-        this.eventCurrency = new ConcurrentHashMap<>();
+        this.eventCurrency = new PlayerCache<>("event-currency", this::saveEventCurrency, coins -> 16L);
         
         initDatabase();
         loadConfig();
@@ -65,10 +74,11 @@ public class EventManager {
     }
     
     private void initDatabase() {
-        try (Connection conn = plugin.getDatabase().getConnection();
-             Statement stmt = conn.createStatement()) {
+        Connection conn = plugin.getDatabase().getConnection();
+        try (Statement stmt = conn.createStatement()) {
             stmt.execute(CREATE_EVENTS_TABLE);
             stmt.execute(CREATE_EVENT_PARTICIPANTS_TABLE);
+            stmt.execute(CREATE_EVENT_CURRENCY_TABLE);
         } catch (SQLException e) {
             plugin.getLogger().severe("Error inicializando tablas de eventos: " + e.getMessage());
         }
@@ -83,20 +93,45 @@ public class EventManager {
             return;
         }
         
-        try (Reader reader = new FileReader(configFile)) {
-            JsonObject root = JsonParser.parseReader(reader).getAsJsonObject();
-            JsonArray eventsArray = root.getAsJsonArray("events");
-            
-            for (JsonElement element : eventsArray) {
-                EventConfig config = parseEventConfig(element.getAsJsonObject());
-                eventConfigs.put(config.getId(), config);
-            }
-            
-            plugin.getLogger().info("Cargados " + eventConfigs.size() + " eventos temáticos");
+        try {
+            applyConfig(parseConfig(plugin.getConfigCache().loadObject(configFile)));
         } catch (IOException e) {
             plugin.getLogger().severe("Error cargando events_config.json: " + e.getMessage());
             createDefaultConfig();
+        } catch (RuntimeException e) {
+            plugin.getLogger().severe("events_config.json no es válido, se mantiene la configuración anterior: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public File getConfigFile() {
+        return configFile;
+    }
+    
+    @Override
+    public Map<String, EventConfig> parseConfig(JsonObject root) {
+        JsonArray array = root.getAsJsonArray("events");
+        if (array == null) {
+            throw new IllegalArgumentException("Falta la lista \"events\"");
+        }
+        
+        Map<String, EventConfig> configs = new LinkedHashMap<>();
+        for (JsonElement element : array) {
+            EventConfig config = parseEventConfig(element.getAsJsonObject());
+            configs.put(config.getId(), config);
         }
+        return Collections.unmodifiableMap(configs);
+    }
+    
+    @Override
+    public void applyConfig(Map<String, EventConfig> configs) {
+        eventConfigs = configs;
+        plugin.getLogger().info("Cargados " + configs.size() + " eventos temáticos");
+    }
+    
+    @Override
+    public Map<String, EventConfig> currentConfig() {
+        return eventConfigs;
     }
     
     /**
@@ -191,7 +226,7 @@ public class EventManager {
         root.add("events", events);
         
         try (Writer writer = new FileWriter(configFile)) {
-            Gson gson = new GsonBuilder().setPrettyPrinting().create();
+            Gson gson = GsonRegistry.pretty();
             gson.toJson(root, writer);
             plugin.getLogger().info("Creado events_config.json por defecto con 2 eventos");
         } catch (IOException e) {
@@ -356,8 +391,11 @@ public class EventManager {
                 // Recompensas
                 if (config.getRewards() != null) {
                     int eventCoins = config.getRewards().getEventCoinsPerKill();
-                    eventCurrency.merge(playerId, Integer.valueOf(eventCoins), (a, b) -> Integer.valueOf(a.intValue() + b.intValue()));
-                    killer.sendMessage("§a§l[EVENTO] §7+§e" + eventCoins + " §7monedas de evento");
+                    Integer current = loadedEventCurrency(playerId);
+                    if (current != null) {
+                        eventCurrency.put(playerId, current + eventCoins);
+                        killer.sendMessage("§a§l[EVENTO] §7+§e" + eventCoins + " §7monedas de evento");
+                    }
                 }
                 
                 // Actualizar BD
@@ -370,15 +408,70 @@ public class EventManager {
      * Obtiene las monedas de evento de un jugador
      */
     public int getEventCurrency(UUID playerId) {
-        return eventCurrency.getOrDefault(playerId, 0);
+        Integer coins = loadedEventCurrency(playerId);
+        return coins != null ? coins : 0;
+    }
+    
+    /**
+     * Monedas de evento en memoria, cargándolas si hace falta; null si no se pudieron leer.
+     * Quien las modifica debe comprobarlo, para no guardar encima del valor real uno que nunca se leyó.
+     */
+    private Integer loadedEventCurrency(UUID playerId) {
+        return eventCurrency.computeIfAbsent(playerId, this::loadEventCurrency);
+    }
+    
+    /**
+     * Lee de la BD las monedas de evento de un jugador
+     * @return null si la lectura falla (no se guarda nada en la caché)
+     */
+    private Integer loadEventCurrency(UUID playerId) {
+        String sql = "SELECT coins FROM player_event_currency WHERE player_uuid = ?";
+        Connection conn = plugin.getDatabase().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, playerId.toString());
+            ResultSet rs = stmt.executeQuery();
+            if (rs.next()) {
+                return rs.getInt("coins");
+            }
+            return 0;
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Error cargando monedas de evento: " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Guarda en la BD las monedas de evento de un jugador
+     * @return false si no se pudo escribir
+     */
+    private boolean saveEventCurrency(UUID playerId, Integer coins) {
+        String sql = "INSERT INTO player_event_currency (player_uuid, coins) VALUES (?, ?) " +
+            "ON CONFLICT(player_uuid) DO UPDATE SET coins = excluded.coins";
+        Connection conn = plugin.getDatabase().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
+            stmt.setString(1, playerId.toString());
+            stmt.setInt(2, coins);
+            stmt.executeUpdate();
+            return true;
+        } catch (SQLException e) {
+            plugin.getLogger().severe("Error guardando monedas de evento: " + e.getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Caché de monedas de evento cargadas en memoria
+     */
+    public PlayerCache<Integer> getPlayerCache() {
+        return eventCurrency;
     }
     
     /**
      * Consume monedas de evento de un jugador
      */
     public boolean spendEventCurrency(UUID playerId, int amount) {
-        int current = eventCurrency.getOrDefault(playerId, 0);
-        if (current < amount) {
+        Integer current = loadedEventCurrency(playerId);
+        if (current == null || current < amount) {
             return false;
         }
         eventCurrency.put(playerId, current - amount);
@@ -413,8 +506,8 @@ public class EventManager {
         List<Map<String, Object>> history = new ArrayList<>();
         
         String query = "SELECT * FROM event_history ORDER BY started_at DESC LIMIT ?";
-        try (Connection conn = plugin.getDatabase().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(query)) {
+        Connection conn = plugin.getDatabase().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(query)) {
             stmt.setInt(1, limit);
             
             ResultSet rs = stmt.executeQuery();
@@ -440,8 +533,8 @@ public class EventManager {
     
     private void saveEventStart(EventSession session) {
         String sql = "INSERT INTO event_history (event_id, event_name, started_at, world, status) VALUES (?, ?, ?, ?, ?)";
-        try (Connection conn = plugin.getDatabase().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
+        Connection conn = plugin.getDatabase().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(sql, Statement.RETURN_GENERATED_KEYS)) {
             stmt.setString(1, session.getEventId());
             stmt.setString(2, session.getEventName());
             stmt.setString(3, session.getStartedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
@@ -461,8 +554,8 @@ public class EventManager {
     
     private void saveEventEnd(EventSession session) {
         String sql = "UPDATE event_history SET ended_at = ?, participants = ?, total_kills = ?, status = ? WHERE id = ?";
-        try (Connection conn = plugin.getDatabase().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = plugin.getDatabase().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, session.getEndedAt().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
             stmt.setInt(2, session.getParticipants().size());
             stmt.setInt(3, session.getTotalKills());
@@ -480,7 +573,8 @@ public class EventManager {
         String insertSql = "INSERT INTO event_participants (event_history_id, player_uuid, player_name, kills) VALUES (?, ?, ?, 1)";
         String updateSql = "UPDATE event_participants SET kills = ? WHERE id = ?";
         
-        try (Connection conn = plugin.getDatabase().getConnection()) {
+        Connection conn = plugin.getDatabase().getConnection();
+        try {
             // Verificar si existe
             try (PreparedStatement checkStmt = conn.prepareStatement(checkSql)) {
                 checkStmt.setInt(1, historyId);
@@ -519,14 +613,16 @@ public class EventManager {
         for (String eventId : new ArrayList<>(activeSessions.keySet())) {
             stopEvent(eventId);
         }
+        
+        eventCurrency.forEach(this::saveEventCurrency);
     }
 
     public List<Map<String, Object>> getCurrencyHistory(UUID playerId, int limit) {
         List<Map<String, Object>> history = new ArrayList<>();
         String sql = "SELECT event_id, event_coins_earned, kills FROM event_participants WHERE player_uuid = ? ORDER BY id DESC LIMIT ?";
         
-        try (Connection conn = plugin.getDatabase().getConnection();
-             PreparedStatement stmt = conn.prepareStatement(sql)) {
+        Connection conn = plugin.getDatabase().getConnection();
+        try (PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, playerId.toString());
             stmt.setInt(2, limit);
             
@@ -546,15 +642,19 @@ public class EventManager {
     }
 
     public void addEventCurrency(UUID playerId, int amount, String eventId, String reason) {
-        int current = eventCurrency.getOrDefault(playerId, 0);
+        Integer current = loadedEventCurrency(playerId);
+        if (current == null) {
+            plugin.getLogger().warning("No se añadieron " + amount + " monedas de evento a " + playerId + ": no se pudo leer su saldo");
+            return;
+        }
         eventCurrency.put(playerId, current + amount);
         
         // Actualizar en BD si hay sesión activa
         EventSession session = activeSessions.get(eventId);
         if (session != null && session.getHistoryId() > 0) {
             String sql = "UPDATE event_participants SET event_coins_earned = event_coins_earned + ? WHERE event_history_id = ? AND player_uuid = ?";
-            try (Connection conn = plugin.getDatabase().getConnection();
-                 PreparedStatement stmt = conn.prepareStatement(sql)) {
+            Connection conn = plugin.getDatabase().getConnection();
+            try (PreparedStatement stmt = conn.prepareStatement(sql)) {
                 stmt.setInt(1, amount);
                 stmt.setInt(2, session.getHistoryId());
                 stmt.setString(3, playerId.toString());
@@ -566,8 +666,8 @@ public class EventManager {
     }
 
     public boolean spendEventCurrency(UUID playerId, int amount, String reason) {
-        int current = eventCurrency.getOrDefault(playerId, 0);
-        if (current < amount) {
+        Integer current = loadedEventCurrency(playerId);
+        if (current == null || current < amount) {
             return false;
         }
         
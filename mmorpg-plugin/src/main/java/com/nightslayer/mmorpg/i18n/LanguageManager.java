@@ -1,64 +1,95 @@
 package com.nightslayer.mmorpg.i18n;
 
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import org.bukkit.NamespacedKey;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.YamlConfiguration;
 import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataType;
 import org.bukkit.plugin.Plugin;
 
 import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Sistema de internacionalización (i18n) para el plugin
+ * Al cargar, cada idioma se aplana en una tabla inmutable clave -> {@link MessageTemplate} que ya
+ * incluye las claves del idioma predeterminado que le falten, así que pedir un mensaje es una sola
+ * búsqueda. Las tablas se sustituyen de golpe al recargar y cada jugador guarda solo la posición
+ * de su idioma en la tabla.
  */
 public class LanguageManager {
     private final Plugin plugin;
     private final File langDir;
-    private final Map<String, YamlConfiguration> languages;
+    private volatile Catalog catalog;
     private String defaultLanguage;
-    private final Map<String, String> playerLanguages;
-    
+    private final PlayerCache<Integer> playerLanguages; // UUID del jugador -> posición del idioma en el catálogo
+    private final NamespacedKey languageKey;
+
     public LanguageManager(Plugin plugin) {
         this.plugin = plugin;
         this.langDir = new File(plugin.getDataFolder(), "lang");
-        this.languages = new HashMap<>();
-        this.playerLanguages = new HashMap<>();
+        // La preferencia se guarda en los datos persistentes del jugador al cambiarla
+        this.playerLanguages = new PlayerCache<>("languages", null, index -> 16L);
+        this.languageKey = new NamespacedKey(plugin, "language");
         this.defaultLanguage = "es_ES";
-        
+
         if (!langDir.exists()) {
             langDir.mkdirs();
         }
-        
-        loadLanguages();
+
+        this.catalog = Catalog.build(loadLanguages(), defaultLanguage);
     }
-    
+
     /**
-     * Carga todos los archivos de idioma
+     * Carga todos los archivos de idioma y los aplana en mapas clave -> texto
      */
-    private void loadLanguages() {
+    private Map<String, Map<String, String>> loadLanguages() {
         // Crear archivos de idioma por defecto si no existen
         saveDefaultLanguageFile("es_ES.yml");
         saveDefaultLanguageFile("en_US.yml");
-        
+
+        Map<String, Map<String, String>> sources = new TreeMap<>();
+
         // Cargar todos los archivos .yml del directorio lang
         File[] files = langDir.listFiles((dir, name) -> name.endsWith(".yml"));
         if (files != null) {
             for (File file : files) {
                 String locale = file.getName().replace(".yml", "");
-                YamlConfiguration config = YamlConfiguration.loadConfiguration(file);
-                languages.put(locale, config);
+                sources.put(locale, flatten(YamlConfiguration.loadConfiguration(file)));
                 plugin.getLogger().info("Idioma cargado: " + locale);
             }
         }
-        
-        if (languages.isEmpty()) {
+
+        if (sources.isEmpty()) {
             plugin.getLogger().warning("No se cargaron archivos de idioma. Usando valores por defecto.");
         }
+        return sources;
     }
-    
+
+    /**
+     * Claves completas (p. ej. "general.prefix") de todos los valores que no son secciones
+     */
+    private static Map<String, String> flatten(YamlConfiguration config) {
+        Map<String, String> messages = new HashMap<>();
+        for (String key : config.getKeys(true)) {
+            Object value = config.get(key);
+            if (value != null && !(value instanceof ConfigurationSection)) {
+                messages.put(key, value.toString());
+            }
+        }
+        return messages;
+    }
+
     /**
      * Guarda un archivo de idioma por defecto desde resources
      */
@@ -78,88 +109,158 @@ public class LanguageManager {
             }
         }
     }
-    
+
     /**
      * Obtiene un mensaje traducido para un jugador
      */
     public String getMessage(Player player, String key, Object... args) {
-        String locale = getPlayerLanguage(player);
-        return getMessage(locale, key, args);
+        Catalog current = catalog;
+        return current.message(getPlayerLanguageIndex(player, current), key, args);
     }
-    
+
     /**
      * Obtiene un mensaje traducido para un locale específico
      */
     public String getMessage(String locale, String key, Object... args) {
-        YamlConfiguration lang = languages.get(locale);
-        
-        // Si no existe el idioma, usar el predeterminado
-        if (lang == null) {
-            lang = languages.get(defaultLanguage);
-        }
-        
-        // Si tampoco existe el predeterminado, devolver la key
-        if (lang == null) {
-            return key;
-        }
-        
-        String message = lang.getString(key, key);
-        
-        // Reemplazar placeholders
-        if (args.length > 0) {
-            for (int i = 0; i < args.length; i++) {
-                message = message.replace("{" + i + "}", String.valueOf(args[i]));
-            }
-        }
-        
-        // Reemplazar códigos de color
-        return message.replace("&", "§");
+        Catalog current = catalog;
+        return current.message(current.indexOf(locale), key, args);
     }
-    
+
     /**
      * Obtiene el idioma de un jugador
      */
     public String getPlayerLanguage(Player player) {
-        String uuid = player.getUniqueId().toString();
-        return playerLanguages.getOrDefault(uuid, defaultLanguage);
+        Catalog current = catalog;
+        int index = getPlayerLanguageIndex(player, current);
+        return index >= 0 ? current.locales[index] : defaultLanguage;
     }
-    
+
+    private int getPlayerLanguageIndex(Player player, Catalog current) {
+        Integer index = playerLanguages.computeIfAbsent(player.getUniqueId(), uuid ->
+            current.indexOf(player.getPersistentDataContainer().getOrDefault(languageKey, PersistentDataType.STRING, "")));
+        // Una recarga puede haber cambiado las posiciones mientras tanto
+        return index < current.locales.length ? index : current.defaultIndex;
+    }
+
     /**
      * Establece el idioma de un jugador
      */
     public void setPlayerLanguage(Player player, String locale) {
-        if (languages.containsKey(locale)) {
-            playerLanguages.put(player.getUniqueId().toString(), locale);
+        Integer index = catalog.indexes.get(locale);
+        if (index != null) {
+            player.getPersistentDataContainer().set(languageKey, PersistentDataType.STRING, locale);
+            playerLanguages.put(player.getUniqueId(), index);
         }
     }
-    
+
+    /**
+     * Caché de idiomas de jugadores cargados en memoria
+     */
+    public PlayerCache<Integer> getPlayerCache() {
+        return playerLanguages;
+    }
+
     /**
      * Establece el idioma predeterminado
      */
     public void setDefaultLanguage(String locale) {
-        if (languages.containsKey(locale)) {
+        Catalog current = catalog;
+        if (current.indexes.containsKey(locale)) {
             this.defaultLanguage = locale;
+            swap(Catalog.build(current.sources, locale));
         }
     }
-    
+
     /**
      * Obtiene todos los idiomas disponibles
      */
     public Map<String, String> getAvailableLanguages() {
+        Catalog current = catalog;
         Map<String, String> langs = new HashMap<>();
-        for (String locale : languages.keySet()) {
-            YamlConfiguration config = languages.get(locale);
-            String name = config.getString("language.name", locale);
-            langs.put(locale, name);
+        for (String locale : current.locales) {
+            langs.put(locale, current.sources.get(locale).getOrDefault("language.name", locale));
         }
         return langs;
     }
-    
+
     /**
-     * Recarga todos los archivos de idioma
+     * Recarga todos los archivos de idioma; los mensajes siguen saliendo de las tablas anteriores
+     * hasta que las nuevas están completas
      */
     public void reload() {
-        languages.clear();
-        loadLanguages();
+        swap(Catalog.build(loadLanguages(), defaultLanguage));
+    }
+
+    private void swap(Catalog next) {
+        catalog = next;
+        // Las posiciones de idioma guardadas pueden no valer para el catálogo nuevo
+        playerLanguages.clear();
+    }
+
+    /**
+     * Idiomas cargados y sus tablas de mensajes ya compilados; no cambia tras construirse
+     */
+    private static final class Catalog {
+        private final Map<String, Map<String, String>> sources; // locale -> clave -> texto original
+        private final String[] locales;
+        private final Map<String, Integer> indexes;
+        private final List<Map<String, MessageTemplate>> tables;
+        private final int defaultIndex; // -1 si no hay ningún idioma
+        private final Map<String, MessageTemplate> missing; // claves inexistentes, que se muestran tal cual
+
+        private Catalog(Map<String, Map<String, String>> sources, String[] locales, Map<String, Integer> indexes,
+                        List<Map<String, MessageTemplate>> tables, int defaultIndex) {
+            this.sources = sources;
+            this.locales = locales;
+            this.indexes = indexes;
+            this.tables = tables;
+            this.defaultIndex = defaultIndex;
+            this.missing = new ConcurrentHashMap<>();
+        }
+
+        static Catalog build(Map<String, Map<String, String>> sources, String defaultLanguage) {
+            String[] locales = sources.keySet().toArray(new String[0]);
+            Arrays.sort(locales);
+
+            Map<String, Integer> indexes = new HashMap<>();
+            for (int i = 0; i < locales.length; i++) {
+                indexes.put(locales[i], i);
+            }
+
+            Map<String, String> fallback = sources.getOrDefault(defaultLanguage, Map.of());
+            Map<String, MessageTemplate> compiledFallback = new HashMap<>();
+            fallback.forEach((key, text) -> compiledFallback.put(key, MessageTemplate.compile(text)));
+
+            List<Map<String, MessageTemplate>> tables = new ArrayList<>(locales.length);
+            for (String locale : locales) {
+                Map<String, MessageTemplate> table = new HashMap<>(compiledFallback);
+                if (!locale.equals(defaultLanguage)) {
+                    sources.get(locale).forEach((key, text) -> table.put(key, MessageTemplate.compile(text)));
+                }
+                tables.add(Map.copyOf(table));
+            }
+
+            Map<String, Map<String, String>> copies = new HashMap<>();
+            sources.forEach((locale, messages) -> copies.put(locale, Map.copyOf(messages)));
+
+            int defaultIndex = indexes.getOrDefault(defaultLanguage, -1);
+            return new Catalog(Map.copyOf(copies), locales, Map.copyOf(indexes), List.copyOf(tables), defaultIndex);
+        }
+
+        int indexOf(String locale) {
+            return indexes.getOrDefault(locale, defaultIndex);
+        }
+
+        String message(int index, String key, Object... args) {
+            // Sin el idioma pedido ni el predeterminado se devuelve la clave
+            if (index < 0) {
+                return key;
+            }
+            MessageTemplate template = tables.get(index).get(key);
+            if (template == null) {
+                template = missing.computeIfAbsent(key, MessageTemplate::compile);
+            }
+            return template.render(args);
+        }
     }
 }
@@ -0,0 +1,104 @@
+package com.nightslayer.mmorpg.i18n;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mensaje precompilado en segmentos: texto literal (con los códigos de color {@code &} ya
+ * convertidos a {@code §}) y placeholders {@code {0}}, {@code {1}}...
+ * Se compila una sola vez al cargar el idioma; los mensajes sin placeholders devuelven siempre
+ * la misma cadena y el resto se construye en una sola pasada con un StringBuilder.
+ */
+public final class MessageTemplate {
+    private final String[] literals;  // literals[i] va antes del placeholder i; el último cierra el mensaje
+    private final int[] placeholders; // índice del argumento de cada placeholder
+    private final String staticText;  // mensaje completo si no tiene placeholders
+    private final int literalLength;
+
+    private MessageTemplate(String[] literals, int[] placeholders) {
+        this.literals = literals;
+        this.placeholders = placeholders;
+        this.staticText = placeholders.length == 0 ? literals[0] : null;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        this.literalLength = length;
+    }
+
+    /**
+     * Compila un mensaje tal como aparece en el archivo de idioma
+     */
+    public static MessageTemplate compile(String raw) {
+        List<String> literals = new ArrayList<>();
+        List<Integer> placeholders = new ArrayList<>();
+        StringBuilder literal = new StringBuilder(raw.length());
+
+        int i = 0;
+        while (i < raw.length()) {
+            char c = raw.charAt(i);
+            if (c == '{') {
+                int end = i + 1;
+                while (end < raw.length() && raw.charAt(end) >= '0' && raw.charAt(end) <= '9') {
+                    end++;
+                }
+                boolean canonical = end > i + 1 && end - i <= 10 && (raw.charAt(i + 1) != '0' || end == i + 2);
+                if (canonical && end < raw.length() && raw.charAt(end) == '}') {
+                    literals.add(literal.toString());
+                    literal.setLength(0);
+                    placeholders.add(Integer.parseInt(raw, i + 1, end, 10));
+                    i = end + 1;
+                    continue;
+                }
+            }
+            literal.append(c == '&' ? '§' : c);
+            i++;
+        }
+        literals.add(literal.toString());
+
+        int[] indexes = new int[placeholders.size()];
+        for (int p = 0; p < indexes.length; p++) {
+            indexes[p] = placeholders.get(p);
+        }
+        return new MessageTemplate(literals.toArray(new String[0]), indexes);
+    }
+
+    /**
+     * Sustituye los placeholders por los argumentos. Igual que antes, los {@code &} de los
+     * argumentos también se convierten a códigos de color y los placeholders sin argumento se
+     * dejan tal cual.
+     */
+    public String render(Object... args) {
+        if (staticText != null) {
+            return staticText;
+        }
+
+        StringBuilder out = new StringBuilder(literalLength + placeholders.length * 8);
+        for (int i = 0; i < placeholders.length; i++) {
+            out.append(literals[i]);
+            int index = placeholders[i];
+            if (index < args.length) {
+                appendColored(out, String.valueOf(args[index]));
+            } else {
+                out.append('{').append(index).append('}');
+            }
+        }
+        out.append(literals[placeholders.length]);
+        return out.toString();
+    }
+
+    public boolean isStatic() {
+        return staticText != null;
+    }
+
+    private static void appendColored(StringBuilder out, String value) {
+        if (value.indexOf('&') < 0) {
+            out.append(value);
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            out.append(c == '&' ? '§' : c);
+        }
+    }
+}
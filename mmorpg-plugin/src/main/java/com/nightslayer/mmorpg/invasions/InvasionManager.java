@@ -2,7 +2,6 @@ package com.nightslayer.mmorpg.invasions;
 
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.mobs.MobManager;
-import com.nightslayer.mmorpg.economy.EconomyManager;
 import org.bukkit.Bukkit;
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -12,14 +11,13 @@ import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitRunnable;
 import org.bukkit.scheduler.BukkitTask;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 
 import java.io.File;
 import java.io.FileWriter;
-import java.nio.file.Files;
 import java.sql.*;
 import java.util.*;
 import java.util.logging.Logger;
@@ -82,9 +80,7 @@ public class InvasionManager {
                 createDefaultConfig();
             }
 
-            String content = new String(Files.readAllBytes(configFile.toPath()));
-            Gson gson = new Gson();
-            JsonObject json = gson.fromJson(content, JsonObject.class);
+            JsonObject json = plugin.getConfigCache().loadObject(configFile);
             JsonArray invasions = json.getAsJsonArray("invasions");
 
             invasionConfigs.clear();
@@ -227,7 +223,7 @@ public class InvasionManager {
         invasions.add(zombieInvasion);
         config.add("invasions", invasions);
 
-        Gson gson = new GsonBuilder().setPrettyPrinting().create();
+        Gson gson = GsonRegistry.pretty();
         try (FileWriter writer = new FileWriter(configFile)) {
             writer.write(gson.toJson(config));
         }
@@ -446,20 +442,20 @@ public class InvasionManager {
      */
     private void giveWaveRewards(InvasionSession session, InvasionConfig config) {
         InvasionConfig.InvasionRewards rewards = config.getRewards();
-        EconomyManager economy = plugin.getEconomyManager();
+        int xp = rewards.getXpPerWave();
+        int coins = rewards.getCoinsPerWave();
 
-        // Give rewards to all participants
-        for (Map.Entry<UUID, Integer> entry : session.getPlayerKills().entrySet()) {
-            Player player = Bukkit.getPlayer(entry.getKey());
+        // Give rewards to all online participants in a single bulk payout
+        List<UUID> paid = new ArrayList<>();
+        for (UUID playerId : session.getPlayerKills().keySet()) {
+            Player player = Bukkit.getPlayer(playerId);
             if (player != null && player.isOnline()) {
-                int xp = rewards.getXpPerWave();
-                int coins = rewards.getCoinsPerWave();
-                
                 player.sendMessage("§a§l[INVASIÓN] §7Recompensa: §e+" + xp + " XP §7y §6" + coins + " monedas");
                 // Would call RPGManager to add XP
-                economy.deposit(player, coins);
+                paid.add(playerId);
             }
         }
+        plugin.getRewardService().payAll(paid, coins);
     }
 
     /**
@@ -471,18 +467,18 @@ public class InvasionManager {
         // Give completion rewards
         if (success) {
             InvasionConfig.InvasionRewards rewards = config.getRewards();
-            EconomyManager economy = plugin.getEconomyManager();
+            int xpBonus = rewards.getXpBonus();
+            int coinsBonus = rewards.getCoinsBonus();
 
-            for (Map.Entry<UUID, Integer> entry : session.getPlayerKills().entrySet()) {
-                Player player = Bukkit.getPlayer(entry.getKey());
+            List<UUID> paid = new ArrayList<>();
+            for (UUID playerId : session.getPlayerKills().keySet()) {
+                Player player = Bukkit.getPlayer(playerId);
                 if (player != null && player.isOnline()) {
-                    int xpBonus = rewards.getXpBonus();
-                    int coinsBonus = rewards.getCoinsBonus();
-                    
                     player.sendMessage("§a§l[INVASIÓN COMPLETADA] §7Bonus: §e+" + xpBonus + " XP §7y §6" + coinsBonus + " monedas");
-                    economy.deposit(player, coinsBonus);
+                    paid.add(playerId);
                 }
             }
+            plugin.getRewardService().payAll(paid, coinsBonus);
 
             Audience audience = Bukkit.getServer();
             audience.sendMessage(Component.text("§a§l[INVASIÓN] §7¡La invasión de §e" + config.getDisplayName() + " §7ha sido derrotada!"));
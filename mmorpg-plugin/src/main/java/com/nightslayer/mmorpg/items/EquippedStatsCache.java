@@ -0,0 +1,184 @@
+package com.nightslayer.mmorpg.items;
+
+import com.destroystokyo.paper.event.player.PlayerArmorChangeEvent;
+import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import com.nightslayer.mmorpg.enchanting.EnchantmentManager;
+import org.bukkit.entity.HumanEntity;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.entity.EntityPickupItemEvent;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerDropItemEvent;
+import org.bukkit.event.player.PlayerItemBreakEvent;
+import org.bukkit.event.player.PlayerItemHeldEvent;
+import org.bukkit.event.player.PlayerRespawnEvent;
+import org.bukkit.event.player.PlayerSwapHandItemsEvent;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.PlayerInventory;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Suma de los atributos de los items RPG y de los efectos de encantamientos RPG que lleva equipados
+ * cada jugador (armadura y ambas manos). La suma se calcula al pedirla y se guarda hasta que cambia
+ * el inventario o la armadura del jugador, así que el combate puede consultarla sin recorrer el
+ * equipo en cada golpe. Si el catálogo de items se recarga, la suma se rehace en la siguiente consulta.
+ */
+public class EquippedStatsCache implements Listener {
+    private final MMORPGPlugin plugin;
+    private final ItemManager itemManager;
+    private final PlayerCache<Entry> stats;
+    private final Set<UUID> dirty; // jugadores a descartar otra vez al final del tick (hilo principal)
+
+    public EquippedStatsCache(MMORPGPlugin plugin, ItemManager itemManager) {
+        this.plugin = plugin;
+        this.itemManager = itemManager;
+        this.stats = new PlayerCache<>("equipped-stats", null, entry -> 80L + entry.stats().totals().size() * 48L);
+        this.dirty = new HashSet<>();
+    }
+
+    /**
+     * Atributos totales del equipo de un jugador
+     */
+    public EquippedStats getStats(Player player) {
+        ItemManager.Catalog catalog = itemManager.currentConfig();
+        Entry entry = stats.computeIfAbsent(player.getUniqueId(), uuid -> new Entry(catalog, compute(player)));
+        if (entry.catalog() != catalog) {
+            entry = new Entry(catalog, compute(player));
+            stats.put(player.getUniqueId(), entry);
+        }
+        return entry.stats();
+    }
+
+    /**
+     * Valor total de un atributo (p. ej. "damage") en el equipo de un jugador, 0 si no tiene
+     */
+    public double getStat(Player player, String attribute) {
+        return getStats(player).get(attribute);
+    }
+
+    public PlayerCache<Entry> getPlayerCache() {
+        return stats;
+    }
+
+    private EquippedStats compute(Player player) {
+        PlayerInventory inventory = player.getInventory();
+        EnchantmentManager enchantments = plugin.getEnchantmentManager();
+        Map<String, Double> totals = new HashMap<>();
+        for (ItemStack armor : inventory.getArmorContents()) {
+            add(totals, armor, enchantments);
+        }
+        add(totals, inventory.getItemInMainHand(), enchantments);
+        add(totals, inventory.getItemInOffHand(), enchantments);
+        return new EquippedStats(Map.copyOf(totals));
+    }
+
+    private void add(Map<String, Double> totals, ItemStack itemStack, EnchantmentManager enchantments) {
+        if (itemStack == null || !itemStack.hasItemMeta()) {
+            return; // Ni item RPG ni encantamientos RPG
+        }
+        RPGItem item = itemManager.getRPGItem(itemStack);
+        if (item != null) {
+            item.getAttributes().forEach((attribute, value) -> totals.merge(attribute, value, Double::sum));
+        }
+        if (enchantments != null) {
+            enchantments.addItemEffects(itemStack, totals);
+        }
+    }
+
+    /**
+     * Descarta la suma de un jugador. Se descarta también en el tick siguiente, porque varios eventos
+     * se lanzan antes de que el inventario cambie; todos los jugadores marcados en un tick se
+     * descartan con una sola tarea.
+     */
+    private void invalidate(UUID playerId) {
+        stats.evict(playerId);
+        if (dirty.isEmpty()) {
+            plugin.getServer().getScheduler().runTask(plugin, this::evictDirty);
+        }
+        dirty.add(playerId);
+    }
+
+    private void evictDirty() {
+        for (UUID playerId : dirty) {
+            stats.evict(playerId);
+        }
+        dirty.clear();
+    }
+
+    private void invalidate(HumanEntity entity) {
+        if (entity instanceof Player) {
+            invalidate(entity.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onArmorChange(PlayerArmorChangeEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryClick(InventoryClickEvent event) {
+        invalidate(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onInventoryDrag(InventoryDragEvent event) {
+        invalidate(event.getWhoClicked());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onItemHeld(PlayerItemHeldEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onSwapHands(PlayerSwapHandItemsEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onDrop(PlayerDropItemEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onPickup(EntityPickupItemEvent event) {
+        if (event.getEntity() instanceof Player player) {
+            invalidate(player.getUniqueId());
+        }
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onItemBreak(PlayerItemBreakEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onRespawn(PlayerRespawnEvent event) {
+        invalidate(event.getPlayer().getUniqueId());
+    }
+
+    /**
+     * Suma guardada junto al catálogo con el que se calculó
+     */
+    public record Entry(ItemManager.Catalog catalog, EquippedStats stats) {
+    }
+
+    /**
+     * Atributos sumados del equipo; no cambia una vez construido
+     */
+    public record EquippedStats(Map<String, Double> totals) {
+        public double get(String attribute) {
+            return totals.getOrDefault(attribute, 0.0);
+        }
+    }
+}
@@ -1,39 +1,50 @@
 package com.nightslayer.mmorpg.items;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
+import com.google.gson.JsonObject;
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.RPGPathResolver;
+import com.nightslayer.mmorpg.managers.ReloadableConfig;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.ChatColor;
 import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.Registry;
 import org.bukkit.enchantments.Enchantment;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataType;
 
 import java.io.*;
-import java.lang.reflect.Type;
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Gestiona items RPG custom con atributos y rarezas
  * Lee desde: plugins/MMORPGPlugin/data/items.json (universal)
+ * El catálogo es inmutable y se sustituye entero al recargar (ver {@link ReloadableConfig}).
+ * Al construirlo se agrupan los items por rareza, se preparan los pesos de sorteo y se crea un
+ * ItemStack modelo por item, así que crear items y sortear botín se puede hacer desde cualquier hilo.
+ * Cada ItemStack lleva su id y rareza en el PersistentDataContainer, de modo que un item se reconoce
+ * sin leer su nombre ni su lore.
  */
-public class ItemManager {
+public class ItemManager implements ReloadableConfig<ItemManager.Catalog> {
     private final MMORPGPlugin plugin;
     private final RPGPathResolver pathResolver;
-    private final Map<String, RPGItem> items;
-    private final Map<String, Rarity> rarities;
+    private volatile Catalog catalog;
     private final File itemsFile;
     private final Gson gson;
+    private final NamespacedKey itemIdKey;
+    private final NamespacedKey rarityKey;
     
     public ItemManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
         this.pathResolver = plugin.getWorldRPGManager().getPathResolver();
-        this.items = new HashMap<>();
-        this.rarities = new HashMap<>();
+        this.catalog = Catalog.EMPTY;
         this.itemsFile = pathResolver.getUniversalFile("items.json");
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = GsonRegistry.pretty();
+        this.itemIdKey = new NamespacedKey(plugin, "item_id");
+        this.rarityKey = new NamespacedKey(plugin, "item_rarity");
 
         // Asegurar carpeta y archivo de items (universal)
         pathResolver.ensureUniversalDataDirExists();
@@ -65,81 +76,131 @@ public class ItemManager {
             return;
         }
         
-        try (Reader reader = new FileReader(itemsFile)) {
-            Type type = new TypeToken<ItemData>(){}.getType();
-            ItemData data = gson.fromJson(reader, type);
-            
-            if (data != null) {
-                // Cargar rarezas
-                if (data.rarities != null) {
-                    rarities.clear();
-                    for (Map.Entry<String, RarityData> entry : data.rarities.entrySet()) {
-                        RarityData rd = entry.getValue();
-                        rarities.put(entry.getKey(), new Rarity(
-                            entry.getKey(),
-                            rd.color,
-                            rd.dropMultiplier,
-                            rd.attributeMultiplier,
-                            rd.dropChance,
-                            rd.description
-                        ));
-                    }
+        try {
+            applyConfig(parseConfig(plugin.getConfigCache().loadObject(itemsFile)));
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().severe("Error al cargar items: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public File getConfigFile() {
+        return itemsFile;
+    }
+    
+    @Override
+    public Catalog parseConfig(JsonObject json) {
+        ItemData data = gson.fromJson(json, ItemData.class);
+        Map<String, Rarity> rarities = new HashMap<>();
+        Map<String, RPGItem> items = new HashMap<>();
+        if (data == null) {
+            return Catalog.EMPTY;
+        }
+        
+        // Cargar rarezas
+        if (data.rarities != null) {
+            for (Map.Entry<String, RarityData> entry : data.rarities.entrySet()) {
+                RarityData rd = entry.getValue();
+                rarities.put(entry.getKey(), new Rarity(
+                    entry.getKey(),
+                    rd.color,
+                    rd.dropMultiplier,
+                    rd.attributeMultiplier,
+                    rd.dropChance,
+                    rd.description
+                ));
+            }
+        }
+        
+        // Cargar items
+        if (data.items != null) {
+            for (RPGItemData itemData : data.items) {
+                if (itemData.id == null || itemData.material == null) {
+                    throw new IllegalArgumentException("Hay un item sin id o material");
+                }
+                Material material;
+                try {
+                    material = Material.valueOf(itemData.material.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    plugin.getLogger().warning("Material inválido: " + itemData.material);
+                    continue;
                 }
                 
-                // Cargar items
-                if (data.items != null) {
-                    items.clear();
-                    for (RPGItemData itemData : data.items) {
-                        Material material;
-                        try {
-                            material = Material.valueOf(itemData.material.toUpperCase());
-                        } catch (IllegalArgumentException e) {
-                            plugin.getLogger().warning("Material inválido: " + itemData.material);
-                            continue;
-                        }
-                        
-                        Rarity rarity = rarities.get(itemData.rarity);
-                        if (rarity == null) {
-                            plugin.getLogger().warning("Rareza inválida: " + itemData.rarity);
-                            continue;
-                        }
-                        
-                        RPGItem item = new RPGItem(
-                            itemData.id,
-                            itemData.name,
-                            material,
-                            rarity,
-                            itemData.attributes != null ? itemData.attributes : new HashMap<>(),
-                            itemData.enchantments != null ? itemData.enchantments : new ArrayList<>()
-                        );
-                        
-                        items.put(itemData.id, item);
-                    }
+                Rarity rarity = rarities.get(itemData.rarity);
+                if (rarity == null) {
+                    plugin.getLogger().warning("Rareza inválida: " + itemData.rarity);
+                    continue;
                 }
                 
-                plugin.getLogger().info("Cargados " + items.size() + " items RPG");
+                RPGItem item = new RPGItem(
+                    itemData.id,
+                    itemData.name,
+                    material,
+                    rarity,
+                    itemData.attributes != null ? itemData.attributes : new HashMap<>(),
+                    itemData.enchantments != null ? itemData.enchantments : new ArrayList<>()
+                );
+                
+                items.put(itemData.id, item);
             }
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error al cargar items: " + e.getMessage());
         }
+        
+        Map<String, ItemStack> prototypes = new HashMap<>();
+        for (RPGItem item : items.values()) {
+            prototypes.put(item.getId(), buildItemStack(item));
+        }
+        
+        return new Catalog(items, rarities, prototypes);
+    }
+    
+    @Override
+    public void applyConfig(Catalog catalog) {
+        this.catalog = catalog;
+        plugin.getLogger().info("Cargados " + catalog.items().size() + " items RPG");
+    }
+    
+    @Override
+    public Catalog currentConfig() {
+        return catalog;
     }
     
     /**
      * Obtiene un item RPG por su ID
      */
     public RPGItem getItem(String id) {
-        return items.get(id);
+        return catalog.items().get(id);
     }
     
     /**
-     * Crea un ItemStack desde un RPGItem
+     * Id del item RPG guardado en el ItemStack, o null si no es un item RPG
      */
-    public ItemStack createItemStack(String itemId) {
-        RPGItem rpgItem = items.get(itemId);
-        if (rpgItem == null) {
+    public String getItemId(ItemStack itemStack) {
+        if (itemStack == null || !itemStack.hasItemMeta()) {
             return null;
         }
-        
+        return itemStack.getItemMeta().getPersistentDataContainer().get(itemIdKey, PersistentDataType.STRING);
+    }
+    
+    /**
+     * Item RPG del catálogo actual al que corresponde un ItemStack, o null
+     */
+    public RPGItem getRPGItem(ItemStack itemStack) {
+        String id = getItemId(itemStack);
+        return id != null ? catalog.items.get(id) : null;
+    }
+    
+    /**
+     * Crea un ItemStack desde un RPGItem (copia del modelo del catálogo)
+     */
+    public ItemStack createItemStack(String itemId) {
+        ItemStack prototype = catalog.prototypes.get(itemId);
+        return prototype != null ? prototype.clone() : null;
+    }
+    
+    /**
+     * Construye el ItemStack modelo de un item; se llama una vez al cargar el catálogo
+     */
+    private ItemStack buildItemStack(RPGItem rpgItem) {
         ItemStack itemStack = new ItemStack(rpgItem.getMaterial(), 1);
         ItemMeta meta = itemStack.getItemMeta();
         
@@ -163,14 +224,16 @@ public class ItemManager {
             
             meta.setLore(lore);
             
+            // Identidad RPG
+            meta.getPersistentDataContainer().set(itemIdKey, PersistentDataType.STRING, rpgItem.getId());
+            meta.getPersistentDataContainer().set(rarityKey, PersistentDataType.STRING, rpgItem.getRarity().getName());
+            
             // Aplicar encantamientos
             for (EnchantmentData enchData : rpgItem.getEnchantments()) {
-                try {
-                    Enchantment ench = Enchantment.getByName(enchData.type);
-                    if (ench != null) {
-                        meta.addEnchant(ench, enchData.level, true);
-                    }
-                } catch (Exception e) {
+                Enchantment ench = resolveEnchantment(enchData.type);
+                if (ench != null) {
+                    meta.addEnchant(ench, enchData.level, true);
+                } else {
                     plugin.getLogger().warning("Encantamiento inválido: " + enchData.type);
                 }
             }
@@ -181,24 +244,48 @@ public class ItemManager {
         return itemStack;
     }
     
+    /**
+     * Busca el encantamiento en el registro (p. ej. "sharpness"); acepta también los nombres antiguos de Bukkit
+     */
+    @SuppressWarnings("deprecation")
+    private static Enchantment resolveEnchantment(String type) {
+        if (type == null) {
+            return null;
+        }
+        try {
+            Enchantment ench = Registry.ENCHANTMENT.get(NamespacedKey.minecraft(type.toLowerCase(Locale.ROOT)));
+            return ench != null ? ench : Enchantment.getByName(type.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+    
     /**
      * Obtiene un item aleatorio basado en rareza
      */
     public String getRandomItemByRarity(String rarityName) {
-        Random random = new Random();
-        List<String> itemsOfRarity = new ArrayList<>();
-        
-        for (Map.Entry<String, RPGItem> entry : items.entrySet()) {
-            if (entry.getValue().getRarity().getName().equals(rarityName)) {
-                itemsOfRarity.add(entry.getKey());
-            }
+        RPGItem[] itemsOfRarity = catalog.byRarity.get(rarityName);
+        if (itemsOfRarity == null) {
+            return null;
         }
-        
-        if (itemsOfRarity.isEmpty()) {
+        return itemsOfRarity[ThreadLocalRandom.current().nextInt(itemsOfRarity.length)].getId();
+    }
+    
+    /**
+     * Obtiene un item aleatorio de todo el catálogo; la probabilidad de cada item es proporcional
+     * al multiplicador de drop de su rareza
+     */
+    public String getRandomItem() {
+        Catalog current = catalog;
+        double[] cumulative = current.cumulativeWeights;
+        if (cumulative.length == 0) {
             return null;
         }
-        
-        return itemsOfRarity.get(random.nextInt(itemsOfRarity.size()));
+        double roll = ThreadLocalRandom.current().nextDouble(cumulative[cumulative.length - 1]);
+        int index = Arrays.binarySearch(cumulative, roll);
+        // Sin coincidencia exacta binarySearch devuelve -(punto de inserción) - 1; con coincidencia el peso ya se superó
+        index = index >= 0 ? index + 1 : -index - 1;
+        return current.weightedItems[Math.min(index, cumulative.length - 1)].getId();
     }
     
     // Clases de datos para deserialización
@@ -230,6 +317,57 @@ public class ItemManager {
     }
     
     public Map<String, Rarity> getRarities() {
-        return rarities;
+        return catalog.rarities();
+    }
+    
+    /**
+     * Catálogo de items y rarezas; no cambia una vez construido
+     */
+    public static final class Catalog {
+        static final Catalog EMPTY = new Catalog(Map.of(), Map.of(), Map.of());
+        
+        private final Map<String, RPGItem> items;
+        private final Map<String, Rarity> rarities;
+        private final Map<String, ItemStack> prototypes; // id -> ItemStack modelo, se entrega clonado
+        private final Map<String, RPGItem[]> byRarity; // nombre de rareza -> items, ordenados por id
+        private final RPGItem[] weightedItems; // items con multiplicador de drop positivo
+        private final double[] cumulativeWeights; // suma acumulada de los multiplicadores de weightedItems
+        
+        Catalog(Map<String, RPGItem> items, Map<String, Rarity> rarities, Map<String, ItemStack> prototypes) {
+            this.items = Map.copyOf(items);
+            this.rarities = Map.copyOf(rarities);
+            this.prototypes = Map.copyOf(prototypes);
+            
+            List<RPGItem> sorted = new ArrayList<>(items.values());
+            sorted.sort(Comparator.comparing(RPGItem::getId));
+            
+            Map<String, List<RPGItem>> grouped = new HashMap<>();
+            List<RPGItem> weighted = new ArrayList<>();
+            for (RPGItem item : sorted) {
+                grouped.computeIfAbsent(item.getRarity().getName(), k -> new ArrayList<>()).add(item);
+                if (item.getRarity().getDropMultiplier() > 0) {
+                    weighted.add(item);
+                }
+            }
+            Map<String, RPGItem[]> buckets = new HashMap<>();
+            grouped.forEach((rarity, list) -> buckets.put(rarity, list.toArray(new RPGItem[0])));
+            this.byRarity = Map.copyOf(buckets);
+            
+            this.weightedItems = weighted.toArray(new RPGItem[0]);
+            this.cumulativeWeights = new double[weightedItems.length];
+            double total = 0;
+            for (int i = 0; i < weightedItems.length; i++) {
+                total += weightedItems[i].getRarity().getDropMultiplier();
+                cumulativeWeights[i] = total;
+            }
+        }
+        
+        public Map<String, RPGItem> items() {
+            return items;
+        }
+        
+        public Map<String, Rarity> rarities() {
+            return rarities;
+        }
     }
 }
@@ -0,0 +1,67 @@
+package com.nightslayer.mmorpg.listeners;
+
+import com.nightslayer.mmorpg.economy.ShopManager;
+import org.bukkit.entity.Player;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryCloseEvent;
+import org.bukkit.event.inventory.InventoryDragEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.inventory.Inventory;
+
+/**
+ * Listener de los inventarios de tienda: convierte los clicks en compras y ventas
+ * e impide sacar o meter items en la tienda
+ */
+public class ShopListener implements Listener {
+    private final ShopManager shopManager;
+    
+    public ShopListener(ShopManager shopManager) {
+        this.shopManager = shopManager;
+    }
+    
+    @EventHandler
+    public void onInventoryClick(InventoryClickEvent event) {
+        if (!(event.getWhoClicked() instanceof Player player)) {
+            return;
+        }
+        Inventory top = event.getView().getTopInventory();
+        String shopId = shopManager.getShopFor(player.getUniqueId(), top);
+        if (shopId == null) {
+            return;
+        }
+        
+        // Nada entra ni sale de la tienda, ni siquiera con shift desde el inventario del jugador
+        event.setCancelled(true);
+        if (event.getClickedInventory() == top) {
+            shopManager.handleClick(player, shopId, event.getSlot(), event.isRightClick());
+        }
+    }
+    
+    @EventHandler
+    public void onInventoryDrag(InventoryDragEvent event) {
+        Inventory top = event.getView().getTopInventory();
+        if (shopManager.getShopFor(event.getWhoClicked().getUniqueId(), top) == null) {
+            return;
+        }
+        for (int rawSlot : event.getRawSlots()) {
+            if (rawSlot < top.getSize()) {
+                event.setCancelled(true);
+                return;
+            }
+        }
+    }
+    
+    @EventHandler
+    public void onInventoryClose(InventoryCloseEvent event) {
+        if (shopManager.getShopFor(event.getPlayer().getUniqueId(), event.getInventory()) != null) {
+            shopManager.closeShop(event.getPlayer().getUniqueId());
+        }
+    }
+    
+    @EventHandler
+    public void onPlayerQuit(PlayerQuitEvent event) {
+        shopManager.closeShop(event.getPlayer().getUniqueId());
+    }
+}
@@ -1,11 +1,11 @@
 package com.nightslayer.mmorpg.managers;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParser;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.World;
 import org.bukkit.plugin.java.JavaPlugin;
 
@@ -15,6 +15,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.logging.Level;
 
 /**
@@ -23,6 +27,15 @@ import java.util.logging.Level;
  * - Configuraciones universales (plugins/MMORPGPlugin/data/)
  * - Configuraciones por mundo (worlds/{world}/data/) - ADITIVAS
  * - Jerarquía: templates → config/ → plugins/data/ → worlds/{world}/data/
+ * 
+ * Las combinaciones universal + mundo se guardan en caché por (archivo, mundo) junto con sus
+ * índices por id. Como mucho una vez por segundo y combinación se comparan la fecha y el tamaño
+ * de los dos archivos, y si alguno cambió se rehace; el resto de consultas no tocan el disco.
+ * Guardar con {@link #saveConfig(String, JsonObject)} la descarta en el momento. Los JsonObject
+ * devueltos son compartidos: quien necesite modificarlos debe hacer antes un deepCopy().
+ * 
+ * Nota: el plugin todavía no crea ningún ConfigManager (los gestores leen sus archivos con
+ * PathResolver y ConfigSnapshotCache), así que por ahora esta caché no actúa en el servidor.
  */
 public class ConfigManager {
     
@@ -35,6 +48,12 @@ public class ConfigManager {
     private final Path pluginDataDir;   // /server/plugins/MMORPGPlugin/data/
     private final Path worldsDir;       // /server/worlds/
     
+    // Configuraciones combinadas por (archivo, mundo)
+    private final Map<MergeKey, MergedConfig> mergedConfigs;
+    
+    // Cada cuánto se vuelve a mirar si los archivos de una combinación cambiaron
+    private static final long RECHECK_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    
     // Templates disponibles en JAR
     private static final String[] TEMPLATES = {
         "events_template.json",
@@ -51,13 +70,14 @@ public class ConfigManager {
     
     public ConfigManager(JavaPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = GsonRegistry.pretty();
         
         // Detectar rutas - en Docker el servidor está en /server
         this.serverRoot = Paths.get("/server");
         this.configDir = serverRoot.resolve("config");
         this.pluginDataDir = serverRoot.resolve("plugins/MMORPGPlugin/data");
         this.worldsDir = serverRoot.resolve("worlds");
+        this.mergedConfigs = new ConcurrentHashMap<>();
         
         ensureDirectoriesExist();
     }
@@ -141,17 +161,68 @@ public class ConfigManager {
      * 
      * @param configName Nombre del archivo (ej: "events_config.json")
      * @param world Mundo específico (null para universal)
-     * @return JsonObject con la configuración combinada
+     * @return JsonObject con la configuración combinada (compartido, no modificar)
      */
     public JsonObject loadConfigWithAdditive(String configName, World world) {
+        return getMerged(configName, world).config();
+    }
+    
+    /**
+     * Devuelve la combinación en caché; si toca revisarla y alguno de los dos archivos cambió, la rehace
+     */
+    private MergedConfig getMerged(String configName, World world) {
+        MergeKey key = new MergeKey(configName, world != null ? world.getName() : "");
+        long now = System.nanoTime();
+        MergedConfig cached = mergedConfigs.get(key);
+        if (cached != null && now - cached.checkedAt() < RECHECK_INTERVAL_NANOS) {
+            return cached;
+        }
+        
+        Path dataFile = pluginDataDir.resolve(configName);
+        Path worldConfigPath = world != null
+            ? worldsDir.resolve(world.getName()).resolve("data").resolve(configName)
+            : null;
+        long baseFingerprint = fingerprint(dataFile);
+        long worldFingerprint = worldConfigPath != null ? fingerprint(worldConfigPath) : -1L;
+        
+        MergedConfig merged;
+        if (cached != null && cached.baseFingerprint() == baseFingerprint && cached.worldFingerprint() == worldFingerprint) {
+            merged = cached.checkedAgain(now);
+        } else {
+            merged = new MergedConfig(baseFingerprint, worldFingerprint, now,
+                mergeWithWorld(configName, worldConfigPath), new ConcurrentHashMap<>());
+        }
+        mergedConfigs.put(key, merged);
+        return merged;
+    }
+    
+    private static long fingerprint(Path file) {
+        File f = file.toFile();
+        return f.exists() ? f.lastModified() * 31L + f.length() : -1L;
+    }
+    
+    /**
+     * Descarta las combinaciones de un archivo en todos los mundos sin esperar a la siguiente revisión
+     */
+    public void invalidate(String configName) {
+        mergedConfigs.keySet().removeIf(key -> key.configName().equals(configName));
+    }
+    
+    /**
+     * Descarta todas las combinaciones en caché
+     */
+    public void invalidateAll() {
+        mergedConfigs.clear();
+    }
+    
+    private JsonObject mergeWithWorld(String configName, Path worldConfigPath) {
         JsonObject baseConfig = loadUniversalConfig(configName);
         
-        if (world == null) {
+        if (worldConfigPath == null) {
             return baseConfig; // Solo configuración universal
         }
         
         // Cargar configuración del mundo (aditiva)
-        Path worldConfigPath = worldsDir.resolve(world.getName()).resolve("data").resolve(configName);
         if (!Files.exists(worldConfigPath)) {
             return baseConfig; // No hay config específica del mundo
         }
@@ -249,18 +320,30 @@ public class ConfigManager {
      * @return JsonObject de la entidad o null si no existe
      */
     public JsonObject resolveForWorld(String configName, String arrayKey, String idKey, String idValue, World world) {
-        JsonArray items = loadConfigArray(configName, arrayKey, world);
+        MergedConfig merged = getMerged(configName, world);
+        Map<String, JsonObject> index = merged.indexes().computeIfAbsent(arrayKey + '\0' + idKey,
+            k -> indexById(merged.config(), arrayKey, idKey));
+        return index.get(idValue); // null si no existe
+    }
+    
+    /**
+     * Índice id -> entidad de un array; si un id se repite gana el primero (el universal)
+     */
+    private static Map<String, JsonObject> indexById(JsonObject config, String arrayKey, String idKey) {
+        if (!config.has(arrayKey) || !config.get(arrayKey).isJsonArray()) {
+            return Map.of();
+        }
         
-        for (JsonElement element : items) {
+        Map<String, JsonObject> index = new HashMap<>();
+        for (JsonElement element : config.getAsJsonArray(arrayKey)) {
             if (!element.isJsonObject()) continue;
             
             JsonObject item = element.getAsJsonObject();
-            if (item.has(idKey) && item.get(idKey).getAsString().equals(idValue)) {
-                return item;
+            if (item.has(idKey) && item.get(idKey).isJsonPrimitive()) {
+                index.putIfAbsent(item.get(idKey).getAsString(), item);
             }
         }
-        
-        return null; // No encontrado
+        return Map.copyOf(index);
     }
     
     /**
@@ -275,6 +358,7 @@ public class ConfigManager {
             // Sincronizar a plugins/data/
             Path dataFile = pluginDataDir.resolve(configName);
             Files.writeString(dataFile, gson.toJson(config), StandardCharsets.UTF_8);
+            invalidate(configName);
             
             plugin.getLogger().info("Configuración guardada: " + configName);
         } catch (IOException e) {
@@ -308,4 +392,18 @@ public class ConfigManager {
         }
         return worldData;
     }
+    
+    private record MergeKey(String configName, String worldName) {
+    }
+    
+    /**
+     * Combinación en caché, con las huellas de los archivos de los que sale, cuándo se revisaron y sus índices por id
+     */
+    private record MergedConfig(long baseFingerprint, long worldFingerprint, long checkedAt, JsonObject config,
+                                Map<String, Map<String, JsonObject>> indexes) {
+        
+        MergedConfig checkedAgain(long now) {
+            return new MergedConfig(baseFingerprint, worldFingerprint, now, config, indexes);
+        }
+    }
 }
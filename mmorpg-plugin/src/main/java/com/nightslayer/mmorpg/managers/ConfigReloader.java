@@ -0,0 +1,193 @@
+package com.nightslayer.mmorpg.managers;
+
+import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.MMORPGPlugin;
+import org.bukkit.Bukkit;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+
+/**
+ * Recarga en caliente de las configuraciones JSON de los gestores.
+ * Un hilo en segundo plano vigila las carpetas de los archivos registrados; cuando uno cambia,
+ * espera a que termine de escribirse, lo vuelve a leer y validar en ese mismo hilo y solo salta
+ * al hilo principal para sustituir la configuración. Si el archivo no es válido se mantiene la
+ * configuración anterior, y si falla al aplicarse se vuelve a la anterior.
+ */
+public class ConfigReloader {
+    /** Espera máxima entre revisiones si el sistema de archivos no notifica cambios */
+    private static final long RESCAN_SECONDS = 10L;
+
+    private final MMORPGPlugin plugin;
+    private final long debounceMillis;
+    private final List<ReloadableConfig<?>> configs;
+    private final Map<File, Long> fingerprints;
+    private volatile boolean running;
+    private WatchService watchService;
+    private Thread worker;
+
+    public ConfigReloader(MMORPGPlugin plugin) {
+        this.plugin = plugin;
+        this.debounceMillis = Math.max(50L, plugin.getConfig().getLong("config-reload.debounce-ms", 500L));
+        this.configs = new CopyOnWriteArrayList<>();
+        this.fingerprints = new HashMap<>();
+    }
+
+    /**
+     * Registra un gestor para recargar su configuración cuando cambie el archivo
+     */
+    public void register(ReloadableConfig<?> config) {
+        configs.add(config);
+        synchronized (fingerprints) {
+            fingerprints.put(config.getConfigFile(), fingerprint(config.getConfigFile()));
+        }
+    }
+
+    /**
+     * Inicia el hilo que vigila los archivos registrados
+     */
+    public void start() {
+        if (running) {
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            Set<Path> folders = new HashSet<>();
+            for (ReloadableConfig<?> config : configs) {
+                File folder = config.getConfigFile().getAbsoluteFile().getParentFile();
+                if (folder.isDirectory() && folders.add(folder.toPath())) {
+                    folder.toPath().register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+                }
+            }
+        } catch (IOException e) {
+            plugin.getLogger().log(Level.WARNING, "No se pudieron vigilar las configuraciones, se revisarán cada " + RESCAN_SECONDS + "s", e);
+            watchService = null;
+        }
+
+        running = true;
+        worker = new Thread(this::run, "MMORPG-ConfigReload");
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Recarga todas las configuraciones registradas aunque no hayan cambiado (p. ej. desde /rpg reload)
+     */
+    public void reloadAll() {
+        Bukkit.getScheduler().runTaskAsynchronously(plugin, () -> {
+            for (ReloadableConfig<?> config : configs) {
+                reload(config);
+            }
+        });
+    }
+
+    public void shutdown() {
+        running = false;
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+                // Se está cerrando de todos modos
+            }
+        }
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join(2000L);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            worker = null;
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                awaitChanges();
+                for (ReloadableConfig<?> config : configs) {
+                    if (changed(config.getConfigFile())) {
+                        reload(config);
+                    }
+                }
+            } catch (InterruptedException | ClosedWatchServiceException e) {
+                break;
+            } catch (Exception e) {
+                plugin.getLogger().log(Level.WARNING, "Error vigilando configuraciones", e);
+            }
+        }
+    }
+
+    /**
+     * Espera a que algo cambie y luego a que deje de cambiar durante el tiempo de espera,
+     * para no leer un archivo que el editor todavía está escribiendo
+     */
+    private void awaitChanges() throws InterruptedException {
+        if (watchService == null) {
+            Thread.sleep(TimeUnit.SECONDS.toMillis(RESCAN_SECONDS));
+            return;
+        }
+        WatchKey key = watchService.poll(RESCAN_SECONDS, TimeUnit.SECONDS);
+        while (key != null) {
+            key.pollEvents();
+            key.reset();
+            key = watchService.poll(debounceMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private boolean changed(File file) {
+        long current = fingerprint(file);
+        synchronized (fingerprints) {
+            Long previous = fingerprints.put(file, current);
+            return previous == null || previous != current;
+        }
+    }
+
+    /**
+     * Lee y valida en el hilo actual; la sustitución se hace en el hilo principal
+     */
+    private <T> void reload(ReloadableConfig<T> config) {
+        File file = config.getConfigFile();
+        if (!file.exists()) {
+            return;
+        }
+
+        T parsed;
+        try {
+            JsonObject json = plugin.getConfigCache().loadObject(file);
+            parsed = config.parseConfig(json);
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().warning("Configuración inválida en " + file.getName() + ", se mantiene la anterior: " + e.getMessage());
+            return;
+        }
+
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            T previous = config.currentConfig();
+            try {
+                config.applyConfig(parsed);
+                plugin.getLogger().info("Configuración recargada: " + file.getName());
+            } catch (RuntimeException e) {
+                config.applyConfig(previous);
+                plugin.getLogger().log(Level.SEVERE, "Error aplicando " + file.getName() + ", se restauró la configuración anterior", e);
+            }
+        });
+    }
+
+    private static long fingerprint(File file) {
+        return file.exists() ? file.lastModified() * 31L + file.length() : -1L;
+    }
+}
@@ -0,0 +1,37 @@
+package com.nightslayer.mmorpg.managers;
+
+import com.google.gson.JsonObject;
+
+import java.io.File;
+
+/**
+ * Gestor cuya configuración JSON se puede recargar en caliente con {@link ConfigReloader}.
+ * La recarga se hace en dos pasos: {@link #parseConfig(JsonObject)} construye una configuración
+ * nueva e inmutable fuera del hilo principal, y {@link #applyConfig(Object)} la sustituye de golpe
+ * en el hilo principal, de modo que el juego nunca ve una configuración a medio cargar.
+ *
+ * @param <T> configuración ya procesada que usa el gestor
+ */
+public interface ReloadableConfig<T> {
+
+    /**
+     * Archivo JSON del que sale la configuración
+     */
+    File getConfigFile();
+
+    /**
+     * Procesa y valida el JSON sin tocar el estado del gestor (se llama fuera del hilo principal)
+     * @throws RuntimeException si la configuración no es válida; la actual se mantiene
+     */
+    T parseConfig(JsonObject json);
+
+    /**
+     * Sustituye la configuración activa (hilo principal)
+     */
+    void applyConfig(T config);
+
+    /**
+     * Configuración activa, para volver a ella si aplicar la nueva falla
+     */
+    T currentConfig();
+}
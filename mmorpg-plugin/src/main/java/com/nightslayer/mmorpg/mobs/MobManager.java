@@ -4,8 +4,8 @@ import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.RPGPathResolver;
 import com.nightslayer.mmorpg.database.DatabaseManager;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 
 import org.bukkit.Location;
 import org.bukkit.World;
@@ -41,7 +41,7 @@ public class MobManager {
         this.databaseManager = plugin.getDatabaseManager();
         this.customMobs = new ConcurrentHashMap<>();
         this.spawnedMobs = new ConcurrentHashMap<>();
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = GsonRegistry.pretty();
         
         loadMobs();
     }
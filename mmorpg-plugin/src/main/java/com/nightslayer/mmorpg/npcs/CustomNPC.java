@@ -18,6 +18,7 @@ public class CustomNPC {
     private final NPCType type;
     private final Location location;
     private final EntityType entityType;
+    private final String dialogueHeader;
     private final Map<String, NPCDialogue> dialogues;
     private String initialDialogueId;
     private LivingEntity entity;
@@ -33,6 +34,7 @@ public class CustomNPC {
         this.type = type;
         this.location = location;
         this.entityType = entityType;
+        this.dialogueHeader = "§6§l=== " + type.getColorCode() + name + " §6§l===";
         this.dialogues = new HashMap<>();
         this.associatedQuests = new ArrayList<>();
     }
@@ -57,6 +59,13 @@ public class CustomNPC {
         return entityType;
     }
     
+    /**
+     * Cabecera que se muestra al abrir un diálogo
+     */
+    public String getDialogueHeader() {
+        return dialogueHeader;
+    }
+    
     public LivingEntity getEntity() {
         return entity;
     }
@@ -146,7 +155,7 @@ public class CustomNPC {
         entity.setAI(false);
         entity.setSilent(true);
         entity.setInvulnerable(true);
-        entity.setPersistent(true);
+        entity.setPersistent(false); // No se guarda con el chunk: el NPCManager la recrea al cargarlo
         
         // Configuración específica por tipo de entidad
         if (entity instanceof Villager) {
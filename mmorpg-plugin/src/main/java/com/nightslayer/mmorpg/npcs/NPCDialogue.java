@@ -1,16 +1,19 @@
 package com.nightslayer.mmorpg.npcs;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 /**
  * Representa un diálogo de NPC con múltiples líneas y opciones
+ * Las líneas de chat que ve el jugador se montan una vez y se reutilizan hasta que el diálogo cambie.
  */
 public class NPCDialogue {
     private final String id;
     private final List<String> lines;
     private final List<DialogueOption> options;
     private String nextDialogueId;
+    private List<String> chatLines; // null hasta que se pidan o tras un cambio
     
     public NPCDialogue(String id) {
         this.id = id;
@@ -23,19 +26,21 @@ public class NPCDialogue {
     }
     
     public List<String> getLines() {
-        return lines;
+        return Collections.unmodifiableList(lines);
     }
     
     public void addLine(String line) {
         this.lines.add(line);
+        this.chatLines = null;
     }
     
     public List<DialogueOption> getOptions() {
-        return options;
+        return Collections.unmodifiableList(options);
     }
     
     public void addOption(DialogueOption option) {
         this.options.add(option);
+        this.chatLines = null;
     }
     
     public String getNextDialogueId() {
@@ -44,6 +49,36 @@ public class NPCDialogue {
     
     public void setNextDialogueId(String nextDialogueId) {
         this.nextDialogueId = nextDialogueId;
+        this.chatLines = null;
+    }
+    
+    /**
+     * Cuerpo del diálogo tal como se envía por chat: líneas, opciones numeradas e indicación final
+     */
+    public List<String> getChatLines() {
+        List<String> cached = chatLines;
+        if (cached != null) {
+            return cached;
+        }
+        
+        List<String> built = new ArrayList<>(lines.size() + options.size() + 3);
+        for (String line : lines) {
+            built.add("§f" + line);
+        }
+        built.add("");
+        
+        if (!options.isEmpty()) {
+            built.add("§eOpciones:");
+            for (int i = 0; i < options.size(); i++) {
+                built.add("§a[" + (i + 1) + "] §f" + options.get(i).getText());
+            }
+            built.add("§7Usa §e/npc respond <número> §7para responder");
+        } else if (nextDialogueId != null) {
+            built.add("§7Presiona click derecho de nuevo para continuar...");
+        }
+        
+        chatLines = List.copyOf(built);
+        return chatLines;
     }
     
     /**
@@ -2,19 +2,28 @@ package com.nightslayer.mmorpg.npcs;
 
 import com.nightslayer.mmorpg.RPGPathResolver;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.api.ChangeFeed;
 import com.nightslayer.mmorpg.database.DatabaseManager;
 import com.google.gson.Gson;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
 import org.bukkit.Location;
+import org.bukkit.NamespacedKey;
 import org.bukkit.World;
+import org.bukkit.entity.Entity;
 import org.bukkit.entity.EntityType;
+import org.bukkit.entity.LivingEntity;
 import org.bukkit.entity.Player;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerInteractEntityEvent;
+import org.bukkit.event.world.EntitiesLoadEvent;
+import org.bukkit.event.world.EntitiesUnloadEvent;
+import org.bukkit.persistence.PersistentDataType;
 
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -23,12 +32,19 @@ import java.util.*;
 /**
  * Gestiona todos los NPCs del sistema RPG
  * Lee desde: database universal.db (tabla npcs)
+ * Las entidades spawneadas llevan el id del NPC en su PersistentDataContainer y se indexan por UUID,
+ * así que reconocer un NPC al hacer clic es una sola búsqueda en un mapa.
+ * Los NPCs también se indexan por chunk: su entidad se crea al cargarse el chunk y se retira al
+ * descargarse, de modo que solo existen los NPCs cercanos a algún jugador.
  */
 public class NPCManager implements Listener {
     private final MMORPGPlugin plugin;
     private final RPGPathResolver pathResolver;
     private final DatabaseManager databaseManager;
     private final Map<String, CustomNPC> npcs;
+    private final Map<UUID, CustomNPC> npcsByEntity; // UUID de la entidad -> NPC
+    private final Map<UUID, Map<Long, List<CustomNPC>>> npcsByChunk; // UUID del mundo -> clave del chunk -> NPCs
+    private final NamespacedKey npcKey;
     private final Map<UUID, String> playerDialogueState; // UUID del jugador -> ID del diálogo actual
     private final Gson gson;
     
@@ -37,8 +53,11 @@ public class NPCManager implements Listener {
         this.pathResolver = plugin.getWorldRPGManager().getPathResolver();
         this.databaseManager = plugin.getDatabaseManager();
         this.npcs = new HashMap<>();
+        this.npcsByEntity = new HashMap<>();
+        this.npcsByChunk = new HashMap<>();
+        this.npcKey = new NamespacedKey(plugin, "npc_id");
         this.playerDialogueState = new HashMap<>();
-        this.gson = new Gson();
+        this.gson = GsonRegistry.compact();
         
         loadNPCs();
         createDefaultNPCs();
@@ -49,6 +68,7 @@ public class NPCManager implements Listener {
      */
     private void loadNPCs() {
         npcs.clear();
+        npcsByChunk.clear();
         
         try {
             ResultSet rs = databaseManager.executeQuery("SELECT * FROM npcs");
@@ -87,7 +107,7 @@ public class NPCManager implements Listener {
                 // Cargar comercio
                 loadNPCTrades(npc);
                 
-                npcs.put(id, npc);
+                put(npc);
                 plugin.getLogger().info("Cargado NPC: " + id + " - " + name);
             }
             
@@ -268,8 +288,9 @@ public class NPCManager implements Listener {
      */
     public CustomNPC createNPC(String id, String name, NPCType type, Location location, EntityType entityType) {
         CustomNPC npc = new CustomNPC(id, name, type, location, entityType);
-        npcs.put(id, npc);
+        put(npc);
         saveNPC(npc); // Guardar en BD
+        recordChange(id, false);
         return npc;
     }
     
@@ -277,16 +298,22 @@ public class NPCManager implements Listener {
      * Registra un NPC existente
      */
     public void registerNPC(CustomNPC npc) {
-        npcs.put(npc.getId(), npc);
+        put(npc);
         saveNPC(npc); // Guardar en BD
+        recordChange(npc.getId(), false);
     }
     
     /**
      * Elimina un NPC del registro
      */
     public void removeNPC(String npcId) {
-        npcs.remove(npcId);
+        CustomNPC npc = npcs.remove(npcId);
+        if (npc != null) {
+            unindex(npc);
+            removeFromChunk(npc);
+        }
         deleteNPC(npcId); // Eliminar de BD
+        recordChange(npcId, true);
     }
     
     /**
@@ -304,11 +331,15 @@ public class NPCManager implements Listener {
     }
     
     /**
-     * Spawna todos los NPCs
+     * Spawna los NPCs cuyos chunks ya están cargados (p. ej. los chunks de spawn al habilitar el plugin).
+     * El resto aparecerá cuando un jugador cargue su chunk.
      */
-    public void spawnAll() {
+    public void spawnLoaded() {
         for (CustomNPC npc : npcs.values()) {
-            npc.spawn();
+            if (isChunkReady(npc.getLocation())) {
+                spawn(npc);
+                recordChange(npc.getId(), false);
+            }
         }
     }
     
@@ -317,17 +348,21 @@ public class NPCManager implements Listener {
      */
     public void despawnAll() {
         for (CustomNPC npc : npcs.values()) {
-            npc.despawn();
+            despawn(npc);
+            recordChange(npc.getId(), false);
         }
     }
     
     /**
-     * Spawna un NPC específico
+     * Spawna un NPC específico si su chunk está cargado; si no, aparecerá al cargarse
      */
     public void spawnNPC(String id) {
         CustomNPC npc = npcs.get(id);
         if (npc != null) {
-            npc.spawn();
+            if (isChunkReady(npc.getLocation())) {
+                spawn(npc);
+            }
+            recordChange(id, false);
         }
     }
     
@@ -337,10 +372,124 @@ public class NPCManager implements Listener {
     public void despawnNPC(String id) {
         CustomNPC npc = npcs.get(id);
         if (npc != null) {
-            npc.despawn();
+            despawn(npc);
+            recordChange(id, false);
+        }
+    }
+    
+    /**
+     * Mueve un NPC a otra ubicación, también en el índice por chunk
+     */
+    public void moveNPC(String id, Location newLocation) {
+        CustomNPC npc = npcs.get(id);
+        if (npc == null) {
+            return;
+        }
+        despawn(npc);
+        removeFromChunk(npc);
+        npc.setLocation(newLocation);
+        addToChunk(npc);
+        if (isChunkReady(newLocation)) {
+            spawn(npc);
+        }
+        recordChange(id, false);
+    }
+    
+    private void put(CustomNPC npc) {
+        CustomNPC previous = npcs.put(npc.getId(), npc);
+        if (previous != null) {
+            unindex(previous);
+            removeFromChunk(previous);
+        }
+        addToChunk(npc);
+    }
+    
+    private void addToChunk(CustomNPC npc) {
+        Location location = npc.getLocation();
+        if (location.getWorld() == null) {
+            return;
+        }
+        npcsByChunk.computeIfAbsent(location.getWorld().getUID(), k -> new HashMap<>())
+            .computeIfAbsent(chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4), k -> new ArrayList<>())
+            .add(npc);
+    }
+    
+    private void removeFromChunk(CustomNPC npc) {
+        Location location = npc.getLocation();
+        if (location.getWorld() == null) {
+            return;
+        }
+        Map<Long, List<CustomNPC>> chunks = npcsByChunk.get(location.getWorld().getUID());
+        if (chunks == null) {
+            return;
+        }
+        long key = chunkKey(location.getBlockX() >> 4, location.getBlockZ() >> 4);
+        List<CustomNPC> inChunk = chunks.get(key);
+        if (inChunk != null && inChunk.remove(npc) && inChunk.isEmpty()) {
+            chunks.remove(key);
+        }
+    }
+    
+    private List<CustomNPC> npcsInChunk(Chunk chunk) {
+        Map<Long, List<CustomNPC>> chunks = npcsByChunk.get(chunk.getWorld().getUID());
+        if (chunks == null) {
+            return Collections.emptyList();
+        }
+        return chunks.getOrDefault(chunkKey(chunk.getX(), chunk.getZ()), Collections.emptyList());
+    }
+    
+    /**
+     * El chunk está cargado y sus entidades también, así que spawnear no duplica una entidad guardada
+     */
+    private static boolean isChunkReady(Location location) {
+        World world = location.getWorld();
+        int chunkX = location.getBlockX() >> 4;
+        int chunkZ = location.getBlockZ() >> 4;
+        return world != null && world.isChunkLoaded(chunkX, chunkZ) && world.getChunkAt(chunkX, chunkZ).isEntitiesLoaded();
+    }
+    
+    private static long chunkKey(int chunkX, int chunkZ) {
+        return ((long) chunkZ << 32) | (chunkX & 0xFFFFFFFFL);
+    }
+    
+    /**
+     * Spawnea la entidad del NPC, la marca con su id y la indexa
+     */
+    private void spawn(CustomNPC npc) {
+        npc.spawn();
+        LivingEntity entity = npc.getEntity();
+        if (entity != null) {
+            entity.getPersistentDataContainer().set(npcKey, PersistentDataType.STRING, npc.getId());
+            npcsByEntity.put(entity.getUniqueId(), npc);
+        }
+    }
+    
+    private void despawn(CustomNPC npc) {
+        unindex(npc);
+        npc.despawn();
+    }
+    
+    private void unindex(CustomNPC npc) {
+        LivingEntity entity = npc.getEntity();
+        if (entity != null) {
+            npcsByEntity.remove(entity.getUniqueId(), npc);
         }
     }
     
+    /**
+     * NPC al que pertenece una entidad, o null si no es un NPC
+     */
+    public CustomNPC getNPCByEntity(Entity entity) {
+        return npcsByEntity.get(entity.getUniqueId());
+    }
+    
+    /**
+     * Anota el cambio de un NPC para el panel web
+     */
+    public void recordChange(String npcId, boolean removed) {
+        plugin.getChangeFeed().record(ChangeFeed.Kind.NPC, npcId, removed);
+    }
+    
     /**
      * Maneja la interacción con NPCs
      */
@@ -349,13 +498,7 @@ public class NPCManager implements Listener {
         Player player = event.getPlayer();
         
         // Buscar si la entidad es un NPC
-        CustomNPC npc = null;
-        for (CustomNPC n : npcs.values()) {
-            if (n.getEntity() != null && n.getEntity().equals(event.getRightClicked())) {
-                npc = n;
-                break;
-            }
-        }
+        CustomNPC npc = npcsByEntity.get(event.getRightClicked().getUniqueId());
         
         if (npc == null) {
             return;
@@ -365,6 +508,61 @@ public class NPCManager implements Listener {
         startDialogue(player, npc);
     }
     
+    /**
+     * Al cargar entidades de un chunk, vuelve a enlazar las entidades marcadas como NPC
+     * (pueden quedar guardadas tras un cierre inesperado) y elimina las que sobran: copias de un
+     * NPC que ya tiene entidad o de un NPC que ya no existe. Después crea las entidades de los
+     * NPCs del chunk que no tengan una.
+     */
+    @EventHandler
+    public void onEntitiesLoad(EntitiesLoadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            String npcId = entity.getPersistentDataContainer().get(npcKey, PersistentDataType.STRING);
+            if (npcId == null) {
+                continue;
+            }
+            
+            CustomNPC npc = npcs.get(npcId);
+            if (npc == null || !(entity instanceof LivingEntity living)) {
+                entity.remove();
+                continue;
+            }
+            
+            // Al recargar el chunk la entidad es un objeto nuevo con el mismo UUID
+            LivingEntity current = npc.getEntity();
+            if (current == null || current.getUniqueId().equals(entity.getUniqueId()) || !current.isValid()) {
+                unindex(npc);
+                npc.setEntity(living);
+                npcsByEntity.put(living.getUniqueId(), npc);
+            } else {
+                entity.remove();
+            }
+        }
+        
+        for (CustomNPC npc : npcsInChunk(event.getChunk())) {
+            if (!npc.isSpawned()) {
+                spawn(npc);
+            }
+        }
+    }
+    
+    /**
+     * Al descargarse un chunk se retiran las entidades de sus NPCs; se vuelven a crear al cargarlo
+     */
+    @EventHandler
+    public void onEntitiesUnload(EntitiesUnloadEvent event) {
+        for (Entity entity : event.getEntities()) {
+            CustomNPC npc = npcsByEntity.remove(entity.getUniqueId());
+            if (npc != null) {
+                LivingEntity current = npc.getEntity();
+                if (current != null && current.getUniqueId().equals(entity.getUniqueId())) {
+                    npc.setEntity(null);
+                }
+                entity.remove();
+            }
+        }
+    }
+    
     /**
      * Inicia un diálogo con un NPC
      */
@@ -386,24 +584,9 @@ public class NPCManager implements Listener {
         playerDialogueState.put(player.getUniqueId(), dialogue.getId());
         
         player.sendMessage("");
-        player.sendMessage("§6§l=== " + npc.getType().getColorCode() + npc.getName() + " §6§l===");
-        
-        for (String line : dialogue.getLines()) {
-            player.sendMessage("§f" + line);
-        }
-        
-        player.sendMessage("");
-        
-        List<NPCDialogue.DialogueOption> options = dialogue.getOptions();
-        if (!options.isEmpty()) {
-            player.sendMessage("§eOpciones:");
-            for (int i = 0; i < options.size(); i++) {
-                NPCDialogue.DialogueOption option = options.get(i);
-                player.sendMessage("§a[" + (i + 1) + "] §f" + option.getText());
-            }
-            player.sendMessage("§7Usa §e/npc respond <número> §7para responder");
-        } else if (dialogue.getNextDialogueId() != null) {
-            player.sendMessage("§7Presiona click derecho de nuevo para continuar...");
+        player.sendMessage(npc.getDialogueHeader());
+        for (String line : dialogue.getChatLines()) {
+            player.sendMessage(line);
         }
     }
     
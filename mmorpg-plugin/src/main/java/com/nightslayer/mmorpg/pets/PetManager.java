@@ -1,11 +1,12 @@
 package com.nightslayer.mmorpg.pets;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 
 import java.io.File;
 import java.io.FileReader;
@@ -23,12 +24,12 @@ public class PetManager {
     private Map<String, Pet> pets;
     private Map<String, Mount> mounts;
     private Map<String, PetAbility> abilities;
-    private Map<String, PlayerPetData> playerData;
+    private final PlayerCache<PlayerPetData> playerData;
     private Map<String, Object> settings;
 
     public PetManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = GsonRegistry.pretty();
         // Usar directorio del plugin, no subir niveles
         this.configFile = new File(plugin.getDataFolder(), "pets_config.json");
         this.dataFolder = new File(plugin.getDataFolder(), "pets");
@@ -36,7 +37,8 @@ public class PetManager {
         this.pets = new HashMap<>();
         this.mounts = new HashMap<>();
         this.abilities = new HashMap<>();
-        this.playerData = new HashMap<>();
+        this.playerData = new PlayerCache<>("pets", (uuid, data) -> writePlayerData(uuid.toString(), data),
+            data -> 96L + data.getOwnedPets().size() * 128L + data.getUnlockedMounts().size() * 48L);
         this.settings = new HashMap<>();
 
         // Crear directorios si no existen
@@ -111,8 +113,9 @@ public class PetManager {
             return;
         }
 
-        try (FileReader reader = new FileReader(configFile)) {
-            JsonObject root = gson.fromJson(reader, JsonObject.class);
+        try {
+            JsonElement loaded = plugin.getConfigCache().load(configFile);
+            JsonObject root = loaded.isJsonObject() ? loaded.getAsJsonObject() : null;
 
             if (root == null) {
                 plugin.getLogger().warning("pets_config.json vacío o inválido, creando configuración por defecto");
@@ -300,10 +303,13 @@ public class PetManager {
     }
 
     public void loadPlayerData(String playerUuid) {
+        playerData.put(UUID.fromString(playerUuid), readPlayerData(playerUuid));
+    }
+
+    private PlayerPetData readPlayerData(String playerUuid) {
         File playerFile = new File(dataFolder, playerUuid + ".json");
         if (!playerFile.exists()) {
-            playerData.put(playerUuid, new PlayerPetData(playerUuid));
-            return;
+            return new PlayerPetData(playerUuid);
         }
 
         try (FileReader reader = new FileReader(playerFile)) {
@@ -347,18 +353,26 @@ public class PetManager {
                 data.setActiveMountId(root.get("active_mount_id").getAsString());
             }
 
-            playerData.put(playerUuid, data);
+            return data;
 
         } catch (IOException e) {
             plugin.getLogger().log(Level.SEVERE, "Error al cargar datos de mascotas del jugador " + playerUuid, e);
-            playerData.put(playerUuid, new PlayerPetData(playerUuid));
+            return new PlayerPetData(playerUuid);
         }
     }
 
     public void savePlayerData(String playerUuid) {
-        PlayerPetData data = playerData.get(playerUuid);
+        PlayerPetData data = playerData.get(UUID.fromString(playerUuid));
         if (data == null) return;
 
+        writePlayerData(playerUuid, data);
+    }
+
+    /**
+     * Escribe el archivo de mascotas de un jugador
+     * @return false si no se pudo escribir
+     */
+    private boolean writePlayerData(String playerUuid, PlayerPetData data) {
         File playerFile = new File(dataFolder, playerUuid + ".json");
 
         try (FileWriter writer = new FileWriter(playerFile)) {
@@ -397,16 +411,16 @@ public class PetManager {
             }
 
             gson.toJson(root, writer);
+            return true;
 
         } catch (IOException e) {
             plugin.getLogger().log(Level.SEVERE, "Error al guardar datos de mascotas del jugador " + playerUuid, e);
+            return false;
         }
     }
 
     public void saveAllPlayerData() {
-        for (String playerUuid : playerData.keySet()) {
-            savePlayerData(playerUuid);
-        }
+        playerData.forEach((uuid, data) -> writePlayerData(uuid.toString(), data));
     }
 
     public void shutdown() {
@@ -431,10 +445,14 @@ public class PetManager {
     }
 
     public PlayerPetData getPlayerData(String playerUuid) {
-        if (!playerData.containsKey(playerUuid)) {
-            loadPlayerData(playerUuid);
-        }
-        return playerData.get(playerUuid);
+        return playerData.computeIfAbsent(UUID.fromString(playerUuid), uuid -> readPlayerData(playerUuid));
+    }
+
+    /**
+     * Caché de datos de mascotas de jugadores cargados en memoria
+     */
+    public PlayerCache<PlayerPetData> getPlayerCache() {
+        return playerData;
     }
 
     public Collection<Pet> getAllPets() {
@@ -1,7 +1,11 @@
 package com.nightslayer.mmorpg.quests;
 
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
@@ -222,4 +226,73 @@ public class PlayerQuestProgress {
         
         return progress;
     }
+    
+    /**
+     * Serialización en streaming con el mismo formato que {@link #toJson()}, sin árbol intermedio
+     */
+    public static class Adapter extends TypeAdapter<PlayerQuestProgress> {
+        @Override
+        public void write(JsonWriter out, PlayerQuestProgress progress) throws IOException {
+            if (progress == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("player").value(progress.playerUUID.toString());
+            out.name("quest").value(progress.questId);
+            out.name("status").value(progress.status.name());
+            out.name("startTime").value(progress.startTime);
+            out.name("completionTime").value(progress.completionTime);
+            out.name("nextAvailable").value(progress.nextAvailableTime);
+            out.name("progress").beginObject();
+            for (Map.Entry<String, Integer> entry : progress.objectiveProgress.entrySet()) {
+                out.name(entry.getKey()).value(entry.getValue());
+            }
+            out.endObject();
+            out.endObject();
+        }
+        
+        @Override
+        public PlayerQuestProgress read(JsonReader in) throws IOException {
+            UUID playerUUID = null;
+            String questId = null;
+            QuestStatus status = QuestStatus.NOT_STARTED;
+            long startTime = 0;
+            long completionTime = 0;
+            long nextAvailable = 0;
+            Map<String, Integer> objectives = new HashMap<>();
+            
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "player" -> playerUUID = UUID.fromString(in.nextString());
+                    case "quest" -> questId = in.nextString();
+                    case "status" -> status = QuestStatus.valueOf(in.nextString());
+                    case "startTime" -> startTime = in.nextLong();
+                    case "completionTime" -> completionTime = in.nextLong();
+                    case "nextAvailable" -> nextAvailable = in.nextLong();
+                    case "progress" -> {
+                        in.beginObject();
+                        while (in.hasNext()) {
+                            objectives.put(in.nextName(), in.nextInt());
+                        }
+                        in.endObject();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            
+            if (playerUUID == null || questId == null) {
+                throw new IOException("PlayerQuestProgress sin jugador o quest");
+            }
+            PlayerQuestProgress progress = new PlayerQuestProgress(playerUUID, questId);
+            progress.status = status;
+            progress.startTime = startTime;
+            progress.completionTime = completionTime;
+            progress.nextAvailableTime = nextAvailable;
+            progress.objectiveProgress.putAll(objectives);
+            return progress;
+        }
+    }
 }
@@ -2,7 +2,12 @@ package com.nightslayer.mmorpg.quests;
 
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -144,4 +149,181 @@ public class Quest {
         
         return json;
     }
+    
+    /**
+     * Serialización en streaming con el mismo formato que {@link #toJson()}.
+     * La descripción de cada objetivo no se lee: se vuelve a generar a partir del tipo y el objetivo.
+     */
+    public static class Adapter extends TypeAdapter<Quest> {
+        @Override
+        public void write(JsonWriter out, Quest quest) throws IOException {
+            if (quest == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            out.name("id").value(quest.id);
+            out.name("name").value(quest.name);
+            out.name("description").value(quest.description);
+            out.name("requiredLevel").value(quest.requiredLevel);
+            out.name("npcGiver").value(quest.npcGiverId);
+            out.name("difficulty").value(quest.difficulty.name());
+            out.name("repeatable").value(quest.repeatable);
+            out.name("cooldown").value(quest.cooldownTime);
+            
+            out.name("objectives").beginArray();
+            for (QuestObjective obj : quest.objectives) {
+                out.beginObject();
+                out.name("id").value(obj.getId());
+                out.name("type").value(obj.getType().name());
+                out.name("target").value(obj.getTarget());
+                out.name("required").value(obj.getRequiredAmount());
+                out.name("description").value(obj.getDescription());
+                if (obj.getRecipient() != null) {
+                    out.name("recipient").value(obj.getRecipient());
+                }
+                out.endObject();
+            }
+            out.endArray();
+            
+            out.name("rewards").beginArray();
+            for (QuestReward reward : quest.rewards) {
+                out.beginObject();
+                out.name("type").value(reward.getType().name());
+                out.name("amount").value(reward.getAmount());
+                if (reward.getIdentifier() != null) {
+                    out.name("identifier").value(reward.getIdentifier());
+                }
+                out.endObject();
+            }
+            out.endArray();
+            out.endObject();
+        }
+        
+        @Override
+        public Quest read(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return null;
+            }
+            
+            String id = null;
+            String name = null;
+            String description = null;
+            int requiredLevel = 0;
+            String npcGiverId = null;
+            QuestDifficulty difficulty = null;
+            boolean repeatable = false;
+            long cooldown = 0;
+            List<QuestObjective> objectives = new ArrayList<>();
+            List<QuestReward> rewards = new ArrayList<>();
+            
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "id" -> id = in.nextString();
+                    case "name" -> name = in.nextString();
+                    case "description" -> description = in.nextString();
+                    case "requiredLevel" -> requiredLevel = in.nextInt();
+                    case "npcGiver" -> npcGiverId = in.nextString();
+                    case "difficulty" -> difficulty = QuestDifficulty.valueOf(in.nextString());
+                    case "repeatable" -> repeatable = in.nextBoolean();
+                    case "cooldown" -> cooldown = in.nextLong();
+                    case "objectives" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            objectives.add(readObjective(in));
+                        }
+                        in.endArray();
+                    }
+                    case "rewards" -> {
+                        in.beginArray();
+                        while (in.hasNext()) {
+                            rewards.add(readReward(in));
+                        }
+                        in.endArray();
+                    }
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            
+            if (id == null || difficulty == null) {
+                throw new IOException("Quest incompleta");
+            }
+            Quest quest = new Quest(id, name, description, requiredLevel, npcGiverId, difficulty);
+            quest.setRepeatable(repeatable);
+            quest.setCooldownTime(cooldown);
+            objectives.forEach(quest::addObjective);
+            rewards.forEach(quest::addReward);
+            return quest;
+        }
+        
+        private static QuestObjective readObjective(JsonReader in) throws IOException {
+            String id = null;
+            QuestObjectiveType type = null;
+            String target = null;
+            int required = 0;
+            String recipient = null;
+            
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "id" -> id = in.nextString();
+                    case "type" -> type = QuestObjectiveType.valueOf(in.nextString());
+                    case "target" -> target = in.nextString();
+                    case "required" -> required = in.nextInt();
+                    case "recipient" -> recipient = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            
+            if (type == null) {
+                throw new IOException("Objetivo de quest sin tipo");
+            }
+            QuestObjective objective = new QuestObjective(id, type, target, required);
+            if (recipient != null) {
+                objective.setRecipient(recipient);
+            }
+            return objective;
+        }
+        
+        private static QuestReward readReward(JsonReader in) throws IOException {
+            QuestReward.RewardType type = null;
+            int amount = 0;
+            String identifier = null;
+            
+            in.beginObject();
+            while (in.hasNext()) {
+                String field = in.nextName();
+                if (in.peek() == JsonToken.NULL) {
+                    in.nextNull();
+                    continue;
+                }
+                switch (field) {
+                    case "type" -> type = QuestReward.RewardType.valueOf(in.nextString());
+                    case "amount" -> amount = in.nextInt();
+                    case "identifier" -> identifier = in.nextString();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            
+            if (type == null) {
+                throw new IOException("Recompensa de quest sin tipo");
+            }
+            return new QuestReward(type, amount, identifier);
+        }
+    }
 }
@@ -2,9 +2,13 @@ package com.nightslayer.mmorpg.quests;
 
 import com.nightslayer.mmorpg.RPGPathResolver;
 import com.nightslayer.mmorpg.MMORPGPlugin;
+import com.nightslayer.mmorpg.api.ChangeFeed;
+import com.nightslayer.mmorpg.cache.PlayerCache;
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import com.google.gson.stream.JsonWriter;
 import com.nightslayer.mmorpg.classes.ClassManager;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.entity.Player;
 
 import java.io.File;
@@ -24,7 +28,7 @@ public class QuestManager {
     private final RPGPathResolver pathResolver;
     private final ClassManager classManager;
     private final Map<String, Quest> quests;
-    private final Map<UUID, Map<String, PlayerQuestProgress>> playerProgress; // UUID -> QuestID -> Progress
+    private final PlayerCache<Map<String, PlayerQuestProgress>> playerProgress; // UUID -> QuestID -> Progress
     private final Gson gson;
     private final File playerProgressFolder; // Mantener carpeta de progreso de jugadores
     
@@ -33,8 +37,9 @@ public class QuestManager {
         this.pathResolver = plugin.getWorldRPGManager().getPathResolver();
         this.classManager = classManager;
         this.quests = new HashMap<>();
-        this.playerProgress = new HashMap<>();
-        this.gson = new Gson();
+        this.playerProgress = new PlayerCache<>("quests", (uuid, playerQuests) -> saveProgress(playerQuests.values()),
+            playerQuests -> 64L + playerQuests.size() * 160L);
+        this.gson = GsonRegistry.compact();
         // Progreso de jugadores se mantiene en carpeta separada
         this.playerProgressFolder = new File(plugin.getDataFolder(), "quest-progress");
         
@@ -115,6 +120,7 @@ public class QuestManager {
      */
     public void registerQuest(Quest quest) {
         quests.put(quest.getId(), quest);
+        plugin.getChangeFeed().record(ChangeFeed.Kind.QUEST, quest.getId(), false);
     }
     
     /**
@@ -122,6 +128,7 @@ public class QuestManager {
      */
     public void unregisterQuest(String questId) {
         quests.remove(questId);
+        plugin.getChangeFeed().record(ChangeFeed.Kind.QUEST, questId, true);
     }
     
     /**
@@ -344,8 +351,9 @@ public class QuestManager {
                 classManager.getPlayerClass(player).addExperience(amount);
                 break;
             case MONEY:
-                // Aquí se integrará con sistema de economía
-                player.sendMessage("§7(Sistema de economía pendiente)");
+                if (plugin.getRewardService() != null) {
+                    plugin.getRewardService().queueDeposit(player.getUniqueId(), amount);
+                }
                 break;
             case ITEM:
                 if (reward.createItemStack() != null) {
@@ -383,8 +391,7 @@ public class QuestManager {
         }
         
         try (FileReader reader = new FileReader(file)) {
-            JsonObject json = gson.fromJson(reader, JsonObject.class);
-            return PlayerQuestProgress.fromJson(json);
+            return gson.fromJson(reader, PlayerQuestProgress.class);
         } catch (Exception e) {
             plugin.getLogger().warning("Error al cargar progreso de quest: " + e.getMessage());
             return null;
@@ -393,17 +400,39 @@ public class QuestManager {
     
     /**
      * Guarda el progreso de una quest
+     * @return false si no se pudo escribir
      */
-    public void saveQuestProgress(PlayerQuestProgress progress) {
+    public boolean saveQuestProgress(PlayerQuestProgress progress) {
         File file = new File(playerProgressFolder, progress.getPlayerUUID().toString() + "_" + progress.getQuestId() + ".json");
         
         try (FileWriter writer = new FileWriter(file)) {
-            gson.toJson(progress.toJson(), writer);
+            gson.toJson(progress, PlayerQuestProgress.class, writer);
+            return true;
         } catch (Exception e) {
             plugin.getLogger().warning("Error al guardar progreso de quest: " + e.getMessage());
+            return false;
         }
     }
     
+    /**
+     * Guarda el progreso de varias quests, aunque falle alguna
+     * @return false si alguna no se pudo escribir
+     */
+    private boolean saveProgress(Collection<PlayerQuestProgress> progresses) {
+        boolean saved = true;
+        for (PlayerQuestProgress progress : progresses) {
+            saved &= saveQuestProgress(progress);
+        }
+        return saved;
+    }
+    
+    /**
+     * Caché de progreso de quests cargado en memoria
+     */
+    public PlayerCache<Map<String, PlayerQuestProgress>> getPlayerCache() {
+        return playerProgress;
+    }
+    
     /**
      * Guarda todo el progreso de quests
      */
@@ -422,14 +451,13 @@ public class QuestManager {
     public void saveWorldQuests(String worldName) {
         File file = pathResolver.getLocalFile(worldName, "quests.json");
         
-        try (FileWriter writer = new FileWriter(file)) {
-            JsonObject json = new JsonObject();
-            
+        try (JsonWriter writer = gson.newJsonWriter(new FileWriter(file))) {
+            writer.beginObject();
             for (Quest quest : quests.values()) {
-                json.add(quest.getId(), quest.toJson());
+                writer.name(quest.getId());
+                gson.toJson(quest, Quest.class, writer);
             }
-            
-            gson.toJson(json, writer);
+            writer.endObject();
         } catch (Exception e) {
             plugin.getLogger().warning("Error al guardar quests para mundo " + worldName + ": " + e.getMessage());
         }
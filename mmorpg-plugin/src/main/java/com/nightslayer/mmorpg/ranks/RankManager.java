@@ -1,16 +1,15 @@
 package com.nightslayer.mmorpg.ranks;
 
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonObject;
-import com.google.gson.JsonParser;
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.achievements.AchievementManager;
+import com.nightslayer.mmorpg.cache.PlayerCache;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.entity.Player;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.sql.Connection;
@@ -36,15 +35,16 @@ public class RankManager {
     private final AchievementManager achievementManager;
     private final Gson gson;
     private final Map<String, Rank> ranks;
-    private final Map<UUID, String> playerRanks;
+    private final PlayerCache<String> playerRanks;
     private boolean enabled;
 
     public RankManager(MMORPGPlugin plugin, AchievementManager achievementManager) {
         this.plugin = plugin;
         this.achievementManager = achievementManager;
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = GsonRegistry.pretty();
         this.ranks = new ConcurrentHashMap<>();
-        this.playerRanks = new ConcurrentHashMap<>();
+        // El rango se guarda al cambiar, así que no hace falta guardarlo al descartarlo
+        this.playerRanks = new PlayerCache<>("ranks", null, rankId -> 40L + rankId.length() * 2L);
         this.enabled = true;
 
         loadConfiguration();
@@ -75,8 +75,8 @@ public class RankManager {
             return;
         }
 
-        try (FileReader reader = new FileReader(configFile)) {
-            JsonObject json = JsonParser.parseReader(reader).getAsJsonObject();
+        try {
+            JsonObject json = plugin.getConfigCache().loadObject(configFile);
             this.enabled = json.has("enabled") && json.get("enabled").getAsBoolean();
 
             if (json.has("ranks")) {
@@ -260,8 +260,8 @@ public class RankManager {
             player.giveExp(reward.getXp());
         }
 
-        if (reward.getCoins() > 0 && plugin.getEconomyManager() != null) {
-            plugin.getEconomyManager().deposit(player, reward.getCoins());
+        if (reward.getCoins() > 0 && plugin.getRewardService() != null) {
+            plugin.getRewardService().queueDeposit(player.getUniqueId(), reward.getCoins());
         }
 
         if (reward.getTitle() != null && !reward.getTitle().isEmpty()) {
@@ -320,6 +320,13 @@ public class RankManager {
         return data;
     }
 
+    /**
+     * Caché de rangos de jugadores cargados en memoria
+     */
+    public PlayerCache<String> getPlayerCache() {
+        return playerRanks;
+    }
+
     public void saveAll() {
         playerRanks.forEach(this::savePlayerRank);
     }
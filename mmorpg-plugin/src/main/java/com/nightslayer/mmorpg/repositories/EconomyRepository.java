@@ -1,11 +1,16 @@
 package com.nightslayer.mmorpg.repositories;
 
 import com.nightslayer.mmorpg.database.DatabaseManager;
+import com.nightslayer.mmorpg.economy.EconomyLedger;
 
 import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -16,12 +21,116 @@ import java.util.logging.Logger;
 public class EconomyRepository {
     private final DatabaseManager databaseManager;
     private final Logger logger;
+    private Connection journalConnection;
 
     public EconomyRepository(DatabaseManager databaseManager, Logger logger) {
         this.databaseManager = databaseManager;
         this.logger = logger;
     }
 
+    /**
+     * Crea la tabla de balances si no existe
+     */
+    public void createTables() {
+        databaseManager.executeUpdate("""
+            CREATE TABLE IF NOT EXISTS player_economy (
+                player_uuid TEXT PRIMARY KEY,
+                balance REAL DEFAULT 0.0,
+                last_updated TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+            )
+        """);
+    }
+
+    /**
+     * Obtiene todos los balances guardados
+     */
+    public Map<UUID, Double> loadAllBalances() {
+        Map<UUID, Double> balances = new HashMap<>();
+        String sql = "SELECT player_uuid, balance FROM player_economy";
+
+        Connection conn = databaseManager.getConnection();
+        try (PreparedStatement ps = conn.prepareStatement(sql);
+             ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                try {
+                    balances.put(UUID.fromString(rs.getString("player_uuid")), rs.getDouble("balance"));
+                } catch (IllegalArgumentException e) {
+                    logger.warning("UUID inválido en player_economy: " + rs.getString("player_uuid"));
+                }
+            }
+        } catch (SQLException e) {
+            logger.log(Level.SEVERE, "Error al cargar balances de economía", e);
+        }
+
+        return balances;
+    }
+
+    /**
+     * Escribe en una única transacción un lote del diario de economía y los balances
+     * actuales de los jugadores afectados. Usa una conexión dedicada para no mezclarse
+     * con las transacciones del hilo principal.
+     */
+    public synchronized void commitJournal(List<EconomyLedger.Entry> entries, Map<UUID, Long> balances) throws SQLException {
+        if (journalConnection == null || journalConnection.isClosed()) {
+            journalConnection = databaseManager.openConnection();
+            try (Statement stmt = journalConnection.createStatement()) {
+                stmt.execute("PRAGMA journal_mode = WAL");
+            }
+        }
+
+        String insertTx = "INSERT INTO economy_transactions " +
+            "(player_uuid, transaction_type, amount, balance_after, description, timestamp) " +
+            "VALUES (?, ?, ?, ?, ?, ?)";
+        String upsertBalance = """
+            INSERT INTO player_economy (player_uuid, balance, last_updated)
+            VALUES (?, ?, CURRENT_TIMESTAMP)
+            ON CONFLICT(player_uuid) DO UPDATE SET
+                balance = excluded.balance,
+                last_updated = CURRENT_TIMESTAMP
+        """;
+
+        Connection conn = journalConnection;
+        conn.setAutoCommit(false);
+        try (PreparedStatement tx = conn.prepareStatement(insertTx);
+             PreparedStatement bal = conn.prepareStatement(upsertBalance)) {
+            for (EconomyLedger.Entry entry : entries) {
+                tx.setString(1, entry.getPlayerId().toString());
+                tx.setString(2, entry.getType());
+                tx.setDouble(3, EconomyLedger.fromUnits(entry.getAmount()));
+                tx.setDouble(4, EconomyLedger.fromUnits(entry.getBalanceAfter()));
+                tx.setString(5, entry.getDescription());
+                tx.setLong(6, entry.getTimestamp());
+                tx.addBatch();
+            }
+            for (Map.Entry<UUID, Long> balance : balances.entrySet()) {
+                bal.setString(1, balance.getKey().toString());
+                bal.setDouble(2, EconomyLedger.fromUnits(balance.getValue()));
+                bal.addBatch();
+            }
+            tx.executeBatch();
+            bal.executeBatch();
+            conn.commit();
+        } catch (SQLException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    /**
+     * Cierra la conexión dedicada del diario
+     */
+    public synchronized void close() {
+        try {
+            if (journalConnection != null && !journalConnection.isClosed()) {
+                journalConnection.close();
+            }
+        } catch (SQLException e) {
+            logger.log(Level.WARNING, "Error cerrando conexión del diario de economía", e);
+        }
+    }
+
     /**
      * Obtiene el balance de un jugador
      */
@@ -4,36 +4,37 @@ import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.mobs.CustomMob;
 import com.nightslayer.mmorpg.mobs.MobManager;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
+import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.managers.ReloadableConfig;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.Location;
 import org.bukkit.World;
 import org.bukkit.entity.Entity;
 import org.bukkit.scheduler.BukkitRunnable;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * Gestiona zonas de respawn de mobs
+ * Gestiona zonas de respawn de mobs.
+ * Las zonas se sustituyen de golpe al recargar respawn_config.json (ver {@link ReloadableConfig}).
  */
-public class RespawnManager {
+public class RespawnManager implements ReloadableConfig<RespawnManager.Settings> {
     private final MMORPGPlugin plugin;
     private final MobManager mobManager;
-    private final Map<String, RespawnZone> respawnZones;
+    private volatile Map<String, RespawnZone> respawnZones;
     private final File configFile;
     private final Gson gson;
     private BukkitRunnable respawnTask;
-    private boolean enabled;
+    private volatile boolean enabled;
     
     public RespawnManager(MMORPGPlugin plugin, MobManager mobManager) {
         this.plugin = plugin;
         this.mobManager = mobManager;
-        this.respawnZones = new ConcurrentHashMap<>();
+        this.respawnZones = Map.of();
         this.configFile = new File(plugin.getDataFolder(), "respawn_config.json");
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.gson = GsonRegistry.pretty();
         this.enabled = true;
         
         loadConfig();
@@ -49,44 +50,78 @@ public class RespawnManager {
             return;
         }
         
-        try (FileReader reader = new FileReader(configFile)) {
-            RespawnConfig config = gson.fromJson(reader, RespawnConfig.class);
-            
-            if (config.respawnZones != null) {
-                for (Map.Entry<String, ZoneData> entry : config.respawnZones.entrySet()) {
-                    ZoneData data = entry.getValue();
-                    
-                    List<Location> locations = new ArrayList<>();
-                    if (data.spawnLocations != null) {
-                        for (LocationData locData : data.spawnLocations) {
-                            locations.add(new Location(null, locData.x, locData.y, locData.z));
-                        }
-                    }
-                    
-                    RespawnZone zone = new RespawnZone(
-                        entry.getKey(),
-                        data.name,
-                        RespawnZone.ZoneType.valueOf(data.type.toUpperCase()),
-                        data.world,
-                        data.mobIds,
-                        locations,
-                        data.maxMobs,
-                        data.respawnInterval
-                    );
-                    zone.setEnabled(data.enabled);
-                    
-                    respawnZones.put(entry.getKey(), zone);
+        try {
+            applyConfig(parseConfig(plugin.getConfigCache().loadObject(configFile)));
+        } catch (IOException | RuntimeException e) {
+            plugin.getLogger().severe("Error cargando respawn_config.json: " + e.getMessage());
+        }
+    }
+    
+    @Override
+    public File getConfigFile() {
+        return configFile;
+    }
+    
+    @Override
+    public Settings parseConfig(JsonObject json) {
+        RespawnConfig config = gson.fromJson(json, RespawnConfig.class);
+        Map<String, RespawnZone> zones = new LinkedHashMap<>();
+        
+        if (config.respawnZones != null) {
+            for (Map.Entry<String, ZoneData> entry : config.respawnZones.entrySet()) {
+                ZoneData data = entry.getValue();
+                if (data.type == null || data.world == null) {
+                    throw new IllegalArgumentException("La zona " + entry.getKey() + " no tiene type o world");
                 }
                 
-                if (config.globalSettings != null) {
-                    enabled = config.globalSettings.respawnEnabled;
+                List<Location> locations = new ArrayList<>();
+                if (data.spawnLocations != null) {
+                    for (LocationData locData : data.spawnLocations) {
+                        locations.add(new Location(null, locData.x, locData.y, locData.z));
+                    }
                 }
                 
-                plugin.getLogger().info("Cargadas " + respawnZones.size() + " zonas de respawn");
+                RespawnZone zone = new RespawnZone(
+                    entry.getKey(),
+                    data.name,
+                    RespawnZone.ZoneType.valueOf(data.type.toUpperCase()),
+                    data.world,
+                    data.mobIds != null ? data.mobIds : new ArrayList<>(),
+                    locations,
+                    data.maxMobs,
+                    data.respawnInterval
+                );
+                zone.setEnabled(data.enabled);
+                
+                zones.put(entry.getKey(), zone);
+            }
+        }
+        
+        boolean respawnEnabled = config.globalSettings != null ? config.globalSettings.respawnEnabled : enabled;
+        return new Settings(Collections.unmodifiableMap(zones), respawnEnabled);
+    }
+    
+    /**
+     * Sustituye las zonas; las que siguen existiendo conservan su contador de mobs y su último respawn
+     */
+    @Override
+    public void applyConfig(Settings settings) {
+        Map<String, RespawnZone> previous = respawnZones;
+        for (RespawnZone zone : settings.zones().values()) {
+            RespawnZone old = previous.get(zone.getZoneId());
+            if (old != null && old != zone) {
+                zone.setCurrentMobCount(old.getCurrentMobCount());
+                zone.setLastRespawnTime(old.getLastRespawnTime());
             }
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error cargando respawn_config.json: " + e.getMessage());
         }
+        respawnZones = settings.zones();
+        enabled = settings.respawnEnabled();
+        plugin.getLogger().info("Cargadas " + respawnZones.size() + " zonas de respawn");
+    }
+    
+    @Override
+    public Settings currentConfig() {
+        return new Settings(respawnZones, enabled);
     }
     
     /**
@@ -233,6 +268,12 @@ public class RespawnManager {
         }
     }
     
+    /**
+     * Zonas cargadas y si el respawn global está activo
+     */
+    public record Settings(Map<String, RespawnZone> zones, boolean respawnEnabled) {
+    }
+    
     // ======================= Clases internas para JSON =======================
     
     public static class RespawnConfig {
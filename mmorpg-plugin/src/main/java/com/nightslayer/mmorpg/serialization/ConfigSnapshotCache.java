@@ -0,0 +1,277 @@
+package com.nightslayer.mmorpg.serialization;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.google.gson.JsonPrimitive;
+import com.google.gson.internal.LazilyParsedNumber;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Caché binaria de los archivos de configuración JSON.
+ * Tras leer un JSON se guarda una copia ya analizada en cache/config/{hash de la ruta}.bin,
+ * junto al SHA-256 del archivo original. En el siguiente arranque, si el hash coincide, el árbol
+ * se reconstruye desde la copia binaria (cadenas repetidas guardadas una sola vez, sin tokenizar);
+ * si el archivo cambió o la copia está dañada, se vuelve a leer el JSON y se regenera.
+ * Los números se guardan como texto para que Gson los interprete igual que al leer el JSON.
+ */
+public class ConfigSnapshotCache {
+    private static final int MAGIC = 0x4D4D4353; // "MMCS"
+    private static final int FORMAT_VERSION = 1;
+    private static final int HASH_BYTES = 32;
+
+    private static final byte TAG_NULL = 0;
+    private static final byte TAG_TRUE = 1;
+    private static final byte TAG_FALSE = 2;
+    private static final byte TAG_NUMBER = 3;
+    private static final byte TAG_STRING = 4;
+    private static final byte TAG_ARRAY = 5;
+    private static final byte TAG_OBJECT = 6;
+
+    private final File cacheDir;
+    private final Logger logger;
+    private final boolean enabled;
+    private final AtomicInteger hits;
+    private final AtomicInteger misses;
+
+    public ConfigSnapshotCache(File cacheDir, Logger logger, boolean enabled) {
+        this.cacheDir = cacheDir;
+        this.logger = logger;
+        this.enabled = enabled;
+        this.hits = new AtomicInteger();
+        this.misses = new AtomicInteger();
+
+        if (enabled) {
+            cacheDir.mkdirs();
+        }
+    }
+
+    /**
+     * Lee un archivo JSON, desde la copia binaria si el archivo no cambió
+     * @throws IOException si no se puede leer el archivo
+     * @throws com.google.gson.JsonParseException si el JSON no es válido
+     */
+    public JsonElement load(File source) throws IOException {
+        byte[] content = Files.readAllBytes(source.toPath());
+        if (!enabled) {
+            return parse(content);
+        }
+
+        byte[] hash = sha256(content);
+        File snapshotFile = snapshotFileFor(source);
+        if (snapshotFile.exists()) {
+            try {
+                JsonElement cached = readSnapshot(Files.readAllBytes(snapshotFile.toPath()), hash);
+                if (cached != null) {
+                    hits.incrementAndGet();
+                    return cached;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.fine("Caché de configuración inválida para " + source.getName() + ": " + e.getMessage());
+            }
+        }
+
+        misses.incrementAndGet();
+        JsonElement parsed = parse(content);
+        try {
+            writeSnapshot(snapshotFile, hash, parsed);
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "No se pudo guardar la caché de configuración de " + source.getName(), e);
+        }
+        return parsed;
+    }
+
+    /**
+     * Igual que {@link #load(File)} pero exige un objeto JSON en la raíz
+     */
+    public JsonObject loadObject(File source) throws IOException {
+        JsonElement element = load(source);
+        if (!element.isJsonObject()) {
+            throw new IOException(source.getName() + " no contiene un objeto JSON");
+        }
+        return element.getAsJsonObject();
+    }
+
+    public int getHits() {
+        return hits.get();
+    }
+
+    public int getMisses() {
+        return misses.get();
+    }
+
+    private File snapshotFileFor(File source) {
+        byte[] pathHash = sha256(source.getAbsoluteFile().toPath().normalize().toString().getBytes(StandardCharsets.UTF_8));
+        String baseName = source.getName().replaceAll("[^A-Za-z0-9_.-]", "_");
+        return new File(cacheDir, baseName + "-" + HexFormat.of().formatHex(pathHash, 0, 8) + ".bin");
+    }
+
+    private static JsonElement parse(byte[] content) {
+        return JsonParser.parseString(new String(content, StandardCharsets.UTF_8));
+    }
+
+    // ==================== Formato binario ====================
+
+    private static void writeSnapshot(File snapshotFile, byte[] hash, JsonElement element) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.write(hash);
+        writeElement(out, element, new HashMap<>());
+        out.flush();
+
+        File temp = new File(snapshotFile.getParentFile(), snapshotFile.getName() + ".tmp");
+        Files.write(temp.toPath(), bytes.toByteArray());
+        Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeElement(DataOutputStream out, JsonElement element, Map<String, Integer> strings) throws IOException {
+        if (element == null || element.isJsonNull()) {
+            out.writeByte(TAG_NULL);
+        } else if (element.isJsonObject()) {
+            JsonObject object = element.getAsJsonObject();
+            out.writeByte(TAG_OBJECT);
+            out.writeInt(object.size());
+            for (Map.Entry<String, JsonElement> entry : object.entrySet()) {
+                writeString(out, entry.getKey(), strings);
+                writeElement(out, entry.getValue(), strings);
+            }
+        } else if (element.isJsonArray()) {
+            JsonArray array = element.getAsJsonArray();
+            out.writeByte(TAG_ARRAY);
+            out.writeInt(array.size());
+            for (JsonElement child : array) {
+                writeElement(out, child, strings);
+            }
+        } else {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                out.writeByte(primitive.getAsBoolean() ? TAG_TRUE : TAG_FALSE);
+            } else if (primitive.isNumber()) {
+                out.writeByte(TAG_NUMBER);
+                writeString(out, primitive.getAsString(), strings);
+            } else {
+                out.writeByte(TAG_STRING);
+                writeString(out, primitive.getAsString(), strings);
+            }
+        }
+    }
+
+    /**
+     * Cada cadena se escribe entera la primera vez; las repeticiones (claves, ids) solo guardan su índice
+     */
+    private static void writeString(DataOutputStream out, String value, Map<String, Integer> strings) throws IOException {
+        Integer index = strings.get(value);
+        if (index != null) {
+            out.writeInt(index);
+            return;
+        }
+        strings.put(value, strings.size());
+        byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(-1);
+        out.writeInt(utf8.length);
+        out.write(utf8);
+    }
+
+    /**
+     * @return el árbol guardado, o null si la copia es de otro formato o de otra versión del archivo
+     */
+    private static JsonElement readSnapshot(byte[] snapshot, byte[] expectedHash) {
+        ByteBuffer in = ByteBuffer.wrap(snapshot);
+        try {
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                return null;
+            }
+            byte[] hash = new byte[HASH_BYTES];
+            in.get(hash);
+            if (!Arrays.equals(hash, expectedHash)) {
+                return null;
+            }
+            JsonElement element = readElement(in, new ArrayList<>());
+            return in.hasRemaining() ? null : element;
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+
+    private static JsonElement readElement(ByteBuffer in, List<String> strings) {
+        byte tag = in.get();
+        switch (tag) {
+            case TAG_NULL:
+                return JsonNull.INSTANCE;
+            case TAG_TRUE:
+                return new JsonPrimitive(true);
+            case TAG_FALSE:
+                return new JsonPrimitive(false);
+            case TAG_NUMBER:
+                return new JsonPrimitive(new LazilyParsedNumber(readString(in, strings)));
+            case TAG_STRING:
+                return new JsonPrimitive(readString(in, strings));
+            case TAG_ARRAY: {
+                int size = in.getInt();
+                JsonArray array = new JsonArray(size);
+                for (int i = 0; i < size; i++) {
+                    array.add(readElement(in, strings));
+                }
+                return array;
+            }
+            case TAG_OBJECT: {
+                int size = in.getInt();
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(in, strings);
+                    object.add(key, readElement(in, strings));
+                }
+                return object;
+            }
+            default:
+                throw new IllegalStateException("Etiqueta desconocida en caché de configuración: " + tag);
+        }
+    }
+
+    private static String readString(ByteBuffer in, List<String> strings) {
+        int index = in.getInt();
+        if (index >= 0) {
+            return strings.get(index);
+        }
+        int length = in.getInt();
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalStateException("Longitud de cadena inválida: " + length);
+        }
+        String value = new String(in.array(), in.arrayOffset() + in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        strings.add(value);
+        return value;
+    }
+
+    private static byte[] sha256(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.nightslayer.mmorpg.serialization;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.nightslayer.mmorpg.audit.AuditLogger;
+import com.nightslayer.mmorpg.classes.PlayerClass;
+import com.nightslayer.mmorpg.quests.PlayerQuestProgress;
+import com.nightslayer.mmorpg.quests.Quest;
+
+/**
+ * Instancias de Gson compartidas por todo el plugin.
+ * Ambas registran los adaptadores en streaming de los tipos que se serializan a menudo,
+ * así que escribirlos no construye un árbol JsonObject intermedio ni usa reflexión.
+ * <ul>
+ *   <li>{@link #compact()} para archivos que solo lee una máquina (datos de jugadores, exportaciones, auditoría)</li>
+ *   <li>{@link #pretty()} para archivos de configuración que edita una persona</li>
+ * </ul>
+ * Gson es inmutable y seguro entre hilos, así que no hace falta crear instancias propias.
+ */
+public final class GsonRegistry {
+    private static final Gson COMPACT = baseBuilder().create();
+    private static final Gson PRETTY = baseBuilder().setPrettyPrinting().create();
+
+    private GsonRegistry() {
+    }
+
+    public static Gson compact() {
+        return COMPACT;
+    }
+
+    public static Gson pretty() {
+        return PRETTY;
+    }
+
+    private static GsonBuilder baseBuilder() {
+        return new GsonBuilder()
+            .registerTypeAdapter(PlayerClass.class, new PlayerClass.Adapter())
+            .registerTypeAdapter(PlayerQuestProgress.class, new PlayerQuestProgress.Adapter())
+            .registerTypeAdapter(Quest.class, new Quest.Adapter())
+            .registerTypeAdapter(AuditLogger.AuditEntry.class, new AuditLogger.AuditEntry.Adapter());
+    }
+}
@@ -2,11 +2,12 @@ package com.nightslayer.mmorpg.spawns;
 
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.RPGPathResolver;
+import com.nightslayer.mmorpg.api.ChangeFeed;
 import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
 import com.google.gson.JsonArray;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.World;
@@ -15,99 +16,167 @@ import org.bukkit.entity.Item;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.scheduler.BukkitRunnable;
+import org.bukkit.scheduler.BukkitTask;
 
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Gestiona puntos de spawn individuales de items y entidades con respawn automático
  * Lee desde: worlds/{worldName}/data/spawns.json
+ * El archivo se puede leer fuera del hilo principal; las entidades iniciales se crean después en
+ * el hilo principal, unas pocas por tick, para no congelar el servidor al cargar muchos mundos.
  */
 public class SpawnManager {
     private final MMORPGPlugin plugin;
     private final RPGPathResolver pathResolver;
     private final Map<String, SpawnPoint> spawnPoints;
     private final Map<UUID, SpawnPoint> activeEntities;
+    private final Deque<SpawnPoint> pendingSpawns; // spawns iniciales pendientes (solo hilo principal)
+    private final long spawnBudgetNanos;
     private final Gson gson;
     private BukkitRunnable respawnTask;
+    private BukkitTask pendingSpawnTask;
     
     public SpawnManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
         this.pathResolver = plugin.getWorldRPGManager().getPathResolver();
         this.spawnPoints = new ConcurrentHashMap<>();
         this.activeEntities = new ConcurrentHashMap<>();
-        this.gson = new GsonBuilder().setPrettyPrinting().create();
+        this.pendingSpawns = new ArrayDeque<>();
+        this.spawnBudgetNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1L, plugin.getConfig().getLong("worlds.spawn-budget-ms", 5L)));
+        this.gson = GsonRegistry.pretty();
     }
     
     /**
      * Carga los spawns de un mundo específico desde worlds/{worldName}/data/spawns.json
      */
     public void loadWorldSpawns(String worldName) {
+        loadWorldSpawns(worldName, readWorldSpawns(worldName));
+    }
+    
+    /**
+     * Lee el archivo de spawns de un mundo; se puede llamar desde cualquier hilo
+     * @return contenido del archivo, o null si no existe o no se pudo leer
+     */
+    public JsonObject readWorldSpawns(String worldName) {
         File spawnsFile = pathResolver.getLocalFile(worldName, "spawns.json");
         
         if (!spawnsFile.exists()) {
             plugin.getLogger().info("No hay spawns configurados para el mundo: " + worldName);
+            return null;
+        }
+        
+        try {
+            return plugin.getConfigCache().loadObject(spawnsFile);
+        } catch (IOException e) {
+            plugin.getLogger().severe("Error al cargar spawns para " + worldName + ": " + e.getMessage());
+            return null;
+        }
+    }
+    
+    /**
+     * Registra los spawns ya leídos de un mundo y pone en cola su spawn inicial (hilo principal)
+     */
+    public void loadWorldSpawns(String worldName, JsonObject data) {
+        if (data == null) {
             return;
         }
         
-        try (FileReader reader = new FileReader(spawnsFile)) {
-            JsonObject data = gson.fromJson(reader, JsonObject.class);
-            JsonArray spawnsArray = data.getAsJsonArray("spawns");
+        JsonArray spawnsArray = data.getAsJsonArray("spawns");
+        
+        if (spawnsArray != null) {
+            int count = 0;
+            for (JsonElement element : spawnsArray) {
+                JsonObject spawnObj = element.getAsJsonObject();
+                
+                if (!spawnObj.get("enabled").getAsBoolean()) {
+                    continue;
+                }
+                
+                String id = spawnObj.get("id").getAsString();
+                String type = spawnObj.get("type").getAsString();
+                double x = spawnObj.get("x").getAsDouble();
+                double y = spawnObj.get("y").getAsDouble();
+                double z = spawnObj.get("z").getAsDouble();
+                
+                World world = plugin.getServer().getWorld(worldName);
+                if (world == null) {
+                    plugin.getLogger().warning("Mundo no encontrado para spawn: " + worldName);
+                    continue;
+                }
+                
+                Location location = new Location(world, x, y, z);
+                
+                SpawnPoint spawn = new SpawnPoint(
+                    id,
+                    type,
+                    location,
+                    spawnObj.get("respawn_enabled").getAsBoolean(),
+                    spawnObj.get("respawn_time_seconds").getAsInt(),
+                    spawnObj.get("respawn_on_death").getAsBoolean(),
+                    spawnObj.get("respawn_on_use").getAsBoolean()
+                );
+                
+                // Configurar item o entidad
+                if ("item".equals(type)) {
+                    spawn.setItemType(spawnObj.get("item").getAsString());
+                } else if ("mob".equals(type) || "npc".equals(type)) {
+                    spawn.setEntityType(spawnObj.get("entity_type").getAsString());
+                }
+                
+                // Al recargar un mundo, retirar la entidad del spawn anterior con el mismo id
+                SpawnPoint previous = spawnPoints.put(id, spawn);
+                if (previous != null) {
+                    removeEntity(previous);
+                }
+                
+                // Spawn inicial
+                pendingSpawns.add(spawn);
+                count++;
+            }
             
-            if (spawnsArray != null) {
-                int count = 0;
-                for (JsonElement element : spawnsArray) {
-                    JsonObject spawnObj = element.getAsJsonObject();
-                    
-                    if (!spawnObj.get("enabled").getAsBoolean()) {
-                        continue;
-                    }
-                    
-                    String id = spawnObj.get("id").getAsString();
-                    String type = spawnObj.get("type").getAsString();
-                    double x = spawnObj.get("x").getAsDouble();
-                    double y = spawnObj.get("y").getAsDouble();
-                    double z = spawnObj.get("z").getAsDouble();
-                    
-                    World world = plugin.getServer().getWorld(worldName);
-                    if (world == null) {
-                        plugin.getLogger().warning("Mundo no encontrado para spawn: " + worldName);
-                        continue;
-                    }
-                    
-                    Location location = new Location(world, x, y, z);
-                    
-                    SpawnPoint spawn = new SpawnPoint(
-                        id,
-                        type,
-                        location,
-                        spawnObj.get("respawn_enabled").getAsBoolean(),
-                        spawnObj.get("respawn_time_seconds").getAsInt(),
-                        spawnObj.get("respawn_on_death").getAsBoolean(),
-                        spawnObj.get("respawn_on_use").getAsBoolean()
-                    );
-                    
-                    // Configurar item o entidad
-                    if ("item".equals(type)) {
-                        spawn.setItemType(spawnObj.get("item").getAsString());
-                    } else if ("mob".equals(type) || "npc".equals(type)) {
-                        spawn.setEntityType(spawnObj.get("entity_type").getAsString());
-                    }
-                    
-                    spawnPoints.put(id, spawn);
-                    
-                    // Spawn inicial
+            plugin.getLogger().info("Cargados " + count + " spawns para el mundo: " + worldName);
+            schedulePendingSpawns();
+        }
+    }
+    
+    /**
+     * Crea las entidades pendientes sin pasar del presupuesto de tiempo por tick
+     */
+    private void schedulePendingSpawns() {
+        if (pendingSpawnTask != null || pendingSpawns.isEmpty()) {
+            return;
+        }
+        
+        pendingSpawnTask = plugin.getServer().getScheduler().runTaskTimer(plugin, () -> {
+            long deadline = System.nanoTime() + spawnBudgetNanos;
+            while (!pendingSpawns.isEmpty() && System.nanoTime() < deadline) {
+                SpawnPoint spawn = pendingSpawns.poll();
+                // Puede haberse reemplazado por una recarga posterior
+                if (spawnPoints.get(spawn.getId()) == spawn && !spawn.isSpawned()) {
                     spawnEntity(spawn);
-                    count++;
                 }
-                
-                plugin.getLogger().info("Cargados " + count + " spawns para el mundo: " + worldName);
             }
-        } catch (IOException e) {
-            plugin.getLogger().severe("Error al cargar spawns para " + worldName + ": " + e.getMessage());
+            if (pendingSpawns.isEmpty()) {
+                pendingSpawnTask.cancel();
+                pendingSpawnTask = null;
+            }
+        }, 1L, 1L);
+    }
+    
+    private void removeEntity(SpawnPoint spawn) {
+        UUID uuid = spawn.getEntityUUID();
+        if (uuid == null) {
+            return;
+        }
+        activeEntities.remove(uuid);
+        org.bukkit.entity.Entity entity = plugin.getServer().getEntity(uuid);
+        if (entity != null) {
+            entity.remove();
         }
     }
     
@@ -163,6 +232,7 @@ public class SpawnManager {
                 activeEntities.put(item.getUniqueId(), spawn);
                 spawn.setSpawned(true);
                 spawn.setEntityUUID(item.getUniqueId());
+                recordChange(spawn);
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning("Material inválido para spawn " + spawn.getId() + ": " + spawn.getItemType());
             }
@@ -177,6 +247,7 @@ public class SpawnManager {
                 activeEntities.put(entity.getUniqueId(), spawn);
                 spawn.setSpawned(true);
                 spawn.setEntityUUID(entity.getUniqueId());
+                recordChange(spawn);
             } catch (IllegalArgumentException e) {
                 plugin.getLogger().warning("EntityType inválido para spawn " + spawn.getId() + ": " + spawn.getEntityType());
             }
@@ -194,6 +265,7 @@ public class SpawnManager {
             spawn.setLastDespawnTime(System.currentTimeMillis());
             spawn.setEntityUUID(null);
             activeEntities.remove(entityUUID);
+            recordChange(spawn);
         }
     }
     
@@ -208,6 +280,7 @@ public class SpawnManager {
             spawn.setLastDespawnTime(System.currentTimeMillis());
             spawn.setEntityUUID(null);
             activeEntities.remove(entityUUID);
+            recordChange(spawn);
         }
     }
     
@@ -218,6 +291,11 @@ public class SpawnManager {
         if (respawnTask != null) {
             respawnTask.cancel();
         }
+        if (pendingSpawnTask != null) {
+            pendingSpawnTask.cancel();
+            pendingSpawnTask = null;
+        }
+        pendingSpawns.clear();
         
         // Limpiar entidades spawneadas
         for (SpawnPoint spawn : spawnPoints.values()) {
@@ -235,6 +313,17 @@ public class SpawnManager {
         activeEntities.clear();
     }
     
+    /**
+     * Anota el cambio de estado de un spawn para el panel web
+     */
+    private void recordChange(SpawnPoint spawn) {
+        plugin.getChangeFeed().record(ChangeFeed.Kind.SPAWN, spawn.getId(), false);
+    }
+    
+    public SpawnPoint getSpawnPoint(String id) {
+        return spawnPoints.get(id);
+    }
+    
     public Map<String, SpawnPoint> getSpawnPoints() {
         return new HashMap<>(spawnPoints);
     }
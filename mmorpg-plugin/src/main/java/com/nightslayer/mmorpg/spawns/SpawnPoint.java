@@ -1,5 +1,6 @@
 package com.nightslayer.mmorpg.spawns;
 
+import com.google.gson.JsonObject;
 import org.bukkit.Location;
 
 import java.util.UUID;
@@ -56,4 +57,27 @@ public class SpawnPoint {
     public void setSpawned(boolean spawned) { this.spawned = spawned; }
     public void setEntityUUID(UUID entityUUID) { this.entityUUID = entityUUID; }
     public void setLastDespawnTime(long lastDespawnTime) { this.lastDespawnTime = lastDespawnTime; }
+    
+    /**
+     * Estado del spawn para el panel web
+     */
+    public JsonObject toJson() {
+        JsonObject json = new JsonObject();
+        json.addProperty("id", id);
+        json.addProperty("type", type);
+        String worldName = location.getWorld() != null ? location.getWorld().getName() : null;
+        json.addProperty("world", worldName);
+        json.addProperty("x", location.getX());
+        json.addProperty("y", location.getY());
+        json.addProperty("z", location.getZ());
+        if (itemType != null) {
+            json.addProperty("item", itemType);
+        }
+        if (entityType != null) {
+            json.addProperty("entity_type", entityType);
+        }
+        json.addProperty("spawned", spawned);
+        json.addProperty("lastDespawnTime", lastDespawnTime);
+        return json;
+    }
 }
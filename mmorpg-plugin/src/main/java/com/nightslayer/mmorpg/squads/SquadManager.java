@@ -3,13 +3,13 @@ package com.nightslayer.mmorpg.squads;
 import com.google.gson.Gson;
 import com.nightslayer.mmorpg.MMORPGPlugin;
 import com.nightslayer.mmorpg.economy.EconomyManager;
+import com.nightslayer.mmorpg.serialization.GsonRegistry;
 // import com.nightslayer.mmorpg.mobs.MobManager;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.bukkit.scheduler.BukkitTask;
 
 import java.io.*;
-import java.nio.file.Files;
 // import java.nio.file.Paths;
 import java.sql.*;
 import java.time.LocalDateTime;
@@ -30,7 +30,7 @@ public class SquadManager {
 
     public SquadManager(MMORPGPlugin plugin) {
         this.plugin = plugin;
-        this.gson = new Gson();
+        this.gson = GsonRegistry.compact();
         this.activeSessions = new ConcurrentHashMap<>();
         this.dbFile = new File(plugin.getDataFolder(), "squads.db");
         this.configFile = new File(plugin.getDataFolder(), "squad_config.json");
@@ -66,8 +66,7 @@ public class SquadManager {
                 return;
             }
 
-            String content = new String(Files.readAllBytes(configFile.toPath()));
-            config = gson.fromJson(content, SquadConfig.class);
+            config = gson.fromJson(plugin.getConfigCache().load(configFile), SquadConfig.class);
             if (config == null) {
                 config = new SquadConfig();
             }
@@ -11,7 +11,7 @@ from werkzeug.security import check_password_hash, generate_password_hash
 from werkzeug.utils import secure_filename
 from dotenv import load_dotenv
 from threading import Lock
-from time import time
+from time import time, time_ns
 import docker
 from models.world_manager import WorldManager
 from models.rpg_manager import RPGManager
@@ -2879,22 +2879,47 @@ def get_rpg_mobs():
         print(f"Error en get_rpg_mobs: {e}")
         return jsonify({'success': False, 'message': str(e)}), 500
 
+def _plugin_api_folder():
+    """Carpeta api del plugin MMORPG (comandos y resultados)"""
+    api_folder = os.path.join(PLUGINS_DIR, 'MMORPGPlugin', 'api')
+    os.makedirs(os.path.join(api_folder, 'inbox'), exist_ok=True)
+    return api_folder
+
+def _enqueue_plugin_command(command_type, data):
+    """
+    Deja un comando en la bandeja del plugin: se escribe con otro nombre y se renombra
+    de forma atómica para que el plugin nunca lea un archivo a medias.
+    Devuelve el id del comando para consultar su resultado.
+    """
+    inbox = os.path.join(_plugin_api_folder(), 'inbox')
+    command_id = f"{time_ns()}-{command_type}"
+    temp_file = os.path.join(inbox, command_id + '.tmp')
+    with open(temp_file, 'w') as f:
+        json.dump({'type': command_type, 'data': data}, f)
+    os.replace(temp_file, os.path.join(inbox, command_id + '.json'))
+    return command_id
+
+@app.route('/api/rpg/command/<command_id>', methods=['GET'])
+@login_required
+def get_rpg_command_result(command_id):
+    """Estado de un comando enviado al plugin (pendiente o su resultado)"""
+    if not re.fullmatch(r'[0-9]+-[A-Za-z]+', command_id):
+        return jsonify({'success': False, 'message': 'Id de comando inválido'}), 400
+    result_file = os.path.join(_plugin_api_folder(), 'results', command_id + '.result.json')
+    if not os.path.exists(result_file):
+        return jsonify({'success': True, 'pending': True})
+    with open(result_file, 'r') as f:
+        return jsonify({'success': True, 'pending': False, 'result': json.load(f)})
+
 @app.route('/api/rpg/quest/create', methods=['POST'])
 @login_required
 def create_rpg_quest():
     """Crea una nueva quest via API"""
     try:
         quest_data = request.json
-        api_folder = os.path.join(PLUGINS_DIR, 'MMORPGPlugin', 'api')
-        os.makedirs(api_folder, exist_ok=True)
+        command_id = _enqueue_plugin_command('createQuest', quest_data)
         
-        commands_file = os.path.join(api_folder, 'commands.json')
-        commands = {'createQuest': quest_data}
-        
-        with open(commands_file, 'w') as f:
-            json.dump(commands, f, indent=2)
-        
-        return jsonify({'success': True, 'message': 'Quest creada (se aplicará en 5 segundos)'})
+        return jsonify({'success': True, 'message': 'Quest enviada al servidor', 'commandId': command_id})
     except Exception as e:
         return jsonify({'success': False, 'message': str(e)}), 500
 
@@ -2903,16 +2928,9 @@ def create_rpg_quest():
 def delete_rpg_quest(quest_id):
     """Elimina una quest via API"""
     try:
-        api_folder = os.path.join(PLUGINS_DIR, 'MMORPGPlugin', 'api')
-        os.makedirs(api_folder, exist_ok=True)
-        
-        commands_file = os.path.join(api_folder, 'commands.json')
-        commands = {'deleteQuest': quest_id}
+        command_id = _enqueue_plugin_command('deleteQuest', quest_id)
         
-        with open(commands_file, 'w') as f:
-            json.dump(commands, f, indent=2)
-        
-        return jsonify({'success': True, 'message': 'Quest eliminada'})
+        return jsonify({'success': True, 'message': 'Eliminación de quest enviada al servidor', 'commandId': command_id})
     except Exception as e:
         return jsonify({'success': False, 'message': str(e)}), 500
 
@@ -2922,16 +2940,9 @@ def create_rpg_npc():
     """Crea un nuevo NPC via API"""
     try:
         npc_data = request.json
-        api_folder = os.path.join(PLUGINS_DIR, 'MMORPGPlugin', 'api')
-        os.makedirs(api_folder, exist_ok=True)
-        
-        commands_file = os.path.join(api_folder, 'commands.json')
-        commands = {'createNPC': npc_data}
+        command_id = _enqueue_plugin_command('createNPC', npc_data)
         
-        with open(commands_file, 'w') as f:
-            json.dump(commands, f, indent=2)
-        
-        return jsonify({'success': True, 'message': 'NPC creado (se aplicará en 5 segundos)'})
+        return jsonify({'success': True, 'message': 'NPC enviado al servidor', 'commandId': command_id})
     except Exception as e:
         return jsonify({'success': False, 'message': str(e)}), 500
 
@@ -2940,16 +2951,9 @@ def create_rpg_npc():
 def delete_rpg_npc(npc_id):
     """Elimina un NPC via API"""
     try:
-        api_folder = os.path.join(PLUGINS_DIR, 'MMORPGPlugin', 'api')
-        os.makedirs(api_folder, exist_ok=True)
-        
-        commands_file = os.path.join(api_folder, 'commands.json')
-        commands = {'deleteNPC': npc_id}
+        command_id = _enqueue_plugin_command('deleteNPC', npc_id)
         
-        with open(commands_file, 'w') as f:
-            json.dump(commands, f, indent=2)
-        
-        return jsonify({'success': True, 'message': 'NPC eliminado'})
+        return jsonify({'success': True, 'message': 'Eliminación de NPC enviada al servidor', 'commandId': command_id})
     except Exception as e:
         return jsonify({'success': False, 'message': str(e)}), 500
 
@@ -2959,16 +2963,9 @@ def create_rpg_mob():
     """Crea un nuevo mob custom via API"""
     try:
         mob_data = request.json
-        api_folder = os.path.join(PLUGINS_DIR, 'MMORPGPlugin', 'api')
-        os.makedirs(api_folder, exist_ok=True)
-        
-        commands_file = os.path.join(api_folder, 'commands.json')
-        commands = {'createMob': mob_data}
-        
-        with open(commands_file, 'w') as f:
-            json.dump(commands, f, indent=2)
+        command_id = _enqueue_plugin_command('createMob', mob_data)
         
-        return jsonify({'success': True, 'message': 'Mob creado (se aplicará en 5 segundos)'})
+        return jsonify({'success': True, 'message': 'Mob enviado al servidor', 'commandId': command_id})
     except Exception as e:
         return jsonify({'success': False, 'message': str(e)}), 500
 
@@ -2,6 +2,8 @@ import json
 import os
 import shutil
 import sqlite3
+import urllib.error
+import urllib.request
 from datetime import datetime
 from pathlib import Path
 from typing import Optional, Dict, List
@@ -63,6 +65,39 @@ class RPGManager:
             self.worlds_path.mkdir(parents=True, exist_ok=True)
         except PermissionError:
             pass  # Directorio ya existe o no tenemos permisos
+        
+        # API HTTP local del plugin (datos en vivo); si no responde se leen los archivos exportados
+        self.plugin_api_url = os.getenv('MMORPG_API_URL', 'http://127.0.0.1:8765').rstrip('/')
+        self.plugin_api_token = os.getenv('MMORPG_API_TOKEN', '')
+        self._snapshot_cache = {}  # clave -> (etag, datos)
+
+    def _fetch_plugin_snapshot(self, world_name: str, document: str) -> Optional[Dict]:
+        """
+        Obtiene un documento en vivo desde la API HTTP local del plugin.
+        Usa el ETag de la última respuesta para que el plugin conteste 304 si no cambió.
+        
+        Returns:
+            Dict con los datos o None si la API no está disponible
+        """
+        key = f"{world_name}/{document}"
+        cached = self._snapshot_cache.get(key)
+        request = urllib.request.Request(f"{self.plugin_api_url}/api/v1/snapshot/{key}")
+        if self.plugin_api_token:
+            request.add_header('X-Admin-Token', self.plugin_api_token)
+        if cached:
+            request.add_header('If-None-Match', cached[0])
+        
+        try:
+            with urllib.request.urlopen(request, timeout=2) as response:
+                data = json.loads(response.read().decode('utf-8'))
+                self._snapshot_cache[key] = (response.headers.get('ETag'), data)
+                return data
+        except urllib.error.HTTPError as e:
+            if e.code == 304 and cached:
+                return cached[1]
+            return None
+        except (urllib.error.URLError, OSError, ValueError):
+            return None
 
     def _get_db_connection(self):
         """
@@ -219,6 +254,10 @@ class RPGManager:
         Returns:
             Dict con el estado RPG o None si no existe
         """
+        live = self._fetch_plugin_snapshot(world_name, 'status')
+        if live is not None:
+            return live
+        
         world_data_dir = self._get_world_data_dir(world_name)
         status_file = world_data_dir / "status.json"
         
@@ -242,6 +281,10 @@ class RPGManager:
         Returns:
             Dict con datos de jugadores o None si no existe
         """
+        live = self._fetch_plugin_snapshot(world_name, 'players')
+        if live is not None:
+            return live
+        
         world_data_dir = self._get_world_data_dir(world_name)
         players_file = world_data_dir / "players.json"
         